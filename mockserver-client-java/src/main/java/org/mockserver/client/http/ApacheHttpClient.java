@@ -23,7 +23,6 @@ import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.map.annotate.JsonSerialize;
 import org.mockserver.mappers.ApacheHttpClientToMockServerResponseMapper;
 import org.mockserver.model.*;
-import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,7 +51,7 @@ public class ApacheHttpClient {
                         .setSslcontext(
                                 SSLContexts
                                         .custom()
-                                        .loadTrustMaterial(SSLFactory.getInstance().buildKeyStore(), new TrustStrategy() {
+                                        .loadTrustMaterial(null, new TrustStrategy() {
                                             public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
                                                 return true;
                                             }
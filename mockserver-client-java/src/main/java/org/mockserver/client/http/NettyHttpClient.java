@@ -0,0 +1,461 @@
+package org.mockserver.client.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.mappers.NettyToMockServerResponseMapper;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.Cookie;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.Parameter;
+import org.mockserver.socket.SSLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.*;
+
+/**
+ * A non-blocking HTTP client used to forward requests, a single instance is shared so connections to each host are
+ * kept alive and pooled across every inbound connection, each response is returned as a future completed on the
+ * client's own event loop so a slow upstream never blocks the event loop of an inbound connection
+ *
+ * Connecting, and waiting for a response once a request is written, both time out after SystemProperties.maxTimeout(),
+ * idle pooled connections are closed after the same time, a response body larger than
+ * SystemProperties.forwardedResponseMaxSize() fails the request
+ *
+ * A request body can also be streamed upstream as it arrives using streamRequest(...), see StreamingRequest
+ *
+ * @author jamesdbloom
+ */
+public class NettyHttpClient {
+
+    static final int MAX_IDLE_CONNECTIONS_PER_HOST = 32;
+    private static final Logger logger = LoggerFactory.getLogger(NettyHttpClient.class);
+    private static final NettyHttpClient nettyHttpClient = new NettyHttpClient(new NioEventLoopGroup(0, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MockServer-http-client-%d").build()));
+    private final EventLoopGroup eventLoopGroup;
+    private final ConcurrentMap<String, BlockingDeque<Channel>> idleConnections = new ConcurrentHashMap<String, BlockingDeque<Channel>>();
+    private final NettyToMockServerResponseMapper nettyToMockServerResponseMapper = new NettyToMockServerResponseMapper();
+
+    @VisibleForTesting
+    NettyHttpClient(EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
+    public static NettyHttpClient getInstance() {
+        return nettyHttpClient;
+    }
+
+    public Future<HttpResponse> sendRequest(HttpRequest httpRequest) {
+        EventLoop eventLoop = eventLoopGroup.next();
+        Promise<HttpResponse> response = eventLoop.newPromise();
+        start(httpRequest, eventLoop, response, null);
+        return response;
+    }
+
+    /**
+     * Sends the request line and headers of httpRequest, ignoring its body, the body is then written to the returned
+     * StreamingRequest as it arrives, a streamed body is not kept so the request is never retried on a new connection
+     */
+    public StreamingRequest streamRequest(HttpRequest httpRequest) {
+        EventLoop eventLoop = eventLoopGroup.next();
+        Promise<HttpResponse> response = eventLoop.newPromise();
+        StreamingRequest streamingRequest = new StreamingRequest(response);
+        start(httpRequest, eventLoop, response, streamingRequest);
+        return streamingRequest;
+    }
+
+    private void start(HttpRequest httpRequest, EventLoop eventLoop, Promise<HttpResponse> response, StreamingRequest streamingRequest) {
+        try {
+            Exchange exchange = new Exchange(httpRequest, buildUrl(httpRequest), eventLoop, response, streamingRequest);
+            logger.debug(exchange.method + " => " + exchange.url);
+            send(exchange, true);
+        } catch (URISyntaxException urle) {
+            RuntimeException cause = new RuntimeException("URISyntaxException for url [" + httpRequest.getURL() + "]", urle);
+            if (streamingRequest != null) {
+                streamingRequest.abort(cause);
+            } else {
+                response.setFailure(cause);
+            }
+        }
+    }
+
+    private void send(final Exchange exchange, boolean reuseConnection) {
+        Channel channel = (reuseConnection ? pollIdleConnection(exchange.poolKey) : null);
+        if (channel != null) {
+            write(channel, exchange, true);
+        } else {
+            // resolve and connect on the client's event loop, never on the caller's thread
+            exchange.eventLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    connect(exchange).addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) {
+                            if (future.isSuccess()) {
+                                write(future.channel(), exchange, false);
+                            } else {
+                                exchange.fail(future.cause());
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private ChannelFuture connect(final Exchange exchange) {
+        return new Bootstrap()
+                .group(exchange.eventLoop)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) SystemProperties.maxTimeout())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel channel) {
+                        ChannelPipeline pipeline = channel.pipeline();
+                        if (exchange.secure) {
+                            pipeline.addLast(SSLFactory.getInstance().clientSslHandler(exchange.host, exchange.port));
+                        }
+                        pipeline.addLast(new IdleStateHandler(0, 0, SystemProperties.maxTimeout(), TimeUnit.MILLISECONDS));
+                        pipeline.addLast(new HttpClientCodec());
+                        pipeline.addLast(new HttpContentDecompressor());
+                        pipeline.addLast(new HttpObjectAggregator(SystemProperties.forwardedResponseMaxSize()));
+                        pipeline.addLast(new ResponseHandler(exchange.poolKey));
+                    }
+                })
+                .connect(exchange.host, exchange.port)
+                .addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) {
+                        if (future.isSuccess()) {
+                            final Channel channel = future.channel();
+                            channel.closeFuture().addListener(new ChannelFutureListener() {
+                                @Override
+                                public void operationComplete(ChannelFuture future) {
+                                    idleConnections(exchange.poolKey).remove(channel);
+                                }
+                            });
+                        }
+                    }
+                });
+    }
+
+    private void write(Channel channel, final Exchange exchange, boolean reusedConnection) {
+        final ResponseHandler responseHandler = channel.pipeline().get(ResponseHandler.class);
+        // a streamed body has already been released so it can't be sent again on a new connection
+        responseHandler.start(exchange, reusedConnection && exchange.streamingRequest == null);
+        ChannelFutureListener writeListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    // the request could not be written so the upstream server can't have processed it
+                    responseHandler.fail(future.cause(), true, false);
+                    future.channel().close();
+                }
+            }
+        };
+        if (exchange.streamingRequest != null) {
+            exchange.streamingRequest.connected(channel, exchange.createNettyRequestHead(), writeListener);
+        } else {
+            channel.writeAndFlush(exchange.createNettyRequest()).addListener(writeListener);
+        }
+    }
+
+    private Channel pollIdleConnection(String poolKey) {
+        BlockingDeque<Channel> idle = idleConnections(poolKey);
+        Channel channel;
+        while ((channel = idle.pollFirst()) != null) {
+            if (channel.isActive()) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    private void release(Channel channel, String poolKey) {
+        if (!channel.isActive() || !idleConnections(poolKey).offerFirst(channel)) {
+            channel.close();
+        }
+    }
+
+    private BlockingDeque<Channel> idleConnections(String poolKey) {
+        BlockingDeque<Channel> idle = idleConnections.get(poolKey);
+        if (idle == null) {
+            BlockingDeque<Channel> newIdle = new LinkedBlockingDeque<Channel>(MAX_IDLE_CONNECTIONS_PER_HOST);
+            idle = idleConnections.putIfAbsent(poolKey, newIdle);
+            if (idle == null) {
+                idle = newIdle;
+            }
+        }
+        return idle;
+    }
+
+    @VisibleForTesting
+    int idleConnectionCount(String poolKey) {
+        return idleConnections(poolKey).size();
+    }
+
+    private URI buildUrl(HttpRequest httpRequest) throws URISyntaxException {
+        URI url = new URI(URLEncoder.encodeURL(httpRequest.getURL()));
+        if (url.getQuery() != null) {
+            httpRequest.withQueryStringParameters(new QueryStringDecoder("?" + url.getQuery()).parameters());
+        }
+        StringBuilder queryString = new StringBuilder();
+        List<Parameter> queryStringParameters = httpRequest.getQueryStringParameters();
+        for (int i = 0; i < queryStringParameters.size(); i++) {
+            Parameter parameter = queryStringParameters.get(i);
+            if (parameter.getValues().isEmpty()) {
+                queryString.append(parameter.getName());
+                queryString.append('=');
+            } else {
+                List<String> values = parameter.getValues();
+                for (int j = 0; j < values.size(); j++) {
+                    String value = values.get(j);
+                    queryString.append(parameter.getName());
+                    queryString.append('=');
+                    queryString.append(value);
+                    if (j < (values.size() - 1)) {
+                        queryString.append('&');
+                    }
+                }
+            }
+            if (i < (queryStringParameters.size() - 1)) {
+                queryString.append('&');
+            }
+        }
+        return new URI(url.getScheme(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(), (queryString.toString().isEmpty() ? null : queryString.toString()), url.getFragment());
+    }
+
+    /**
+     * A request being forwarded, if it fails on a pooled connection that the upstream server has since closed it is
+     * sent once more on a new connection, unless its body is being streamed, a request that was written is only sent
+     * again if its method is idempotent as the upstream server may have processed it before closing the connection
+     */
+    private class Exchange {
+        private final HttpRequest httpRequest;
+        private final URI url;
+        private final EventLoop eventLoop;
+        private final Promise<HttpResponse> response;
+        private final HttpMethod method;
+        private final boolean secure;
+        private final String host;
+        private final int port;
+        private final String poolKey;
+        private final StreamingRequest streamingRequest;
+
+        Exchange(HttpRequest httpRequest, URI url, EventLoop eventLoop, Promise<HttpResponse> response, StreamingRequest streamingRequest) {
+            this.httpRequest = httpRequest;
+            this.url = url;
+            this.eventLoop = eventLoop;
+            this.response = response;
+            this.streamingRequest = streamingRequest;
+            this.method = HttpMethod.valueOf(Strings.isNullOrEmpty(httpRequest.getMethod()) ? "GET" : httpRequest.getMethod());
+            this.secure = "https".equalsIgnoreCase(url.getScheme());
+            this.host = url.getHost();
+            this.port = (url.getPort() != -1 ? url.getPort() : (secure ? 443 : 80));
+            this.poolKey = (secure ? "https://" : "http://") + host + ":" + port;
+        }
+
+        boolean isIdempotent() {
+            return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE || method == HttpMethod.PUT || method == HttpMethod.DELETE;
+        }
+
+        void fail(Throwable cause) {
+            if (streamingRequest != null) {
+                streamingRequest.abort(cause);
+            } else {
+                response.tryFailure(cause);
+            }
+        }
+
+        FullHttpRequest createNettyRequest() {
+            // body
+            byte[] body;
+            if (httpRequest.getBody() instanceof BinaryBody) {
+                body = ((BinaryBody) httpRequest.getBody()).getValue();
+            } else {
+                body = (httpRequest.getBody() != null ? httpRequest.getBody().toString() : "").getBytes(Charsets.UTF_8);
+            }
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri(), Unpooled.wrappedBuffer(body));
+            addHeaders(request);
+            if (request.content().isReadable() || method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+                request.headers().set(CONTENT_LENGTH, request.content().readableBytes());
+            }
+            return request;
+        }
+
+        io.netty.handler.codec.http.HttpRequest createNettyRequestHead() {
+            io.netty.handler.codec.http.HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri());
+            addHeaders(request);
+            // keep the length of the inbound body when it is known, otherwise send the body as it arrives in chunks
+            String contentLength = null;
+            for (Header header : httpRequest.getHeaders()) {
+                if (header.getName().equalsIgnoreCase(CONTENT_LENGTH) && !header.getValues().isEmpty()) {
+                    contentLength = header.getValues().get(0);
+                }
+            }
+            if (contentLength != null) {
+                request.headers().set(CONTENT_LENGTH, contentLength);
+            } else {
+                HttpHeaders.setTransferEncodingChunked(request);
+            }
+            return request;
+        }
+
+        private String uri() {
+            return (Strings.isNullOrEmpty(url.getRawPath()) ? "/" : url.getRawPath()) + (url.getRawQuery() != null ? "?" + url.getRawQuery() : "");
+        }
+
+        private void addHeaders(io.netty.handler.codec.http.HttpRequest request) {
+            // headers
+            for (Header header : httpRequest.getHeaders()) {
+                String headerName = header.getName();
+                if (!headerName.equalsIgnoreCase(CONTENT_LENGTH) && !headerName.equalsIgnoreCase(TRANSFER_ENCODING)) {
+                    if (!header.getValues().isEmpty()) {
+                        request.headers().add(headerName, header.getValues());
+                    } else {
+                        request.headers().add(headerName, "");
+                    }
+                }
+            }
+            if (!request.headers().contains(HOST)) {
+                request.headers().set(HOST, host + (url.getPort() != -1 ? ":" + url.getPort() : ""));
+            }
+
+            // cookies
+            if (!request.headers().contains(COOKIE)) {
+                List<io.netty.handler.codec.http.Cookie> cookies = new ArrayList<io.netty.handler.codec.http.Cookie>();
+                for (Cookie cookie : httpRequest.getCookies()) {
+                    if (!cookie.getValues().isEmpty()) {
+                        for (String value : cookie.getValues()) {
+                            cookies.add(new DefaultCookie(cookie.getName(), value));
+                        }
+                    } else {
+                        cookies.add(new DefaultCookie(cookie.getName(), ""));
+                    }
+                }
+                if (!cookies.isEmpty()) {
+                    request.headers().set(COOKIE, ClientCookieEncoder.encode(cookies));
+                }
+            }
+        }
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        private final String poolKey;
+        private final AtomicReference<Exchange> exchange = new AtomicReference<Exchange>();
+        private volatile boolean reusedConnection;
+
+        ResponseHandler(String poolKey) {
+            this.poolKey = poolKey;
+        }
+
+        void start(Exchange exchange, boolean reusedConnection) {
+            this.reusedConnection = reusedConnection;
+            this.exchange.set(exchange);
+        }
+
+        /**
+         * @param written true if the request was written, so is only sent again if its method is idempotent
+         */
+        void fail(Throwable cause, boolean retry, boolean written) {
+            Exchange failed = exchange.getAndSet(null);
+            if (failed != null) {
+                if (retry && reusedConnection && (!written || failed.isIdempotent())) {
+                    logger.debug("Pooled connection to " + poolKey + " failed, sending request on new connection", cause);
+                    send(failed, false);
+                } else {
+                    failed.fail(cause);
+                }
+            }
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            Exchange completed = exchange.getAndSet(null);
+            if (completed != null) {
+                HttpResponse httpResponse = null;
+                RuntimeException mappingException = null;
+                try {
+                    httpResponse = nettyToMockServerResponseMapper.mapNettyResponseToMockServerResponse(response);
+                } catch (RuntimeException re) {
+                    mappingException = re;
+                }
+                // release the connection before completing the response so a following request can reuse it, unless
+                // the upstream server responded before the whole of a streamed body was sent
+                if (HttpHeaders.isKeepAlive(response) && (completed.streamingRequest == null || completed.streamingRequest.isComplete())) {
+                    release(ctx.channel(), poolKey);
+                } else {
+                    ctx.close();
+                }
+                if (mappingException == null) {
+                    completed.response.trySuccess(httpResponse);
+                } else {
+                    completed.response.tryFailure(mappingException);
+                }
+            } else {
+                ctx.close();
+            }
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            Exchange current = exchange.get();
+            if (current != null && current.streamingRequest != null) {
+                current.streamingRequest.writable();
+            }
+            super.channelWritabilityChanged(ctx);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent) {
+                fail(ReadTimeoutException.INSTANCE, false, true);
+                ctx.close();
+            } else {
+                super.userEventTriggered(ctx, evt);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            fail(new IOException("Connection to " + poolKey + " closed before response was received"), true, true);
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // a response too large to aggregate would be too large on a new connection as well
+            fail(cause, !(cause instanceof TooLongFrameException), true);
+            ctx.close();
+        }
+    }
+}
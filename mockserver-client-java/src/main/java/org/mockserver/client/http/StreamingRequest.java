@@ -0,0 +1,124 @@
+package org.mockserver.client.http;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.mockserver.model.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body of a request being forwarded by NettyHttpClient.streamRequest(...), each chunk written is sent upstream as
+ * it arrives instead of gathering the whole body in memory, chunks written before the upstream connection is ready
+ * are queued until it is
+ *
+ * When isWritable() returns false the upstream connection can't keep up, so the caller should stop reading its own
+ * connection until the listener passed to onWritable(...) is run
+ *
+ * @author jamesdbloom
+ */
+public class StreamingRequest {
+
+    private final Promise<HttpResponse> response;
+    private final List<HttpContent> pending = new ArrayList<HttpContent>();
+    private volatile Channel channel;
+    private volatile Runnable writableListener;
+    private volatile boolean complete;
+    private Throwable failure;
+
+    StreamingRequest(Promise<HttpResponse> response) {
+        this.response = response;
+    }
+
+    public Future<HttpResponse> response() {
+        return response;
+    }
+
+    /**
+     * Sends a chunk of the body upstream and releases it once it has been written, the body is complete once a
+     * LastHttpContent is written
+     */
+    public void write(HttpContent content) {
+        Channel channel;
+        synchronized (this) {
+            if (content instanceof LastHttpContent) {
+                complete = true;
+            }
+            if (failure != null) {
+                content.release();
+                return;
+            }
+            if (this.channel == null) {
+                pending.add(content);
+                return;
+            }
+            channel = this.channel;
+        }
+        channel.writeAndFlush(content);
+    }
+
+    public boolean isWritable() {
+        Channel channel = this.channel;
+        return channel != null && channel.isWritable();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param listener run once the upstream connection is ready and each time it becomes writable again
+     */
+    public void onWritable(Runnable listener) {
+        this.writableListener = listener;
+        writable();
+    }
+
+    void connected(Channel channel, io.netty.handler.codec.http.HttpRequest head, ChannelFutureListener headListener) {
+        synchronized (this) {
+            if (failure == null) {
+                channel.write(head).addListener(headListener);
+                for (HttpContent content : pending) {
+                    channel.write(content);
+                }
+                pending.clear();
+                channel.flush();
+                this.channel = channel;
+            } else {
+                channel.close();
+            }
+        }
+        writable();
+    }
+
+    void writable() {
+        Runnable listener = writableListener;
+        if (listener != null && isWritable()) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Fails the response and releases any queued chunks, if the body isn't complete the upstream connection is closed
+     * as the request can't be finished, chunks written afterwards are released without being sent
+     */
+    public void abort(Throwable cause) {
+        Channel channel;
+        synchronized (this) {
+            failure = cause;
+            for (HttpContent content : pending) {
+                content.release();
+            }
+            pending.clear();
+            channel = this.channel;
+        }
+        if (channel != null && !complete) {
+            channel.close();
+        }
+        response.tryFailure(cause);
+    }
+}
@@ -0,0 +1,81 @@
+package org.mockserver.mappers;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.mockserver.model.Cookie;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpCookie;
+import java.util.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettyToMockServerResponseMapper {
+    private static final Set<String> headersToRemove = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        headersToRemove.addAll(Arrays.asList("Content-Encoding", "Content-Length", "Transfer-Encoding"));
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    public HttpResponse mapNettyResponseToMockServerResponse(FullHttpResponse fullHttpResponse) {
+        HttpResponse httpResponse = new HttpResponse();
+        if (fullHttpResponse != null) {
+            setStatusCode(httpResponse, fullHttpResponse);
+            setHeaders(httpResponse, fullHttpResponse);
+            setCookies(httpResponse);
+            setBody(httpResponse, fullHttpResponse);
+        }
+        return httpResponse;
+    }
+
+    private void setStatusCode(HttpResponse httpResponse, FullHttpResponse fullHttpResponse) {
+        httpResponse.withStatusCode(fullHttpResponse.getStatus().code());
+    }
+
+    private void setHeaders(HttpResponse httpResponse, FullHttpResponse fullHttpResponse) {
+        List<Header> headers = new ArrayList<Header>();
+        HttpHeaders httpHeaders = fullHttpResponse.headers();
+        for (String headerName : httpHeaders.names()) {
+            if (!headersToRemove.contains(headerName)) {
+                headers.add(new Header(headerName, httpHeaders.getAll(headerName)));
+            }
+        }
+        httpResponse.withHeaders(headers);
+    }
+
+    private void setCookies(HttpResponse httpResponse) {
+        Map<String, Cookie> mappedCookies = new HashMap<String, Cookie>();
+        for (Header header : httpResponse.getHeaders()) {
+            if (header.getName().equals("Cookie") || header.getName().equals("Set-Cookie")) {
+                for (String cookieHeader : header.getValues()) {
+                    try {
+                        for (HttpCookie httpCookie : HttpCookie.parse(cookieHeader)) {
+                            if (mappedCookies.containsKey(httpCookie.getName())) {
+                                mappedCookies.get(httpCookie.getName()).addValue(httpCookie.getValue());
+                            } else {
+                                mappedCookies.put(httpCookie.getName(), new Cookie(httpCookie.getName(), httpCookie.getValue()));
+                            }
+                        }
+                    } catch (IllegalArgumentException iae) {
+                        logger.warn("Exception while parsing cookie header [" + cookieHeader + "]", iae);
+                    }
+                }
+            }
+        }
+        httpResponse.withCookies(new ArrayList<Cookie>(mappedCookies.values()));
+    }
+
+    private void setBody(HttpResponse httpResponse, FullHttpResponse fullHttpResponse) {
+        ByteBuf content = fullHttpResponse.content();
+        byte[] body = new byte[content.readableBytes()];
+        content.getBytes(content.readerIndex(), body);
+        httpResponse.withBody(body);
+    }
+}
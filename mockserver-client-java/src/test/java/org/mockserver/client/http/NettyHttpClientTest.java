@@ -0,0 +1,286 @@
+package org.mockserver.client.http;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.Cookie;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettyHttpClientTest {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean closeWithoutResponse = new AtomicBoolean();
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private NettyHttpClient nettyHttpClient;
+    private volatile boolean respond;
+    private volatile boolean closeAfterResponse;
+    private volatile io.netty.handler.codec.http.HttpRequest lastRequestHead;
+    private volatile FullHttpRequest lastRequest;
+    private int port;
+
+    @Before
+    public void startServer() throws InterruptedException {
+        respond = true;
+        closeAfterResponse = false;
+        serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+        nettyHttpClient = new NettyHttpClient(clientGroup);
+        Channel serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        connections.incrementAndGet();
+                        ch.pipeline().addLast(new HttpServerCodec(), new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                                if (msg instanceof io.netty.handler.codec.http.HttpRequest) {
+                                    lastRequestHead = (io.netty.handler.codec.http.HttpRequest) msg;
+                                }
+                                super.channelRead(ctx, msg);
+                            }
+                        }, new HttpObjectAggregator(1024 * 1024), new SimpleChannelInboundHandler<FullHttpRequest>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+                                lastRequest = request.copy();
+                                requests.incrementAndGet();
+                                if (closeWithoutResponse.compareAndSet(true, false)) {
+                                    ctx.close();
+                                } else if (respond) {
+                                    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED, Unpooled.copiedBuffer(request.getMethod() + " " + request.getUri() + " " + request.content().toString(CharsetUtil.UTF_8), CharsetUtil.UTF_8));
+                                    response.headers().set("X-Request-Cookie", request.headers().get(HttpHeaders.Names.COOKIE));
+                                    response.headers().add(HttpHeaders.Names.SET_COOKIE, "responseCookie=responseCookieValue");
+                                    response.headers().set(HttpHeaders.Names.CONTENT_LENGTH, response.content().readableBytes());
+                                    ChannelFuture written = ctx.writeAndFlush(response);
+                                    if (closeAfterResponse) {
+                                        written.addListener(ChannelFutureListener.CLOSE);
+                                    }
+                                }
+                            }
+                        });
+                    }
+                })
+                .bind(0).sync().channel();
+        port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @After
+    public void stopServer() {
+        serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    private HttpRequest request(String path) {
+        return new HttpRequest()
+                .withMethod("POST")
+                .withURL("http://localhost:" + port + path + "?queryName=queryValue")
+                .withHeaders(new Header("Host", "localhost:" + port))
+                .withCookies(new Cookie("requestCookie", "requestCookieValue"))
+                .withBody("some_body");
+    }
+
+    @Test
+    public void shouldSendRequestAndMapResponse() throws Exception {
+        // when
+        HttpResponse httpResponse = nettyHttpClient.sendRequest(request("/some_path")).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(httpResponse.getStatusCode(), is(HttpResponseStatus.ACCEPTED.code()));
+        assertThat(new String(httpResponse.getBody(), CharsetUtil.UTF_8), is("POST /some_path?queryName=queryValue some_body"));
+        assertThat(httpResponse.getCookies(), containsInAnyOrder(new Cookie("responseCookie", "responseCookieValue")));
+        assertTrue(httpResponse.getHeaders().contains(new Header("X-Request-Cookie", "requestCookie=requestCookieValue")));
+        for (Header header : httpResponse.getHeaders()) {
+            assertTrue(header.getName(), !header.getName().equalsIgnoreCase(HttpHeaders.Names.CONTENT_LENGTH));
+        }
+    }
+
+    @Test
+    public void shouldReuseKeepAliveConnection() throws Exception {
+        // when
+        nettyHttpClient.sendRequest(request("/first")).get(5, TimeUnit.SECONDS);
+        HttpResponse httpResponse = nettyHttpClient.sendRequest(request("/second")).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(new String(httpResponse.getBody(), CharsetUtil.UTF_8), is("POST /second?queryName=queryValue some_body"));
+        assertThat(connections.get(), is(1));
+        assertThat(nettyHttpClient.idleConnectionCount("http://localhost:" + port), is(1));
+    }
+
+    @Test
+    public void shouldUseNewConnectionWhenPooledConnectionIsClosed() throws Exception {
+        // given
+        closeAfterResponse = true;
+
+        // when
+        nettyHttpClient.sendRequest(request("/first")).get(5, TimeUnit.SECONDS);
+        HttpResponse httpResponse = nettyHttpClient.sendRequest(request("/second")).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(new String(httpResponse.getBody(), CharsetUtil.UTF_8), is("POST /second?queryName=queryValue some_body"));
+        assertThat(connections.get(), is(2));
+    }
+
+    @Test
+    public void shouldResendIdempotentRequestWhenPooledConnectionClosesWithoutResponse() throws Exception {
+        // given
+        nettyHttpClient.sendRequest(request("/first")).get(5, TimeUnit.SECONDS);
+        closeWithoutResponse.set(true);
+
+        // when
+        HttpResponse httpResponse = nettyHttpClient.sendRequest(request("/second").withMethod("PUT")).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(new String(httpResponse.getBody(), CharsetUtil.UTF_8), is("PUT /second?queryName=queryValue some_body"));
+        assertThat(requests.get(), is(3));
+        assertThat(connections.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotResendNonIdempotentRequestWhenPooledConnectionClosesWithoutResponse() throws Exception {
+        // given
+        nettyHttpClient.sendRequest(request("/first")).get(5, TimeUnit.SECONDS);
+        closeWithoutResponse.set(true);
+
+        try {
+            // when
+            nettyHttpClient.sendRequest(request("/second")).get(5, TimeUnit.SECONDS);
+            fail("expected connection closed");
+        } catch (ExecutionException ee) {
+            // then
+            assertTrue(ee.getCause() instanceof IOException);
+            assertThat(requests.get(), is(2));
+            assertThat(connections.get(), is(1));
+        }
+    }
+
+    @Test
+    public void shouldFailWhenResponseIsLargerThanMaxSize() throws Exception {
+        // given
+        int originalMaxSize = SystemProperties.forwardedResponseMaxSize();
+        SystemProperties.forwardedResponseMaxSize(10);
+
+        try {
+            // when
+            nettyHttpClient.sendRequest(request("/some_path")).get(5, TimeUnit.SECONDS);
+            fail("expected response too large");
+        } catch (ExecutionException ee) {
+            // then
+            assertTrue(ee.getCause() instanceof TooLongFrameException);
+            assertThat(requests.get(), is(1));
+        } finally {
+            SystemProperties.forwardedResponseMaxSize(originalMaxSize);
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWhenNoResponseIsReceived() throws Exception {
+        // given
+        respond = false;
+        long originalMaxTimeout = SystemProperties.maxTimeout();
+        SystemProperties.maxTimeout(200);
+
+        try {
+            // when
+            nettyHttpClient.sendRequest(request("/some_path")).get(5, TimeUnit.SECONDS);
+            fail("expected timeout");
+        } catch (ExecutionException ee) {
+            // then
+            assertTrue(ee.getCause() instanceof ReadTimeoutException);
+        } finally {
+            SystemProperties.maxTimeout(originalMaxTimeout);
+        }
+    }
+
+    @Test
+    public void shouldSendBinaryBodyUnchanged() throws Exception {
+        // given
+        byte[] body = new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f};
+
+        // when
+        nettyHttpClient.sendRequest(request("/some_path").withBody(new BinaryBody(body))).get(5, TimeUnit.SECONDS);
+
+        // then
+        byte[] received = new byte[lastRequest.content().readableBytes()];
+        lastRequest.content().getBytes(0, received);
+        assertArrayEquals(body, received);
+        assertThat(HttpHeaders.getContentLength(lastRequestHead), is((long) body.length));
+    }
+
+    @Test
+    public void shouldStreamChunkedBodyWrittenBeforeAndAfterConnecting() throws Exception {
+        // given
+        byte[] firstChunk = new byte[]{0x00, (byte) 0xff, (byte) 0xc3};
+        byte[] secondChunk = new byte[]{0x28, (byte) 0x80, 0x7f};
+
+        // when
+        StreamingRequest streamingRequest = nettyHttpClient.streamRequest(request("/some_path"));
+        streamingRequest.write(new DefaultHttpContent(Unpooled.wrappedBuffer(firstChunk)));
+        final CountDownLatch writable = new CountDownLatch(1);
+        streamingRequest.onWritable(new Runnable() {
+            @Override
+            public void run() {
+                writable.countDown();
+            }
+        });
+        assertTrue(writable.await(5, TimeUnit.SECONDS));
+        streamingRequest.write(new DefaultLastHttpContent(Unpooled.wrappedBuffer(secondChunk)));
+        HttpResponse httpResponse = streamingRequest.response().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(httpResponse.getStatusCode(), is(HttpResponseStatus.ACCEPTED.code()));
+        assertTrue(HttpHeaders.isTransferEncodingChunked(lastRequestHead));
+        byte[] received = new byte[lastRequest.content().readableBytes()];
+        lastRequest.content().getBytes(0, received);
+        assertArrayEquals(new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f}, received);
+        assertThat(nettyHttpClient.idleConnectionCount("http://localhost:" + port), is(1));
+    }
+
+    @Test
+    public void shouldKeepContentLengthOfStreamedBody() throws Exception {
+        // when
+        StreamingRequest streamingRequest = nettyHttpClient.streamRequest(request("/some_path").withHeader(new Header("Content-Length", "9")));
+        streamingRequest.write(new DefaultHttpContent(Unpooled.copiedBuffer("some_", CharsetUtil.UTF_8)));
+        streamingRequest.write(new DefaultLastHttpContent(Unpooled.copiedBuffer("body", CharsetUtil.UTF_8)));
+        HttpResponse httpResponse = streamingRequest.response().get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(new String(httpResponse.getBody(), CharsetUtil.UTF_8), is("POST /some_path?queryName=queryValue some_body"));
+        assertThat(HttpHeaders.getContentLength(lastRequestHead), is(9l));
+        assertTrue(!HttpHeaders.isTransferEncodingChunked(lastRequestHead));
+    }
+}
@@ -0,0 +1,50 @@
+package org.mockserver.mappers;
+
+import com.google.common.base.Charsets;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+import org.mockserver.model.Cookie;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpResponse;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jamesdbloom
+ */
+public class NettyToMockServerResponseMapperTest {
+
+    @Test
+    public void shouldMapNettyResponseToMockServerResponse() {
+        // given
+        DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CREATED, Unpooled.wrappedBuffer("somebody".getBytes(Charsets.UTF_8)));
+        defaultFullHttpResponse.headers().add("headerName1", "headerValue1");
+        defaultFullHttpResponse.headers().add("headerName2", Arrays.asList("headerValue2_1", "headerValue2_2"));
+        defaultFullHttpResponse.headers().add("Set-Cookie", Arrays.asList("cookieName1=cookieValue1", "cookieName2=cookieValue2"));
+        defaultFullHttpResponse.headers().add("content-length", "8");
+        defaultFullHttpResponse.headers().add("Transfer-Encoding", "chunked");
+
+        // when
+        HttpResponse httpResponse = new NettyToMockServerResponseMapper().mapNettyResponseToMockServerResponse(defaultFullHttpResponse);
+
+        // then
+        assertEquals(new Integer(201), httpResponse.getStatusCode());
+        assertEquals("somebody", new String(httpResponse.getBody(), Charsets.UTF_8));
+        assertThat(httpResponse.getHeaders(), containsInAnyOrder(
+                new Header("headerName1", "headerValue1"),
+                new Header("headerName2", "headerValue2_1", "headerValue2_2"),
+                new Header("Set-Cookie", "cookieName1=cookieValue1", "cookieName2=cookieValue2")
+        ));
+        assertThat(httpResponse.getCookies(), containsInAnyOrder(
+                new Cookie("cookieName1", "cookieValue1"),
+                new Cookie("cookieName2", "cookieValue2")
+        ));
+    }
+}
@@ -3,6 +3,7 @@ package org.mockserver.client.serialization.model;
 import org.mockserver.model.Delay;
 import org.mockserver.model.EqualsHashCodeToString;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -12,11 +13,27 @@ public class DelayDTO extends EqualsHashCodeToString {
 
     private TimeUnit timeUnit;
     private long value;
+    private Delay.Distribution distribution;
+    private Long min;
+    private Long max;
+    private Long mean;
+    private Long standardDeviation;
+    private Long median;
+    private Long p99;
+    private Map<Double, Long> percentiles;
 
     public DelayDTO(Delay delay) {
         if (delay != null) {
             timeUnit = delay.getTimeUnit();
             value = delay.getValue();
+            distribution = delay.getDistribution();
+            min = delay.getMin();
+            max = delay.getMax();
+            mean = delay.getMean();
+            standardDeviation = delay.getStandardDeviation();
+            median = delay.getMedian();
+            p99 = delay.getP99();
+            percentiles = delay.getPercentiles();
         }
     }
 
@@ -24,7 +41,23 @@ public class DelayDTO extends EqualsHashCodeToString {
     }
 
     public Delay buildObject() {
-        return new Delay(timeUnit, value);
+        if (distribution == null) {
+            return new Delay(timeUnit, value);
+        }
+        switch (distribution) {
+            case UNIFORM:
+                return Delay.uniform(timeUnit, valueOf(min), valueOf(max));
+            case NORMAL:
+                return Delay.normal(timeUnit, valueOf(mean), valueOf(standardDeviation));
+            case LOG_NORMAL:
+                return Delay.logNormal(timeUnit, valueOf(median), valueOf(p99));
+            default:
+                return Delay.percentiles(timeUnit, percentiles);
+        }
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0;
     }
 
     public TimeUnit getTimeUnit() {
@@ -44,4 +77,76 @@ public class DelayDTO extends EqualsHashCodeToString {
         this.value = value;
         return this;
     }
+
+    public Delay.Distribution getDistribution() {
+        return distribution;
+    }
+
+    public DelayDTO setDistribution(Delay.Distribution distribution) {
+        this.distribution = distribution;
+        return this;
+    }
+
+    public Long getMin() {
+        return min;
+    }
+
+    public DelayDTO setMin(Long min) {
+        this.min = min;
+        return this;
+    }
+
+    public Long getMax() {
+        return max;
+    }
+
+    public DelayDTO setMax(Long max) {
+        this.max = max;
+        return this;
+    }
+
+    public Long getMean() {
+        return mean;
+    }
+
+    public DelayDTO setMean(Long mean) {
+        this.mean = mean;
+        return this;
+    }
+
+    public Long getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public DelayDTO setStandardDeviation(Long standardDeviation) {
+        this.standardDeviation = standardDeviation;
+        return this;
+    }
+
+    public Long getMedian() {
+        return median;
+    }
+
+    public DelayDTO setMedian(Long median) {
+        this.median = median;
+        return this;
+    }
+
+    public Long getP99() {
+        return p99;
+    }
+
+    public DelayDTO setP99(Long p99) {
+        this.p99 = p99;
+        return this;
+    }
+
+    public Map<Double, Long> getPercentiles() {
+        return percentiles;
+    }
+
+    public DelayDTO setPercentiles(Map<Double, Long> percentiles) {
+        this.percentiles = percentiles;
+        return this;
+    }
 }
@@ -20,6 +20,7 @@ public class HttpResponseDTO extends EqualsHashCodeToString {
     private List<CookieDTO> cookies = new ArrayList<CookieDTO>();
     private List<HeaderDTO> headers = new ArrayList<HeaderDTO>();
     private DelayDTO delay;
+    private ThrottleDTO throttle;
 
     public HttpResponseDTO(HttpResponse httpResponse) {
         statusCode = httpResponse.getStatusCode();
@@ -35,6 +36,7 @@ public class HttpResponseDTO extends EqualsHashCodeToString {
             }
         });
         delay = (httpResponse.getDelay() != null ? new DelayDTO(httpResponse.getDelay()) : null);
+        throttle = (httpResponse.getThrottle() != null ? new ThrottleDTO(httpResponse.getThrottle()) : null);
     }
 
     public HttpResponseDTO() {
@@ -54,7 +56,8 @@ public class HttpResponseDTO extends EqualsHashCodeToString {
                         return cookie.buildObject();
                     }
                 }))
-                .withDelay((delay != null ? delay.buildObject() : null));
+                .withDelay((delay != null ? delay.buildObject() : null))
+                .withThrottle((throttle != null ? throttle.buildObject() : null));
     }
 
     public Integer getStatusCode() {
@@ -101,5 +104,13 @@ public class HttpResponseDTO extends EqualsHashCodeToString {
         this.delay = delay;
         return this;
     }
-}
 
+    public ThrottleDTO getThrottle() {
+        return throttle;
+    }
+
+    public HttpResponseDTO setThrottle(ThrottleDTO throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+}
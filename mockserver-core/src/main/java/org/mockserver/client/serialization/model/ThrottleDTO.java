@@ -0,0 +1,59 @@
+package org.mockserver.client.serialization.model;
+
+import org.mockserver.model.EqualsHashCodeToString;
+import org.mockserver.model.Throttle;
+
+/**
+ * @author jamesdbloom
+ */
+public class ThrottleDTO extends EqualsHashCodeToString {
+
+    private long bytesPerSecond;
+    private int chunkSize;
+    private DelayDTO chunkDelay;
+
+    public ThrottleDTO(Throttle throttle) {
+        if (throttle != null) {
+            bytesPerSecond = throttle.getBytesPerSecond();
+            chunkSize = throttle.getChunkSize();
+            chunkDelay = (throttle.getChunkDelay() != null ? new DelayDTO(throttle.getChunkDelay()) : null);
+        }
+    }
+
+    public ThrottleDTO() {
+    }
+
+    public Throttle buildObject() {
+        return new Throttle()
+                .withBytesPerSecond(bytesPerSecond)
+                .withChunkSize(chunkSize)
+                .withChunkDelay((chunkDelay != null ? chunkDelay.buildObject() : null));
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public ThrottleDTO setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public ThrottleDTO setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public DelayDTO getChunkDelay() {
+        return chunkDelay;
+    }
+
+    public ThrottleDTO setChunkDelay(DelayDTO chunkDelay) {
+        this.chunkDelay = chunkDelay;
+        return this;
+    }
+}
@@ -16,6 +16,15 @@ public class SystemProperties {
 
     static final long DEFAULT_MAX_TIMEOUT = 120;
     static final int DEFAULT_BUFFER_SIZE = 1024 * 1500;
+    static final int DEFAULT_REGEX_CACHE_SIZE = 10000;
+    static final int DEFAULT_MATCH_CACHE_SIZE = 10000;
+    static final int DEFAULT_FORWARDED_BODY_LOG_LIMIT = 1024 * 64;
+    static final int DEFAULT_FORWARDED_RESPONSE_MAX_SIZE = 1024 * 1024 * 64;
+    static final int DEFAULT_SSL_SESSION_CACHE_SIZE = 10000;
+    static final int DEFAULT_SSL_SESSION_TIMEOUT = (int) TimeUnit.HOURS.toSeconds(24);
+    static final String DEFAULT_SSL_KEY_ALGORITHM = "RSA";
+    static final int DEFAULT_SSL_KEY_POOL_SIZE = 4;
+    static final int DEFAULT_SSL_CERTIFICATE_CACHE_SIZE = 1000;
     private static final Logger logger = LoggerFactory.getLogger(SystemProperties.class);
 
     // general config
@@ -35,6 +44,100 @@ public class SystemProperties {
         System.setProperty("mockserver.requestBufferSize", "" + size);
     }
 
+    public static int regexCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.regexCacheSize", SystemProperties.DEFAULT_REGEX_CACHE_SIZE);
+    }
+
+    public static void regexCacheSize(int size) {
+        System.setProperty("mockserver.regexCacheSize", "" + size);
+    }
+
+    public static int matchCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.matchCacheSize", SystemProperties.DEFAULT_MATCH_CACHE_SIZE);
+    }
+
+    public static void matchCacheSize(int size) {
+        System.setProperty("mockserver.matchCacheSize", "" + size);
+    }
+
+    /**
+     * @return the number of TLS sessions cached so reconnecting clients can resume them, 0 for no limit
+     */
+    public static int sslSessionCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.sslSessionCacheSize", SystemProperties.DEFAULT_SSL_SESSION_CACHE_SIZE);
+    }
+
+    public static void sslSessionCacheSize(int size) {
+        System.setProperty("mockserver.sslSessionCacheSize", "" + size);
+    }
+
+    /**
+     * @return the number of seconds a cached TLS session can be resumed for, 0 for no limit
+     */
+    public static int sslSessionTimeout() {
+        return SystemProperties.readIntegerProperty("mockserver.sslSessionTimeout", SystemProperties.DEFAULT_SSL_SESSION_TIMEOUT);
+    }
+
+    public static void sslSessionTimeout(int seconds) {
+        System.setProperty("mockserver.sslSessionTimeout", "" + seconds);
+    }
+
+    /**
+     * @return the directory the generated key store is saved in and reused from by later runs, or null to generate it in
+     * the working directory and delete it on exit
+     */
+    public static String sslKeyStoreDirectory() {
+        return System.getProperty("mockserver.sslKeyStoreDirectory");
+    }
+
+    public static void sslKeyStoreDirectory(String directory) {
+        System.setProperty("mockserver.sslKeyStoreDirectory", directory);
+    }
+
+    /**
+     * @return the algorithm of the keys of the certificates minted for each host, either RSA or EC (P-256)
+     */
+    public static String sslKeyAlgorithm() {
+        return System.getProperty("mockserver.sslKeyAlgorithm", SystemProperties.DEFAULT_SSL_KEY_ALGORITHM);
+    }
+
+    public static void sslKeyAlgorithm(String algorithm) {
+        System.setProperty("mockserver.sslKeyAlgorithm", algorithm);
+    }
+
+    /**
+     * @return the number of key pairs generated in the background ready for minting certificates
+     */
+    public static int sslKeyPoolSize() {
+        return SystemProperties.readIntegerProperty("mockserver.sslKeyPoolSize", SystemProperties.DEFAULT_SSL_KEY_POOL_SIZE);
+    }
+
+    public static void sslKeyPoolSize(int size) {
+        System.setProperty("mockserver.sslKeyPoolSize", "" + size);
+    }
+
+    /**
+     * @return the number of hosts whose minted certificate is kept, the least recently used is discarded first
+     */
+    public static int sslCertificateCacheSize() {
+        return SystemProperties.readIntegerProperty("mockserver.sslCertificateCacheSize", SystemProperties.DEFAULT_SSL_CERTIFICATE_CACHE_SIZE);
+    }
+
+    public static void sslCertificateCacheSize(int size) {
+        System.setProperty("mockserver.sslCertificateCacheSize", "" + size);
+    }
+
+    /**
+     * @return the seed for the random number generators response delays are sampled from or null if not seeded
+     */
+    public static Long delaySeed() {
+        return System.getProperty("mockserver.delaySeed") != null ? SystemProperties.readLongProperty("mockserver.delaySeed", 0) : null;
+    }
+
+    public static void delaySeed(long seed) {
+        System.setProperty("mockserver.delaySeed", "" + seed);
+    }
+
     // mockserver config
     public static int serverStopPort(Integer port, Integer securePort) {
         return SystemProperties.readIntegerProperty("mockserver.serverStopPort", Math.max((port != null ? port : 0), (securePort != null ? securePort : 0)) + 1);
@@ -53,6 +156,55 @@ public class SystemProperties {
         System.setProperty("mockserver.proxyStopPort", "" + port);
     }
 
+    /**
+     * When enabled a proxied request body is forwarded as it arrives instead of once the whole body has been received,
+     * request filters then only see the request line and headers and the request log only records what
+     * forwardedBodyLogLimit and forwardedBodyLogHashed keep of the body, so it is disabled by default
+     *
+     * @return true if proxied request bodies are streamed to the server they are forwarded to
+     */
+    public static boolean streamForwardedRequestBody() {
+        return Boolean.parseBoolean(System.getProperty("mockserver.streamForwardedRequestBody", "false"));
+    }
+
+    public static void streamForwardedRequestBody(boolean streamed) {
+        System.setProperty("mockserver.streamForwardedRequestBody", "" + streamed);
+    }
+
+    /**
+     * @return the number of bytes at the start of a streamed request body that are kept for the request log, a request
+     * body that is not streamed (see streamForwardedRequestBody) is always logged in full
+     */
+    public static int forwardedBodyLogLimit() {
+        return SystemProperties.readIntegerProperty("mockserver.forwardedBodyLogLimit", SystemProperties.DEFAULT_FORWARDED_BODY_LOG_LIMIT);
+    }
+
+    public static void forwardedBodyLogLimit(int limit) {
+        System.setProperty("mockserver.forwardedBodyLogLimit", "" + limit);
+    }
+
+    /**
+     * @return true if the request log keeps a SHA-256 hash of a streamed request body instead of its first bytes
+     */
+    public static boolean forwardedBodyLogHashed() {
+        return Boolean.parseBoolean(System.getProperty("mockserver.forwardedBodyLogHashed", "false"));
+    }
+
+    public static void forwardedBodyLogHashed(boolean hashed) {
+        System.setProperty("mockserver.forwardedBodyLogHashed", "" + hashed);
+    }
+
+    /**
+     * @return the largest response body, in bytes, accepted from the server a request is forwarded to
+     */
+    public static int forwardedResponseMaxSize() {
+        return SystemProperties.readIntegerProperty("mockserver.forwardedResponseMaxSize", SystemProperties.DEFAULT_FORWARDED_RESPONSE_MAX_SIZE);
+    }
+
+    public static void forwardedResponseMaxSize(int size) {
+        System.setProperty("mockserver.forwardedResponseMaxSize", "" + size);
+    }
+
     // socks config
     public static int socksPort() {
         return SystemProperties.readIntegerProperty("mockserver.socksPort", -1);
@@ -30,6 +30,11 @@ public class BinaryMatcher extends BodyMatcher<byte[]> implements Matcher<byte[]
         return result;
     }
 
+    @Override
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches(context.getBodyAsBytes());
+    }
+
     @Override
     public String[] fieldsExcludedFromEqualsAndHashCode() {
         return new String[]{"logger"};
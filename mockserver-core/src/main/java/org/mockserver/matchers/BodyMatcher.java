@@ -6,4 +6,13 @@ import org.mockserver.model.EqualsHashCodeToString;
  * @author jamesdbloom
  */
 public abstract class BodyMatcher<T> extends EqualsHashCodeToString implements Matcher<T> {
+
+    /**
+     * Matches the body of the request in the context, by default as a string, matchers that parse the
+     * body override this to use the view the context parses once per request
+     */
+    @SuppressWarnings("unchecked")
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches((T) context.getBodyAsString());
+    }
 }
@@ -0,0 +1,144 @@
+package org.mockserver.matchers;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import org.codehaus.jackson.JsonNode;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.HttpRequest;
+import org.w3c.dom.Document;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The views of a single request that matchers compare against, each view is derived lazily and at most
+ * once so matching a request against many expectations only parses its headers, cookies, query string
+ * and body once
+ *
+ * The context also holds the results of the tests already evaluated against the request, so a test shared
+ * by many expectations is only evaluated once
+ *
+ * A context is created per request and is not thread safe
+ *
+ * @author jamesdbloom
+ */
+public class HttpRequestMatchContext {
+
+    private final HttpRequest httpRequest;
+    private KeyToMultiValueIndex headers;
+    private KeyToMultiValueIndex cookies;
+    private KeyToMultiValueIndex queryStringParameters;
+    private String bodyAsString;
+    private byte[] bodyAsBytes;
+    private KeyToMultiValueIndex bodyAsParameters;
+    private boolean bodyAsJsonParsed = false;
+    private JsonNode bodyAsJson;
+    private boolean bodyAsDocumentParsed = false;
+    private Document bodyAsDocument;
+    private Map<Object, Boolean> results;
+
+    public HttpRequestMatchContext(HttpRequest httpRequest) {
+        this.httpRequest = httpRequest;
+    }
+
+    public HttpRequest getHttpRequest() {
+        return httpRequest;
+    }
+
+    public KeyToMultiValueIndex getHeaders() {
+        if (headers == null) {
+            headers = new KeyToMultiValueIndex(httpRequest.getHeaders());
+        }
+        return headers;
+    }
+
+    public KeyToMultiValueIndex getCookies() {
+        if (cookies == null) {
+            cookies = new KeyToMultiValueIndex(httpRequest.getCookies());
+        }
+        return cookies;
+    }
+
+    public KeyToMultiValueIndex getQueryStringParameters() {
+        if (queryStringParameters == null) {
+            queryStringParameters = new KeyToMultiValueIndex(httpRequest.getQueryStringParameters());
+        }
+        return queryStringParameters;
+    }
+
+    /**
+     * @return the body as a string or an empty string if the request has no body
+     */
+    public String getBodyAsString() {
+        if (bodyAsString == null) {
+            bodyAsString = httpRequest.getBody() != null ? httpRequest.getBody().toString() : "";
+        }
+        return bodyAsString;
+    }
+
+    /**
+     * @return the bytes of a binary body or the UTF-8 bytes of any other body
+     */
+    public byte[] getBodyAsBytes() {
+        if (bodyAsBytes == null) {
+            if (httpRequest.getBody() instanceof BinaryBody) {
+                bodyAsBytes = ((BinaryBody) httpRequest.getBody()).getValue();
+            }
+            if (bodyAsBytes == null) {
+                bodyAsBytes = getBodyAsString().getBytes(Charsets.UTF_8);
+            }
+        }
+        return bodyAsBytes;
+    }
+
+    /**
+     * @return the body parsed as a form encoded parameter string
+     */
+    public KeyToMultiValueIndex getBodyAsParameters() {
+        if (bodyAsParameters == null) {
+            bodyAsParameters = new KeyToMultiValueIndex(ParameterStringMatcher.parseString(getBodyAsString()));
+        }
+        return bodyAsParameters;
+    }
+
+    /**
+     * @return the body parsed as JSON or null if it is not valid JSON
+     */
+    public JsonNode getBodyAsJson() {
+        if (!bodyAsJsonParsed) {
+            bodyAsJson = JsonStringMatcher.parseJson(getBodyAsString());
+            bodyAsJsonParsed = true;
+        }
+        return bodyAsJson;
+    }
+
+    /**
+     * @return the body parsed as an XML document or null if it is not valid XML
+     */
+    public Document getBodyAsDocument() {
+        if (!bodyAsDocumentParsed) {
+            bodyAsDocument = XPathStringMatcher.parseDocument(getBodyAsString());
+            bodyAsDocumentParsed = true;
+        }
+        return bodyAsDocument;
+    }
+
+    /**
+     * @return the result previously stored for the test (compared by identity) or null if there is none
+     */
+    public Boolean getResult(Object test) {
+        return results != null ? results.get(test) : null;
+    }
+
+    public void putResult(Object test, boolean result) {
+        if (results == null) {
+            results = new IdentityHashMap<Object, Boolean>();
+        }
+        results.put(test, result);
+    }
+
+    @VisibleForTesting
+    int resultCount() {
+        return results != null ? results.size() : 0;
+    }
+}
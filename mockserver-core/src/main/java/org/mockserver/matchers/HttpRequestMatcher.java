@@ -1,9 +1,10 @@
 package org.mockserver.matchers;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.mockserver.client.serialization.ObjectMapperFactory;
 import org.mockserver.model.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,6 +12,9 @@ import java.util.List;
  */
 public class HttpRequestMatcher extends EqualsHashCodeToString implements Matcher<HttpRequest> {
 
+    // equal body matchers of different expectations share one instance so their result can be shared per request
+    private static final Interner<BodyMatcher> bodyMatcherInterner = Interners.newWeakInterner();
+
     private HttpRequest httpRequest;
     private RegexStringMatcher methodMatcher = null;
     private RegexStringMatcher urlMatcher = null;
@@ -66,7 +70,12 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
                     this.bodyMatcher = new ParameterStringMatcher(((ParameterBody) body).getParameters());
                     break;
                 case XPATH:
-                    this.bodyMatcher = new XPathStringMatcher(((StringBody) body).getValue());
+                    String xpath = ((StringBody) body).getValue();
+                    if (StreamingXPathMatcher.isSupported(xpath)) {
+                        this.bodyMatcher = new StreamingXPathMatcher(xpath);
+                    } else {
+                        this.bodyMatcher = new XPathStringMatcher(xpath);
+                    }
                     break;
                 case JSON:
                     this.bodyMatcher = new JsonStringMatcher(((StringBody) body).getValue());
@@ -75,6 +84,9 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
                     this.bodyMatcher = new BinaryMatcher(((BinaryBody) body).getValue());
                     break;
             }
+            if (this.bodyMatcher != null) {
+                this.bodyMatcher = bodyMatcherInterner.intern(this.bodyMatcher);
+            }
         }
         return this;
     }
@@ -100,28 +112,40 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
     }
 
     public boolean matches(HttpRequest httpRequest) {
+        return matchesContext(new HttpRequestMatchContext(httpRequest));
+    }
+
+    /**
+     * Fields are compared cheapest first (method and path before headers, cookies and body) and
+     * matching stops at the first field that does not match, the headers, cookies, query string and body
+     * are taken from the context so they are only parsed once however many expectations the request is matched against
+     *
+     * Body matchers, and each header, cookie and query string parameter test, are shared by all expectations with
+     * equal criteria and their results are kept in the context so each distinct test is only evaluated once per request
+     */
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        HttpRequest httpRequest = context.getHttpRequest();
         if (httpRequest != null) {
-            boolean methodMatches = matches(methodMatcher, httpRequest.getMethod());
-            boolean urlMatches = matches(urlMatcher, httpRequest.getURL());
-            boolean pathMatches = matches(pathMatcher, httpRequest.getPath());
-            boolean queryStringParametersMatches = matches(queryStringParameterMatcher, (httpRequest.getQueryStringParameters() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getQueryStringParameters()) : null));
-            boolean bodyMatches = matches(bodyMatcher, (httpRequest.getBody() != null ? httpRequest.getBody().toString() : ""));
-            boolean headersMatch = matches(headerMatcher, (httpRequest.getHeaders() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getHeaders()) : null));
-            boolean cookiesMatch = matches(cookieMatcher, (httpRequest.getCookies() != null ? new ArrayList<KeyToMultiValue>(httpRequest.getCookies()) : null));
-            boolean result = methodMatches && urlMatches && pathMatches && queryStringParametersMatches && bodyMatches && headersMatch && cookiesMatch;
+            boolean result = matches(methodMatcher, httpRequest.getMethod())
+                    && matches(pathMatcher, httpRequest.getPath())
+                    && matches(urlMatcher, httpRequest.getURL())
+                    && matches(queryStringParameterMatcher, context.getQueryStringParameters())
+                    && matches(headerMatcher, context.getHeaders())
+                    && matches(cookieMatcher, context.getCookies())
+                    && matchesBody(bodyMatcher, context);
             if (!result && logger.isDebugEnabled()) {
                 logger.debug("\n\nMatcher:\n\n" +
                         "[" + this + "]\n\n" +
                         "did not match request:\n\n" +
                         "[" + httpRequest + "]\n\n" +
                         "because:\n\n" +
-                        "methodMatches = " + methodMatches + "\n" +
-                        "urlMatches = " + urlMatches + "\n" +
-                        "pathMatches = " + pathMatches + "\n" +
-                        "queryStringParametersMatch = " + queryStringParametersMatches + "\n" +
-                        "bodyMatches = " + bodyMatches + "\n" +
-                        "headersMatch = " + headersMatch + "\n" +
-                        "cookiesMatch = " + cookiesMatch);
+                        "methodMatches = " + matches(methodMatcher, httpRequest.getMethod()) + "\n" +
+                        "urlMatches = " + matches(urlMatcher, httpRequest.getURL()) + "\n" +
+                        "pathMatches = " + matches(pathMatcher, httpRequest.getPath()) + "\n" +
+                        "queryStringParametersMatch = " + matches(queryStringParameterMatcher, context.getQueryStringParameters()) + "\n" +
+                        "bodyMatches = " + matchesBody(bodyMatcher, context) + "\n" +
+                        "headersMatch = " + matches(headerMatcher, context.getHeaders()) + "\n" +
+                        "cookiesMatch = " + matches(cookieMatcher, context.getCookies()));
             }
             return result;
         } else {
@@ -129,6 +153,22 @@ public class HttpRequestMatcher extends EqualsHashCodeToString implements Matche
         }
     }
 
+    private boolean matches(MapMatcher matcher, KeyToMultiValueIndex index) {
+        return matcher == null || matcher.matches(index);
+    }
+
+    private boolean matchesBody(BodyMatcher matcher, HttpRequestMatchContext context) {
+        if (matcher == null) {
+            return true;
+        }
+        Boolean result = context.getResult(matcher);
+        if (result == null) {
+            result = matcher.matchesContext(context);
+            context.putResult(matcher, result);
+        }
+        return result;
+    }
+
     private <T> boolean matches(Matcher<T> matcher, T t) {
         boolean result = false;
 
@@ -1,46 +1,132 @@
 package org.mockserver.matchers;
 
-import org.skyscreamer.jsonassert.JSONCompareMode;
-import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
+ * Matches JSON leniently, the matched JSON can contain fields that are not in the expected JSON and arrays
+ * can be in any order but must be the same length, this is the same as JSONassert's LENIENT mode
+ *
+ * The expected JSON is parsed once when the matcher is created and the comparison is done directly on the
+ * parsed trees, stopping at the first difference
+ *
  * @author jamesdbloom
  */
 public class JsonStringMatcher extends BodyMatcher<String> implements Matcher<String> {
     private static Logger logger = LoggerFactory.getLogger(JsonStringMatcher.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static {
+        // relax parsing, like the org.json parser previously used
+        objectMapper.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+        objectMapper.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
+        objectMapper.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
+    }
+
     private final String matcher;
+    private final JsonNode expected;
 
     public JsonStringMatcher(String matcher) {
         this.matcher = matcher;
+        this.expected = parseJson(matcher);
+    }
+
+    /**
+     * @return the parsed JSON or null if the string is not valid JSON
+     */
+    static JsonNode parseJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            logger.trace("Failed to parse JSON [{}] because {}", json, e.getMessage());
+            return null;
+        }
     }
 
     public boolean matches(String matched) {
+        return matches(matched, parseJson(matched));
+    }
+
+    @Override
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches(context.getBodyAsString(), context.getBodyAsJson());
+    }
+
+    private boolean matches(String matched, JsonNode actual) {
         boolean result = false;
 
-        JSONCompareResult jsonCompareResult = null;
-        try {
-            jsonCompareResult = compareJSON(matcher, matched, JSONCompareMode.LENIENT);
+        if (expected != null && actual != null && matches(expected, actual)) {
+            result = true;
+        }
 
-            if (jsonCompareResult.passed()) {
-                result = true;
-            }
+        if (!result) {
+            logger.trace("Failed to perform JSON match [{}] with [{}]", matched, this.matcher);
+        }
+
+        return result;
+    }
+
+    private static boolean matches(JsonNode expected, JsonNode actual) {
+        if (expected.isObject()) {
+            return actual.isObject() && matchesObject(expected, actual);
+        } else if (expected.isArray()) {
+            return actual.isArray() && matchesArray(expected, actual);
+        } else if (expected.isNumber()) {
+            return actual.isNumber() && expected.getDoubleValue() == actual.getDoubleValue();
+        } else {
+            return expected.equals(actual);
+        }
+    }
 
-            if (!result) {
-                logger.trace("Failed to perform JSON match [{}] with [{}] because {}", matched, this.matcher, jsonCompareResult.getMessage());
+    /**
+     * Every expected field must be present and match, any other fields are ignored
+     */
+    private static boolean matchesObject(JsonNode expected, JsonNode actual) {
+        Iterator<Map.Entry<String, JsonNode>> expectedFields = expected.getFields();
+        while (expectedFields.hasNext()) {
+            Map.Entry<String, JsonNode> expectedField = expectedFields.next();
+            JsonNode actualValue = actual.get(expectedField.getKey());
+            if (actualValue == null || !matches(expectedField.getValue(), actualValue)) {
+                return false;
             }
-        } catch (Exception e) {
-            logger.trace("Failed to perform JSON match [{}] with [{}] because {}", matched, this.matcher, e.getMessage());
         }
+        return true;
+    }
 
-        return result;
+    /**
+     * Each expected element must match a different actual element, in any order
+     */
+    private static boolean matchesArray(JsonNode expected, JsonNode actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        boolean[] used = new boolean[actual.size()];
+        for (JsonNode expectedElement : expected) {
+            boolean found = false;
+            for (int i = 0; i < used.length && !found; i++) {
+                if (!used[i] && matches(expectedElement, actual.get(i))) {
+                    used[i] = true;
+                    found = true;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public String[] fieldsExcludedFromEqualsAndHashCode() {
-        return new String[]{"logger"};
+        return new String[]{"logger", "expected"};
     }
 }
@@ -0,0 +1,111 @@
+package org.mockserver.matchers;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.mockserver.collections.CaseInsensitiveRegexMultiMap;
+import org.mockserver.model.KeyToMultiValue;
+
+import java.util.*;
+
+/**
+ * Request side view of a list of headers, cookies or parameters with values grouped by lower case name,
+ * so a literal name in an expectation is resolved with a single hash lookup
+ *
+ * Names are only indexed if every name is a literal ASCII string, in that case comparing lower case names
+ * is identical to the case insensitive regex comparison in CaseInsensitiveRegexMultiMap, otherwise
+ * the index is not built and matchers must fall back to toMultiMap()
+ *
+ * The index also holds the results of the tests already evaluated against it, so a test shared by many
+ * expectations is only evaluated once per request, it is therefore not thread safe
+ *
+ * @author jamesdbloom
+ */
+public class KeyToMultiValueIndex {
+
+    private final List<? extends KeyToMultiValue> keyToMultiValues;
+    private final Map<String, List<String>> valuesByLowerCaseName;
+    private Map<Object, Boolean> results;
+
+    public KeyToMultiValueIndex(List<? extends KeyToMultiValue> keyToMultiValues) {
+        this.keyToMultiValues = keyToMultiValues != null ? keyToMultiValues : Collections.<KeyToMultiValue>emptyList();
+        this.valuesByLowerCaseName = index(this.keyToMultiValues);
+    }
+
+    private static Map<String, List<String>> index(List<? extends KeyToMultiValue> keyToMultiValues) {
+        Map<String, List<String>> valuesByLowerCaseName = new LinkedHashMap<String, List<String>>();
+        for (KeyToMultiValue keyToMultiValue : keyToMultiValues) {
+            if (!isLiteralAscii(keyToMultiValue.getName())) {
+                return null;
+            }
+            String lowerCaseName = toLowerCase(keyToMultiValue.getName());
+            List<String> values = valuesByLowerCaseName.get(lowerCaseName);
+            if (values == null) {
+                valuesByLowerCaseName.put(lowerCaseName, keyToMultiValue.getValues());
+            } else {
+                List<String> mergedValues = new ArrayList<String>(values);
+                mergedValues.addAll(keyToMultiValue.getValues());
+                valuesByLowerCaseName.put(lowerCaseName, mergedValues);
+            }
+        }
+        return valuesByLowerCaseName;
+    }
+
+    public static boolean isLiteralAscii(String value) {
+        if (!RegexStringMatcher.isLiteral(value)) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String toLowerCase(String value) {
+        return value.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return true if every name is a literal ASCII string and so has been indexed
+     */
+    public boolean isIndexed() {
+        return valuesByLowerCaseName != null;
+    }
+
+    /**
+     * Returns the values of every entry whose name equals the specified lower case name, or null if there are none
+     */
+    public List<String> get(String lowerCaseName) {
+        return valuesByLowerCaseName.get(lowerCaseName);
+    }
+
+    /**
+     * Returns the lower case names and their values in the order the names first appeared
+     */
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        return valuesByLowerCaseName.entrySet();
+    }
+
+    /**
+     * @return the result previously stored for the test (compared by identity) or null if there is none
+     */
+    public Boolean getResult(Object test) {
+        return results != null ? results.get(test) : null;
+    }
+
+    public void putResult(Object test, boolean result) {
+        if (results == null) {
+            results = new IdentityHashMap<Object, Boolean>();
+        }
+        results.put(test, result);
+    }
+
+    @VisibleForTesting
+    int resultCount() {
+        return results != null ? results.size() : 0;
+    }
+
+    public CaseInsensitiveRegexMultiMap toMultiMap() {
+        return KeyToMultiValue.toMultiMap(keyToMultiValues);
+    }
+}
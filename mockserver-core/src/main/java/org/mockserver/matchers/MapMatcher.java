@@ -1,30 +1,162 @@
 package org.mockserver.matchers;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.mockserver.collections.CaseInsensitiveRegexMultiMap;
 import org.mockserver.model.EqualsHashCodeToString;
 import org.mockserver.model.KeyToMultiValue;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Matches if every name in the multi map has a matching name in the matched list and every value for that
+ * name matches one of the matched values, names are matched as case insensitive regex and values as regex
+ *
+ * The multi map is compiled (on first use) into one entry per name, a literal name is resolved with a hash
+ * lookup against a KeyToMultiValueIndex and only regex names are compared against every matched name, equal
+ * entries are shared between matchers and each is evaluated at most once per KeyToMultiValueIndex
+ *
  * @author jamesdbloom
  */
-public class MapMatcher extends EqualsHashCodeToString implements Matcher<List<KeyToMultiValue>> {
+public class MapMatcher extends EqualsHashCodeToString implements Matcher<List<? extends KeyToMultiValue>> {
+    // equal entries of different expectations share one instance so their result can be shared per request
+    private static final Interner<CompiledEntry> compiledEntryInterner = Interners.newWeakInterner();
     private final CaseInsensitiveRegexMultiMap multiMap;
+    private volatile List<CompiledEntry> compiledEntries;
 
     public MapMatcher(CaseInsensitiveRegexMultiMap multiMap) {
         this.multiMap = multiMap;
     }
 
-    public boolean matches(List<KeyToMultiValue> values) {
-        boolean result = false;
+    public boolean matches(List<? extends KeyToMultiValue> values) {
+        return matches(new KeyToMultiValueIndex(values));
+    }
+
+    public boolean matches(KeyToMultiValueIndex index) {
+        boolean result;
 
-        if (KeyToMultiValue.toMultiMap(values).containsAll(multiMap)) {
-            result = true;
+        List<CompiledEntry> compiledEntries = compile();
+        if (compiledEntries != null && index.isIndexed()) {
+            result = matchesIndex(compiledEntries, index);
         } else {
-            logger.trace("Map [{}] is not a subset of [{}]", this.multiMap, KeyToMultiValue.toMultiMap(values));
+            result = index.toMultiMap().containsAll(multiMap);
+        }
+
+        if (!result && logger.isTraceEnabled()) {
+            logger.trace("Map [{}] is not a subset of [{}]", this.multiMap, index.toMultiMap());
         }
 
         return result;
     }
+
+    /**
+     * The result of each entry is kept in the index so an entry shared by many expectations (see compiledEntryInterner)
+     * is only evaluated once per request
+     */
+    private boolean matchesIndex(List<CompiledEntry> compiledEntries, KeyToMultiValueIndex index) {
+        for (CompiledEntry compiledEntry : compiledEntries) {
+            Boolean result = index.getResult(compiledEntry);
+            if (result == null) {
+                result = compiledEntry.matches(index);
+                index.putResult(compiledEntry, result);
+            }
+            if (!result) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the multi map once, returns null if it contains an empty name because an empty name is matched
+     * asymmetrically by CaseInsensitiveRegexMultiMap.containsAll so can only be matched by it
+     */
+    private List<CompiledEntry> compile() {
+        List<CompiledEntry> compiledEntries = this.compiledEntries;
+        if (compiledEntries == null) {
+            compiledEntries = new ArrayList<CompiledEntry>();
+            for (String name : multiMap.keySet()) {
+                if (name == null || name.isEmpty()) {
+                    return null;
+                }
+                compiledEntries.add(compiledEntryInterner.intern(new CompiledEntry(name, multiMap.getAll(name))));
+            }
+            this.compiledEntries = compiledEntries;
+        }
+        return compiledEntries;
+    }
+
+    @Override
+    protected String[] fieldsExcludedFromEqualsAndHashCode() {
+        return new String[]{"logger", "compiledEntries"};
+    }
+
+    private static class CompiledEntry {
+        private final String name;
+        // only set if the name is a literal
+        private final String lowerCaseName;
+        private final List<String> values;
+        private final int hashCode;
+
+        private CompiledEntry(String name, List<String> values) {
+            this.name = name;
+            this.lowerCaseName = KeyToMultiValueIndex.isLiteralAscii(name) ? KeyToMultiValueIndex.toLowerCase(name) : null;
+            this.values = values;
+            this.hashCode = 31 * name.hashCode() + values.hashCode();
+        }
+
+        private boolean matches(KeyToMultiValueIndex index) {
+            List<List<String>> matchedValues;
+            if (lowerCaseName != null) {
+                List<String> values = index.get(lowerCaseName);
+                matchedValues = values != null ? Collections.singletonList(values) : Collections.<List<String>>emptyList();
+            } else {
+                matchedValues = new ArrayList<List<String>>();
+                for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+                    if (RegexStringMatcher.matches(name, entry.getKey(), true)) {
+                        matchedValues.add(entry.getValue());
+                    }
+                }
+            }
+            if (matchedValues.isEmpty()) {
+                return false;
+            }
+            for (String value : values) {
+                if (!containsMatchingValue(matchedValues, value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean containsMatchingValue(List<List<String>> matchedValues, String value) {
+            for (List<String> values : matchedValues) {
+                for (String matchedValue : values) {
+                    if (RegexStringMatcher.matches(matchedValue, value, false)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            } else if (!(other instanceof CompiledEntry)) {
+                return false;
+            }
+            CompiledEntry that = (CompiledEntry) other;
+            return hashCode == that.hashCode && name.equals(that.name) && values.equals(that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -22,9 +22,18 @@ public class ParameterStringMatcher extends BodyMatcher<String> implements Match
     }
 
     public boolean matches(String matched) {
+        return matches(matched, new KeyToMultiValueIndex(parseString(matched)));
+    }
+
+    @Override
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches(context.getBodyAsString(), context.getBodyAsParameters());
+    }
+
+    private boolean matches(String matched, KeyToMultiValueIndex parameters) {
         boolean result = false;
 
-        if (matcher.matches(parseString(matched))) {
+        if (matcher.matches(parameters)) {
             result = true;
         }
 
@@ -35,7 +44,7 @@ public class ParameterStringMatcher extends BodyMatcher<String> implements Match
         return result;
     }
 
-    private List<KeyToMultiValue> parseString(String matched) {
+    static List<KeyToMultiValue> parseString(String matched) {
         Map<String, Parameter> mappedParameters = new HashMap<String, Parameter>();
         Map<String, List<String>> parameters = new QueryStringDecoder("?" + matched).parameters();
         for (String name : parameters.keySet()) {
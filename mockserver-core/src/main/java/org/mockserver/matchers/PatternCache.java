@@ -0,0 +1,63 @@
+package org.mockserver.matchers;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.mockserver.configuration.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded, concurrent cache of compiled regex patterns, strings that are not valid regex are cached
+ * as absent so the PatternSyntaxException is only thrown (and caught) once per string
+ *
+ * @author jamesdbloom
+ */
+public class PatternCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatternCache.class);
+    private static final LoadingCache<String, Optional<Pattern>> caseSensitivePatterns = createCache(0);
+    private static final LoadingCache<String, Optional<Pattern>> caseInsensitivePatterns = createCache(Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    private static LoadingCache<String, Optional<Pattern>> createCache(final int flags) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(SystemProperties.regexCacheSize())
+                .build(new CacheLoader<String, Optional<Pattern>>() {
+                    @Override
+                    public Optional<Pattern> load(String regex) {
+                        try {
+                            return Optional.of(Pattern.compile(regex, flags));
+                        } catch (PatternSyntaxException pse) {
+                            logger.trace("Error while compiling regex [" + regex + "] " + pse.getMessage());
+                            return Optional.absent();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns the compiled pattern for the regex or absent if the regex is not valid
+     *
+     * @param regex      the regex to compile
+     * @param ignoreCase true if the pattern should be compiled with case insensitive matching
+     */
+    public static Optional<Pattern> compile(String regex, boolean ignoreCase) {
+        return (ignoreCase ? caseInsensitivePatterns : caseSensitivePatterns).getUnchecked(regex);
+    }
+
+    /**
+     * Returns true if the regex is valid and matches the entire input
+     *
+     * @param regex      the regex to match with
+     * @param input      the string to match against
+     * @param ignoreCase true if matching should be case insensitive
+     */
+    public static boolean matches(String regex, String input, boolean ignoreCase) {
+        Optional<Pattern> pattern = compile(regex, ignoreCase);
+        return pattern.isPresent() && pattern.get().matcher(input).matches();
+    }
+}
@@ -4,65 +4,85 @@ import com.google.common.base.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.PatternSyntaxException;
-
 /**
  * @author jamesdbloom
  */
 public class RegexStringMatcher extends BodyMatcher<String> implements Matcher<String> {
     private static Logger logger = LoggerFactory.getLogger(RegexStringMatcher.class);
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
     private final String matcher;
 
     public RegexStringMatcher(String matcher) {
         this.matcher = matcher;
     }
 
+    /**
+     * Returns true if the value contains no regex meta characters, in which case matching it as a regex in either
+     * direction is equivalent to a plain equals comparison
+     *
+     * @param value the string to check
+     * @return true if the value is a non-empty string containing no regex meta characters
+     */
+    public static boolean isLiteral(String value) {
+        if (Strings.isNullOrEmpty(value)) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (REGEX_META_CHARACTERS.indexOf(value.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the longest prefix that every string matched (case sensitively) by the regex must start with, this
+     * is the literal characters before the first meta character, less the last of those characters if it is
+     * followed by a quantifier that allows zero occurrences, a regex containing an alternation has no prefix
+     *
+     * @param regex the regex to find the prefix for
+     * @return the literal prefix, an empty string if there is none
+     */
+    public static String literalPrefix(String regex) {
+        if (Strings.isNullOrEmpty(regex) || regex.indexOf('|') != -1) {
+            return "";
+        }
+        int end = 0;
+        while (end < regex.length() && REGEX_META_CHARACTERS.indexOf(regex.charAt(end)) == -1) {
+            end++;
+        }
+        if (end < regex.length() && end > 0 && "?*{".indexOf(regex.charAt(end)) != -1) {
+            end--;
+        }
+        return regex.substring(0, end);
+    }
+
     public static boolean matches(String matcher, String matched, boolean ignoreCase) {
         boolean result = false;
 
         if (Strings.isNullOrEmpty(matcher)) {
             result = true;
         } else if (matched != null) {
-            // match as regex - matcher -> matched
-            try {
-                if (matched.matches(matcher)) {
-                    result = true;
-                }
-            } catch (PatternSyntaxException pse) {
-                logger.trace("Error while matching regex [" + matcher + "] for string [" + matched + "] " + pse.getMessage());
-            }
-            // match as regex - matched -> matcher
-            try {
-                if (matcher.matches(matched)) {
-                    result = true;
-                }
-            } catch (PatternSyntaxException pse) {
-                logger.trace("Error while matching regex [" + matched + "] for string [" + matcher + "] " + pse.getMessage());
-            }
-            // case insensitive comparison is mainly to improve matching in web containers like Tomcat that convert header names to lower case
-            if (ignoreCase) {
-                // match as regex - matcher -> matched
-                try {
-                    if (matched.toLowerCase().matches(matcher.toLowerCase())) {
-                        result = true;
-                    }
-                } catch (PatternSyntaxException pse) {
-                    logger.trace("Error while matching regex [" + matcher.toLowerCase() + "] for string [" + matched.toLowerCase() + "] " + pse.getMessage());
-                }
-                // match as regex - matched -> matcher
-                try {
-                    if (matcher.toLowerCase().matches(matched.toLowerCase())) {
-                        result = true;
-                    }
-                } catch (PatternSyntaxException pse) {
-                    logger.trace("Error while matching regex [" + matched.toLowerCase() + "] for string [" + matcher.toLowerCase() + "] " + pse.getMessage());
-                }
+            // case insensitive comparison is mainly to improve matching in web containers like Tomcat that convert header names to lower case,
+            // a case insensitive match always includes the case sensitive match so only one of the two is evaluated
+            if (matchesRegex(matcher, matched, ignoreCase)) { // match as regex - matcher -> matched
+                result = true;
+            } else if (matchesRegex(matched, matcher, ignoreCase)) { // match as regex - matched -> matcher
+                result = true;
             }
         }
 
         return result;
     }
 
+    private static boolean matchesRegex(String regex, String input, boolean ignoreCase) {
+        if (isLiteral(regex)) {
+            return ignoreCase ? regex.equalsIgnoreCase(input) : regex.equals(input);
+        } else {
+            return PatternCache.matches(regex, input, ignoreCase);
+        }
+    }
+
     public boolean matches(String matched) {
         boolean result = false;
 
@@ -0,0 +1,420 @@
+package org.mockserver.matchers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a streaming friendly subset of XPath over a StAX event stream without building a DOM, reading
+ * stops as soon as a matching element is found, the supported subset is:
+ *
+ * - absolute location paths made of child (/) and descendant (//) steps, e.g. /Envelope/Body//order
+ * - element name tests or *, names in the expression cannot have a namespace prefix and abbreviated steps
+ *   such as . or .. are not supported
+ * - attribute predicates on any step, e.g. [@id] or [@id='1']
+ * - a text predicate on the last step, e.g. [text()='value']
+ *
+ * Use isSupported to check an expression before creating a matcher, any other expression should be
+ * matched by XPathStringMatcher, documents where a prefixed name could match the expression are also
+ * matched by XPathStringMatcher (see checkDecidable)
+ *
+ * As reading stops once an element has matched, a document that is malformed after the matching element
+ * still matches, whereas XPathStringMatcher would fail to parse it
+ *
+ * @author jamesdbloom
+ */
+public class StreamingXPathMatcher extends BodyMatcher<String> implements Matcher<String> {
+    private static Logger logger = LoggerFactory.getLogger(StreamingXPathMatcher.class);
+    private static final int MAX_STEPS = 64;
+    private static final ThreadLocal<XMLInputFactory> xmlInputFactory = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            // same behaviour as the DocumentBuilder used by XPathStringMatcher
+            XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+            xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+            return xmlInputFactory;
+        }
+    };
+    private final String matcher;
+    private final List<Step> steps;
+    private final XPathStringMatcher fallback;
+
+    public StreamingXPathMatcher(String matcher) {
+        this.matcher = matcher;
+        this.steps = parse(matcher);
+        if (steps == null) {
+            throw new IllegalArgumentException("XPath expression [" + matcher + "] is not supported by the streaming matcher");
+        }
+        this.fallback = new XPathStringMatcher(matcher);
+    }
+
+    /**
+     * @return true if the expression is in the subset of XPath that can be evaluated while streaming
+     */
+    public static boolean isSupported(String xpath) {
+        return parse(xpath) != null;
+    }
+
+    public boolean matches(String matched) {
+        return matches(matched, null);
+    }
+
+    @Override
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches(context.getBodyAsString(), context);
+    }
+
+    private boolean matches(String matched, HttpRequestMatchContext context) {
+        boolean result = false;
+
+        if (matcher.equals(matched)) {
+            result = true;
+        } else if (matched != null) {
+            try {
+                result = evaluate(matched);
+            } catch (UndecidableException ue) {
+                logger.trace("Matching xpath [{}] against string [{}] with XPathStringMatcher because of prefixed name [{}]", matcher, matched, ue.getMessage());
+                result = context != null ? fallback.matchesContext(context) : fallback.matches(matched);
+            }
+        }
+
+        if (!result) {
+            logger.trace("Failed to match [{}] with [{}]", matched, this.matcher);
+        }
+
+        return result;
+    }
+
+    private boolean evaluate(String matched) throws UndecidableException {
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.get().createXMLStreamReader(new StringReader(matched));
+            return new Evaluation(steps, reader).run();
+        } catch (XMLStreamException e) {
+            logger.trace("Error while matching xpath [" + matcher + "] against string [" + matched + "] assuming no match - " + e.getMessage());
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.trace("Exception closing XMLStreamReader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the steps of the expression or null if the expression is not in the supported subset
+     */
+    private static List<Step> parse(String xpath) {
+        if (xpath == null) {
+            return null;
+        }
+        List<Step> steps = new ArrayList<Step>();
+        int position = 0;
+        while (position < xpath.length()) {
+            // axis
+            if (!xpath.startsWith("/", position)) {
+                return null;
+            }
+            boolean descendant = xpath.startsWith("//", position);
+            position += descendant ? 2 : 1;
+
+            // name test
+            int nameEnd = xpath.startsWith("*", position) ? position + 1 : endOfName(xpath, position);
+            if (nameEnd == position) {
+                return null;
+            }
+            Step step = new Step(descendant, xpath.substring(position, nameEnd));
+            position = nameEnd;
+
+            // predicates
+            while (xpath.startsWith("[", position)) {
+                position = parsePredicate(xpath, position + 1, step);
+                if (position == -1) {
+                    return null;
+                }
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty() || steps.size() > MAX_STEPS) {
+            return null;
+        }
+        for (int i = 0; i < steps.size() - 1; i++) {
+            if (steps.get(i).text != null) {
+                return null;
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * @return the position after the closing ] or -1 if the predicate is not supported
+     */
+    private static int parsePredicate(String xpath, int position, Step step) {
+        position = skipWhitespace(xpath, position);
+        if (xpath.startsWith("@", position)) {
+            int nameEnd = endOfName(xpath, position + 1);
+            if (nameEnd == position + 1) {
+                return -1;
+            }
+            String attributeName = xpath.substring(position + 1, nameEnd);
+            if (attributeName.equals("xmlns")) {
+                return -1;
+            }
+            position = skipWhitespace(xpath, nameEnd);
+            String attributeValue = null;
+            if (xpath.startsWith("=", position)) {
+                int literalStart = skipWhitespace(xpath, position + 1);
+                int literalEnd = endOfLiteral(xpath, literalStart);
+                if (literalEnd == -1) {
+                    return -1;
+                }
+                attributeValue = xpath.substring(literalStart + 1, literalEnd - 1);
+                position = skipWhitespace(xpath, literalEnd);
+            }
+            step.attributeNames.add(attributeName);
+            step.attributeValues.add(attributeValue);
+        } else if (xpath.startsWith("text()", position) && step.text == null) {
+            position = skipWhitespace(xpath, position + "text()".length());
+            if (!xpath.startsWith("=", position)) {
+                return -1;
+            }
+            int literalStart = skipWhitespace(xpath, position + 1);
+            int literalEnd = endOfLiteral(xpath, literalStart);
+            if (literalEnd == -1) {
+                return -1;
+            }
+            step.text = xpath.substring(literalStart + 1, literalEnd - 1);
+            position = skipWhitespace(xpath, literalEnd);
+        } else {
+            return -1;
+        }
+        return xpath.startsWith("]", position) ? position + 1 : -1;
+    }
+
+    /**
+     * @return the position after the name starting at position, or position if there isn't a name there, names
+     * must start like an XML NCName so abbreviated steps such as . and .. are not taken for element names
+     */
+    private static int endOfName(String xpath, int position) {
+        if (position >= xpath.length() || !(Character.isLetter(xpath.charAt(position)) || xpath.charAt(position) == '_')) {
+            return position;
+        }
+        while (position < xpath.length()) {
+            char character = xpath.charAt(position);
+            if (!(Character.isLetterOrDigit(character) || character == '_' || character == '-' || character == '.')) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static int endOfLiteral(String xpath, int position) {
+        if (position >= xpath.length() || (xpath.charAt(position) != '\'' && xpath.charAt(position) != '"')) {
+            return -1;
+        }
+        int end = xpath.indexOf(xpath.charAt(position), position + 1);
+        return end == -1 ? -1 : end + 1;
+    }
+
+    private static int skipWhitespace(String xpath, int position) {
+        while (position < xpath.length() && Character.isWhitespace(xpath.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    @Override
+    public String[] fieldsExcludedFromEqualsAndHashCode() {
+        return new String[]{"logger", "steps", "fallback"};
+    }
+
+    private static class Step {
+        private final boolean descendant;
+        private final String name;
+        private final List<String> attributeNames = new ArrayList<String>();
+        // null if the predicate only checks the attribute exists
+        private final List<String> attributeValues = new ArrayList<String>();
+        private String text;
+
+        private Step(boolean descendant, String name) {
+            this.descendant = descendant;
+            this.name = name;
+        }
+
+        private boolean matches(XMLStreamReader reader, String elementName) throws UndecidableException {
+            if (!name.equals("*") && !name.equals(elementName)) {
+                checkDecidable(elementName, name);
+                return false;
+            }
+            for (int i = 0; i < attributeNames.size(); i++) {
+                String value = attributeValue(reader, attributeNames.get(i));
+                if (value == null || (attributeValues.get(i) != null && !attributeValues.get(i).equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String attributeValue(XMLStreamReader reader, String name) throws UndecidableException {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attributeName = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+                if (name.equals(attributeName)) {
+                    return reader.getAttributeValue(i);
+                }
+                checkDecidable(attributeName, name);
+            }
+            return null;
+        }
+
+        /**
+         * The document is parsed without namespaces, like XPathStringMatcher, which then compares either the whole
+         * of a prefixed name or only the part after the prefix depending on the shape of the expression, so if the
+         * part after the prefix is the name being tested for the result cannot be decided while streaming
+         */
+        private static void checkDecidable(String documentName, String expressionName) throws UndecidableException {
+            int prefixEnd = documentName.lastIndexOf(':');
+            if (prefixEnd != -1 && expressionName.equals(documentName.substring(prefixEnd + 1))) {
+                throw new UndecidableException(documentName);
+            }
+        }
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix != null && !prefix.isEmpty() ? prefix + ":" + localName : localName;
+    }
+
+    private static class UndecidableException extends Exception {
+        private UndecidableException(String prefixedName) {
+            super(prefixedName);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Tracks, for each open element, which steps it matched (as a bit mask) so each start element is checked
+     * against the steps in constant space per depth
+     */
+    private static class Evaluation {
+        private final List<Step> steps;
+        private final XMLStreamReader reader;
+        private final long lastStep;
+        // steps matched by the element at each depth, depth 0 is the document
+        private long[] matched = new long[16];
+        // steps matched by the element at each depth or any of its ancestors
+        private long[] matchedOrAncestors = new long[16];
+        // true if the element at each depth matched every step but the last step's text predicate
+        private boolean[] awaitingText = new boolean[16];
+        private int depth = 0;
+        private StringBuilder text = null;
+
+        private Evaluation(List<Step> steps, XMLStreamReader reader) {
+            this.steps = steps;
+            this.reader = reader;
+            this.lastStep = 1L << (steps.size() - 1);
+        }
+
+        private boolean run() throws XMLStreamException, UndecidableException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (textMatches() || startElement()) {
+                            return true;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (textMatches()) {
+                            return true;
+                        }
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        // a text node can be reported as several events
+                        if (awaitingText[depth]) {
+                            if (text == null) {
+                                text = new StringBuilder();
+                            }
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        if (textMatches()) {
+                            return true;
+                        }
+                        if (awaitingText[depth] && steps.get(steps.size() - 1).text.equals(reader.getText())) {
+                            return true;
+                        }
+                        break;
+                    default:
+                        if (textMatches()) {
+                            return true;
+                        }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Ends the current text node, if any, and checks it against the last step's text predicate
+         */
+        private boolean textMatches() {
+            if (text != null) {
+                boolean result = steps.get(steps.size() - 1).text.equals(text.toString());
+                text = null;
+                return result;
+            }
+            return false;
+        }
+
+        private boolean startElement() throws UndecidableException {
+            depth++;
+            if (depth == matched.length) {
+                matched = Arrays.copyOf(matched, depth * 2);
+                matchedOrAncestors = Arrays.copyOf(matchedOrAncestors, depth * 2);
+                awaitingText = Arrays.copyOf(awaitingText, depth * 2);
+            }
+            String elementName = qualifiedName(reader.getPrefix(), reader.getLocalName());
+            long matchedSteps = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                boolean previousStepMatched;
+                if (i == 0) {
+                    previousStepMatched = step.descendant || depth == 1;
+                } else {
+                    long previousStep = 1L << (i - 1);
+                    previousStepMatched = ((step.descendant ? matchedOrAncestors[depth - 1] : matched[depth - 1]) & previousStep) != 0;
+                }
+                if (previousStepMatched && step.matches(reader, elementName)) {
+                    matchedSteps |= 1L << i;
+                }
+            }
+            matched[depth] = matchedSteps;
+            matchedOrAncestors[depth] = matchedOrAncestors[depth - 1] | matchedSteps;
+            awaitingText[depth] = false;
+            if ((matchedSteps & lastStep) != 0) {
+                if (steps.get(steps.size() - 1).text == null) {
+                    return true;
+                }
+                awaitingText[depth] = true;
+            }
+            return false;
+        }
+    }
+}
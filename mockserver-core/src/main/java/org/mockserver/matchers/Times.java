@@ -1,18 +1,23 @@
 package org.mockserver.matchers;
 
+import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.mockserver.model.EqualsHashCodeToString;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
+ * The number of times an expectation can be used, the remaining count is held in a single atomic value
+ * (UNLIMITED or the number of remaining times) so uses can be claimed concurrently without locking
+ *
  * @author jamesdbloom
  */
 public class Times extends EqualsHashCodeToString {
 
-    private int remainingTimes;
-    private boolean unlimited;
+    private static final int UNLIMITED = -1;
+    private final AtomicInteger remainingTimes;
 
     private Times(int remainingTimes, boolean unlimited) {
-        this.remainingTimes = remainingTimes;
-        this.unlimited = unlimited;
+        this.remainingTimes = new AtomicInteger(unlimited ? UNLIMITED : Math.max(remainingTimes, 0));
     }
 
     public static Times unlimited() {
@@ -28,15 +33,16 @@ public class Times extends EqualsHashCodeToString {
     }
 
     public int getRemainingTimes() {
-        return remainingTimes;
+        return Math.max(remainingTimes.get(), 0);
     }
 
     public boolean isUnlimited() {
-        return unlimited;
+        return remainingTimes.get() == UNLIMITED;
     }
 
     public boolean greaterThenZero() {
-        if (unlimited || remainingTimes > 0) {
+        int remaining = remainingTimes.get();
+        if (remaining == UNLIMITED || remaining > 0) {
             return true;
         } else {
             logger.trace("Remaining count is 0");
@@ -44,18 +50,50 @@ public class Times extends EqualsHashCodeToString {
         }
     }
 
-    public Times decrement() {
-        if (!unlimited) {
-            remainingTimes--;
+    /**
+     * Atomically uses one of the remaining times
+     *
+     * @return true if unlimited or a remaining time was used, false if no times were remaining
+     */
+    public boolean claim() {
+        while (true) {
+            int remaining = remainingTimes.get();
+            if (remaining == UNLIMITED) {
+                return true;
+            } else if (remaining <= 0) {
+                logger.trace("Remaining count is 0");
+                return false;
+            } else if (remainingTimes.compareAndSet(remaining, remaining - 1)) {
+                return true;
+            }
         }
+    }
+
+    public Times decrement() {
+        claim();
         return this;
     }
 
     public Times setNotUnlimitedResponses() {
-        if (unlimited) {
-            remainingTimes = 1;
-            unlimited = false;
-        }
+        remainingTimes.compareAndSet(UNLIMITED, 1);
         return this;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Times && ((Times) other).remainingTimes.get() == remainingTimes.get();
+    }
+
+    @Override
+    public int hashCode() {
+        return remainingTimes.get();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("remainingTimes", getRemainingTimes())
+                .append("unlimited", isUnlimited())
+                .toString();
+    }
 }
@@ -3,6 +3,7 @@ package org.mockserver.matchers;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -10,6 +11,8 @@ import org.xml.sax.SAXParseException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -17,53 +20,113 @@ import javax.xml.xpath.XPathFactory;
 import java.io.StringReader;
 
 /**
+ * XPathFactory, XPathExpression, DocumentBuilderFactory and DocumentBuilder are not thread safe so each thread
+ * uses its own, created on first use and then reused for every match on that thread
+ *
  * @author jamesdbloom
  */
 public class XPathStringMatcher extends BodyMatcher<String> implements Matcher<String> {
     private static Logger logger = LoggerFactory.getLogger(XPathStringMatcher.class);
+    private static final ThreadLocal<XPath> xpath = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            return XPathFactory.newInstance().newXPath();
+        }
+    };
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            } catch (ParserConfigurationException pce) {
+                throw new RuntimeException("Exception creating DocumentBuilder", pce);
+            }
+        }
+    };
     private final String matcher;
-    private XPathExpression xpathExpression = null;
+    private ThreadLocal<XPathExpression> xpathExpression = null;
 
-    public XPathStringMatcher(String matcher) {
+    public XPathStringMatcher(final String matcher) {
         this.matcher = matcher;
         if (StringUtils.isNotEmpty(matcher)) {
             try {
-                xpathExpression = XPathFactory.newInstance().newXPath().compile(matcher);
+                // compile once to check the matcher is valid xpath
+                xpath.get().compile(matcher);
+                xpathExpression = new ThreadLocal<XPathExpression>() {
+                    @Override
+                    protected XPathExpression initialValue() {
+                        try {
+                            return xpath.get().compile(matcher);
+                        } catch (XPathExpressionException e) {
+                            throw new RuntimeException("Exception compiling xpath expression for [" + matcher + "]", e);
+                        }
+                    }
+                };
             } catch (XPathExpressionException e) {
                 logger.trace("Error while creating xpath expression for [" + matcher + "] assuming matcher not xpath - " + e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * @return the parsed document or null if the string is not valid XML
+     */
+    static Document parseDocument(final String matched) {
+        if (matched == null) {
+            return null;
+        }
+        try {
+            DocumentBuilder documentBuilder = XPathStringMatcher.documentBuilder.get();
+            documentBuilder.reset();
+            documentBuilder.setErrorHandler(new ErrorHandler() {
+                @Override
+                public void warning(SAXParseException exception) throws SAXException {
+                    logger.debug("SAXParseException while parsing [" + matched + "]", exception);
+                }
+
+                @Override
+                public void error(SAXParseException exception) throws SAXException {
+                    logger.debug("SAXParseException while parsing [" + matched + "]", exception);
+                }
+
+                @Override
+                public void fatalError(SAXParseException exception) throws SAXException {
+                    logger.debug("SAXParseException while parsing [" + matched + "]", exception);
+                }
+            });
+            return documentBuilder.parse(new InputSource(new StringReader(matched)));
+        } catch (Exception e) {
+            logger.trace("Error while parsing [" + matched + "] as XML - " + e.getMessage());
+            return null;
+        }
+    }
+
     public boolean matches(final String matched) {
+        return matches(matched, null);
+    }
+
+    @Override
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        return matches(context.getBodyAsString(), context);
+    }
+
+    /**
+     * The document is only parsed, from the context if there is one, once the cheaper checks have not matched
+     */
+    private boolean matches(final String matched, HttpRequestMatchContext context) {
         if (xpathExpression == null) {
             logger.warn("Attempting match against null XPath Expression for [" + matched + "]" + new RuntimeException("Attempting match against null XPath Expression for [" + matched + "]"));
         } else if (matcher.equals(matched)) {
             return true;
         } else if (matched != null) {
             // match as xpath - matcher -> matched
-            try {
-                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-                documentBuilder.setErrorHandler(new ErrorHandler() {
-                    @Override
-                    public void warning(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
-
-                    @Override
-                    public void error(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
-
-                    @Override
-                    public void fatalError(SAXParseException exception) throws SAXException {
-                        logger.debug("SAXParseException while performing match between [" + matcher + "] and [" + matched + "]", exception);
-                    }
-                });
-                return (Boolean) xpathExpression.evaluate(documentBuilder.parse(new InputSource(new StringReader(matched))), XPathConstants.BOOLEAN);
-            } catch (Exception e) {
-                logger.trace("Error while matching xpath [" + matcher + "] against string [" + matched + "] assuming no match - " + e.getMessage());
+            Document document = context != null ? context.getBodyAsDocument() : parseDocument(matched);
+            if (document != null) {
+                try {
+                    return (Boolean) xpathExpression.get().evaluate(document, XPathConstants.BOOLEAN);
+                } catch (Exception e) {
+                    logger.trace("Error while matching xpath [" + matcher + "] against string [" + matched + "] assuming no match - " + e.getMessage());
+                }
             }
         }
 
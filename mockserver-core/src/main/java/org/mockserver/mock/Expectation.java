@@ -1,5 +1,6 @@
 package org.mockserver.mock;
 
+import org.mockserver.matchers.HttpRequestMatchContext;
 import org.mockserver.matchers.HttpRequestMatcher;
 import org.mockserver.matchers.MatcherBuilder;
 import org.mockserver.matchers.Times;
@@ -13,8 +14,8 @@ public class Expectation extends EqualsHashCodeToString {
     private final HttpRequest httpRequest;
     private final Times times;
     private final HttpRequestMatcher httpRequestMatcher;
-    private HttpResponse httpResponse;
-    private HttpForward httpForward;
+    private volatile HttpResponse httpResponse;
+    private volatile HttpForward httpForward;
 
     public Expectation(HttpRequest httpRequest, Times times) {
         this.httpRequest = httpRequest;
@@ -71,14 +72,20 @@ public class Expectation extends EqualsHashCodeToString {
     }
 
     public boolean matches(HttpRequest httpRequest) {
+        return matchesContext(new HttpRequestMatchContext(httpRequest));
+    }
+
+    public boolean matchesContext(HttpRequestMatchContext context) {
+        HttpRequest httpRequest = context.getHttpRequest();
         logger.trace("\nMatching expectation: \n{} \nwith incoming http: \n{}\n", this.httpRequest, httpRequest);
         boolean matches =
                 (times == null || times.greaterThenZero()) &&
                         (
-                                (httpRequest == null && this.httpRequest == null) || this.httpRequestMatcher.matches(httpRequest)
+                                (httpRequest == null && this.httpRequest == null) || this.httpRequestMatcher.matchesContext(context)
                         );
         if (matches && times != null) {
-            times.decrement();
+            // another request may have used the last remaining time since it was checked above
+            matches = times.claim();
         }
         return matches;
     }
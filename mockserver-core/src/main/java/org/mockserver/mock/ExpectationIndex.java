@@ -0,0 +1,298 @@
+package org.mockserver.mock;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.mockserver.matchers.RegexStringMatcher;
+import org.mockserver.model.HttpRequest;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Index of expectations keyed on literal (non-regex) method and path so that an incoming request is only
+ * compared against the expectations that could possibly match it, expectations with a regex path are kept in
+ * a trie keyed on the literal prefix of the regex so only those whose prefix starts the request path are
+ * checked, expectations with an empty path or a regex path without a literal prefix are kept in an ordered
+ * fallback list that is always checked
+ *
+ * Candidates are always returned in the order the expectations were added so first-match-wins semantics
+ * are identical to a linear scan over all expectations
+ *
+ * Readers never lock, each bucket is a copy-on-write array so a reader iterates an immutable snapshot,
+ * writers are serialised and clear() publishes a new empty version atomically
+ *
+ * Used up expectations are unlinked by a background thread (see removeLater) so the request thread never
+ * waits for the writer lock, until then they are skipped by every view except candidates, where
+ * Expectation.matches rejects them
+ *
+ * @author jamesdbloom
+ */
+class ExpectationIndex {
+
+    private static final String ANY_METHOD = "";
+    private static final Comparator<IndexedExpectation> INSERTION_ORDER = new Comparator<IndexedExpectation>() {
+        public int compare(IndexedExpectation first, IndexedExpectation second) {
+            return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+        }
+    };
+    private static final Function<IndexedExpectation, Expectation> TO_EXPECTATION = new Function<IndexedExpectation, Expectation>() {
+        public Expectation apply(IndexedExpectation indexedExpectation) {
+            return indexedExpectation.expectation;
+        }
+    };
+    private static final Predicate<Expectation> NOT_USED_UP = new Predicate<Expectation>() {
+        public boolean apply(Expectation expectation) {
+            return expectation.getTimes() == null || expectation.getTimes().greaterThenZero();
+        }
+    };
+    private static final Executor unlinkExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MockServer-unlink-%d").build());
+    private final AtomicReference<Version> version = new AtomicReference<Version>(new Version());
+    private final Queue<Expectation> usedUp = new ConcurrentLinkedQueue<Expectation>();
+    private final AtomicBoolean unlinkScheduled = new AtomicBoolean(false);
+    private final Runnable unlinkUsedUp = new Runnable() {
+        public void run() {
+            unlinkScheduled.set(false);
+            Expectation expectation;
+            while ((expectation = usedUp.poll()) != null) {
+                remove(expectation);
+            }
+        }
+    };
+    private long nextSequence = 0;
+
+    public synchronized void add(Expectation expectation) {
+        Version version = this.version.get();
+        IndexedExpectation indexedExpectation = new IndexedExpectation(nextSequence++, expectation, indexKey(expectation.getHttpRequest()), pathPrefix(expectation.getHttpRequest()));
+        if (indexedExpectation.key != null) {
+            CopyOnWriteArrayList<IndexedExpectation> bucket = version.literalPathIndex.get(indexedExpectation.key);
+            if (bucket == null) {
+                bucket = new CopyOnWriteArrayList<IndexedExpectation>();
+                version.literalPathIndex.put(indexedExpectation.key, bucket);
+            }
+            bucket.add(indexedExpectation);
+            CopyOnWriteArrayList<IndexedExpectation> pathBucket = version.literalPaths.get(indexedExpectation.literalPath);
+            if (pathBucket == null) {
+                pathBucket = new CopyOnWriteArrayList<IndexedExpectation>();
+                version.literalPaths.put(indexedExpectation.literalPath, pathBucket);
+            }
+            pathBucket.add(indexedExpectation);
+        } else if (indexedExpectation.pathPrefix != null) {
+            version.regexPathIndex.add(indexedExpectation.pathPrefix, indexedExpectation);
+        } else {
+            version.fallback.add(indexedExpectation);
+        }
+        version.all.put(indexedExpectation.sequence, indexedExpectation);
+        version.entries.put(expectation, indexedExpectation);
+    }
+
+    public synchronized boolean remove(Expectation expectation) {
+        Version version = this.version.get();
+        IndexedExpectation indexedExpectation = version.entries.remove(expectation);
+        if (indexedExpectation != null) {
+            if (indexedExpectation.key != null) {
+                CopyOnWriteArrayList<IndexedExpectation> bucket = version.literalPathIndex.get(indexedExpectation.key);
+                bucket.remove(indexedExpectation);
+                if (bucket.isEmpty()) {
+                    version.literalPathIndex.remove(indexedExpectation.key);
+                }
+                CopyOnWriteArrayList<IndexedExpectation> pathBucket = version.literalPaths.get(indexedExpectation.literalPath);
+                pathBucket.remove(indexedExpectation);
+                if (pathBucket.isEmpty()) {
+                    version.literalPaths.remove(indexedExpectation.literalPath);
+                }
+            } else if (indexedExpectation.pathPrefix != null) {
+                version.regexPathIndex.remove(indexedExpectation.pathPrefix, indexedExpectation);
+            } else {
+                version.fallback.remove(indexedExpectation);
+            }
+            version.all.remove(indexedExpectation.sequence);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Queues the expectation to be removed by a background thread, at most one removal task is scheduled at a time
+     */
+    public void removeLater(Expectation expectation) {
+        usedUp.add(expectation);
+        if (unlinkScheduled.compareAndSet(false, true)) {
+            unlinkExecutor.execute(unlinkUsedUp);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isLinked(Expectation expectation) {
+        return version.get().entries.containsKey(expectation);
+    }
+
+    public synchronized void clear() {
+        version.set(new Version());
+    }
+
+    public int size() {
+        return expectations().size();
+    }
+
+    public List<Expectation> expectations() {
+        return new ArrayList<Expectation>(Collections2.filter(Collections2.transform(version.get().all.values(), TO_EXPECTATION), NOT_USED_UP));
+    }
+
+    /**
+     * Returns, in insertion order, the expectations indexed under the same key as the request, this is always a
+     * superset of the expectations whose request is equal to the specified request
+     */
+    public List<Expectation> sharingIndexKey(HttpRequest httpRequest) {
+        Version version = this.version.get();
+        String key = indexKey(httpRequest);
+        String pathPrefix = pathPrefix(httpRequest);
+        List<IndexedExpectation> bucket;
+        if (key != null) {
+            bucket = version.literalPathIndex.get(key);
+        } else if (pathPrefix != null) {
+            bucket = version.regexPathIndex.get(pathPrefix);
+        } else {
+            bucket = version.fallback;
+        }
+        List<Expectation> expectations = new ArrayList<Expectation>();
+        if (bucket != null) {
+            expectations.addAll(Collections2.filter(Collections2.transform(bucket, TO_EXPECTATION), NOT_USED_UP));
+        }
+        return expectations;
+    }
+
+    public Expectation[] toArray() {
+        List<Expectation> expectations = expectations();
+        return expectations.toArray(new Expectation[expectations.size()]);
+    }
+
+    /**
+     * Returns, in insertion order, every expectation that could match the request, if the request method or path
+     * is not a literal value (i.e. could itself be interpreted as a regex) all expectations are returned
+     *
+     * A request path whose only meta character is '.' (e.g. /index.html or /api/v1.2/accounts) can, as a regex, only
+     * match literal expectation paths of the same length that start with the literal prefix of the request path, so
+     * only those literal expectations and the regex expectations that could match it are returned
+     *
+     * The candidates are merged lazily from snapshots of the relevant buckets so no lock is taken and no
+     * list of expectations is copied
+     */
+    public Iterable<Expectation> candidates(HttpRequest httpRequest) {
+        Version version = this.version.get();
+        if (httpRequest == null || httpRequest.getMethod() == null || !isIndexedPath(httpRequest.getPath())) {
+            return Iterables.transform(version.all.values(), TO_EXPECTATION);
+        }
+        String method = httpRequest.getMethod();
+        if (!method.isEmpty() && !RegexStringMatcher.isLiteral(method)) {
+            return Iterables.transform(version.all.values(), TO_EXPECTATION);
+        }
+        final List<List<IndexedExpectation>> sortedLists = new ArrayList<List<IndexedExpectation>>(4);
+        String path = httpRequest.getPath();
+        if (RegexStringMatcher.isLiteral(path)) {
+            if (!method.isEmpty()) {
+                addIfNotNull(sortedLists, version.literalPathIndex.get(key(method, path)));
+            }
+            addIfNotNull(sortedLists, version.literalPathIndex.get(key(ANY_METHOD, path)));
+        } else {
+            // each '.' matches exactly one code point so the dotted path can only match literal paths of the same length
+            String prefix = RegexStringMatcher.literalPrefix(path);
+            int length = path.codePointCount(0, path.length());
+            for (Map.Entry<String, CopyOnWriteArrayList<IndexedExpectation>> literalPath : version.literalPaths.tailMap(prefix, true).entrySet()) {
+                if (!literalPath.getKey().startsWith(prefix)) {
+                    break;
+                }
+                if (literalPath.getKey().codePointCount(0, literalPath.getKey().length()) == length) {
+                    sortedLists.add(literalPath.getValue());
+                }
+            }
+        }
+        version.regexPathIndex.collectPrefixesOf(httpRequest.getPath(), sortedLists);
+        sortedLists.add(version.fallback);
+        return new Iterable<Expectation>() {
+            public Iterator<Expectation> iterator() {
+                List<Iterator<IndexedExpectation>> iterators = new ArrayList<Iterator<IndexedExpectation>>(sortedLists.size());
+                for (List<IndexedExpectation> sortedList : sortedLists) {
+                    iterators.add(sortedList.iterator());
+                }
+                return Iterators.transform(Iterators.mergeSorted(iterators, INSERTION_ORDER), TO_EXPECTATION);
+            }
+        };
+    }
+
+    private static boolean isIndexedPath(String path) {
+        return RegexStringMatcher.isLiteral(path) || (path != null && path.indexOf('.') != -1 && RegexStringMatcher.isLiteral(path.replace(".", "")));
+    }
+
+    private void addIfNotNull(List<List<IndexedExpectation>> sortedLists, List<IndexedExpectation> sortedList) {
+        if (sortedList != null) {
+            sortedLists.add(sortedList);
+        }
+    }
+
+    /**
+     * Expectations whose path is a literal can only be matched by a request with exactly that path,
+     * expectations with a literal method are additionally keyed on method, any other method (empty or regex)
+     * is indexed under ANY_METHOD and left for the full matcher to check
+     */
+    private String indexKey(HttpRequest httpRequest) {
+        if (httpRequest == null || !RegexStringMatcher.isLiteral(httpRequest.getPath())) {
+            return null;
+        }
+        return key(RegexStringMatcher.isLiteral(httpRequest.getMethod()) ? httpRequest.getMethod() : ANY_METHOD, httpRequest.getPath());
+    }
+
+    /**
+     * A literal request path can only be matched by a regex path as a regex (see RegexStringMatcher.matches)
+     * so only by a regex whose literal prefix starts the request path
+     */
+    private String pathPrefix(HttpRequest httpRequest) {
+        if (httpRequest == null || httpRequest.getPath() == null || RegexStringMatcher.isLiteral(httpRequest.getPath())) {
+            return null;
+        }
+        String prefix = RegexStringMatcher.literalPrefix(httpRequest.getPath());
+        return prefix.isEmpty() ? null : prefix;
+    }
+
+    private String key(String method, String path) {
+        return method + " " + path;
+    }
+
+    @Override
+    public String toString() {
+        return expectations().toString();
+    }
+
+    private static class Version {
+        private final ConcurrentMap<String, CopyOnWriteArrayList<IndexedExpectation>> literalPathIndex = new ConcurrentHashMap<String, CopyOnWriteArrayList<IndexedExpectation>>();
+        // literal expectations keyed on path alone, in path order, so those a dotted request path could match are found by prefix
+        private final ConcurrentSkipListMap<String, CopyOnWriteArrayList<IndexedExpectation>> literalPaths = new ConcurrentSkipListMap<String, CopyOnWriteArrayList<IndexedExpectation>>();
+        private final PrefixTrie<IndexedExpectation> regexPathIndex = new PrefixTrie<IndexedExpectation>();
+        private final CopyOnWriteArrayList<IndexedExpectation> fallback = new CopyOnWriteArrayList<IndexedExpectation>();
+        private final ConcurrentSkipListMap<Long, IndexedExpectation> all = new ConcurrentSkipListMap<Long, IndexedExpectation>();
+        // only accessed by writers
+        private final Map<Expectation, IndexedExpectation> entries = new IdentityHashMap<Expectation, IndexedExpectation>();
+    }
+
+    private static class IndexedExpectation {
+        private final long sequence;
+        private final Expectation expectation;
+        private final String key;
+        private final String literalPath;
+        private final String pathPrefix;
+
+        private IndexedExpectation(long sequence, Expectation expectation, String key, String pathPrefix) {
+            this.sequence = sequence;
+            this.expectation = expectation;
+            this.key = key;
+            this.literalPath = (key != null ? expectation.getHttpRequest().getPath() : null);
+            this.pathPrefix = pathPrefix;
+        }
+    }
+}
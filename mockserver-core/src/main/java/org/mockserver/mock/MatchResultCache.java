@@ -0,0 +1,179 @@
+package org.mockserver.mock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.matchers.HttpRequestMatchContext;
+import org.mockserver.matchers.KeyToMultiValueIndex;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.KeyToMultiValue;
+
+import java.util.*;
+
+/**
+ * Bounded cache from a request fingerprint to the unlimited expectation that request matched first
+ *
+ * The fingerprint is the method, url, path, query string, cookies, a hash of the body and the values of the
+ * headers that any expectation matches on, so requests with the same fingerprint match the same expectations
+ *
+ * Every change to the expectations starts a new epoch, results are stored with the epoch that was current
+ * when matching started and are only returned in that epoch, so results can never outlive the expectations
+ * they were matched against
+ *
+ * Expectations with a limited number of times must never be cached as each match has to use up one of its times
+ *
+ * @author jamesdbloom
+ */
+class MatchResultCache {
+
+    private final Cache<List<Object>, Result> results;
+    private volatile Epoch epoch = new Epoch(0, ImmutableSet.<String>of(), false);
+
+    MatchResultCache() {
+        this(SystemProperties.matchCacheSize());
+    }
+
+    MatchResultCache(int maximumSize) {
+        this.results = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Returns the current epoch, which must be read before matching starts
+     */
+    public Epoch epoch() {
+        return epoch;
+    }
+
+    /**
+     * Starts a new epoch after an expectation has been added, externally synchronised with the other changes
+     */
+    public void added(Expectation expectation) {
+        Set<String> headerNames = epoch.headerNames;
+        boolean allHeaders = epoch.allHeaders;
+        HttpRequest httpRequest = expectation.getHttpRequest();
+        if (httpRequest != null && !allHeaders) {
+            for (Header header : httpRequest.getHeaders()) {
+                if (!KeyToMultiValueIndex.isLiteralAscii(header.getName())) {
+                    allHeaders = true;
+                } else if (!headerNames.contains(KeyToMultiValueIndex.toLowerCase(header.getName()))) {
+                    headerNames = ImmutableSet.<String>builder().addAll(headerNames).add(KeyToMultiValueIndex.toLowerCase(header.getName())).build();
+                }
+            }
+        }
+        epoch = new Epoch(epoch.number + 1, headerNames, allHeaders);
+    }
+
+    /**
+     * Starts a new epoch after expectations have been removed, externally synchronised with the other changes
+     */
+    public void removed() {
+        epoch = new Epoch(epoch.number + 1, epoch.headerNames, epoch.allHeaders);
+    }
+
+    /**
+     * Starts a new epoch with no header names after all expectations have been removed
+     */
+    public void reset() {
+        epoch = new Epoch(epoch.number + 1, ImmutableSet.<String>of(), false);
+        results.invalidateAll();
+    }
+
+    public class Epoch {
+
+        private final long number;
+        private final Set<String> headerNames;
+        private final boolean allHeaders;
+
+        private Epoch(long number, Set<String> headerNames, boolean allHeaders) {
+            this.number = number;
+            this.headerNames = headerNames;
+            this.allHeaders = allHeaders;
+        }
+
+        /**
+         * @return the unlimited expectation stored in this epoch for a request with the same fingerprint or null
+         */
+        public Expectation get(HttpRequestMatchContext context) {
+            Result result = results.getIfPresent(fingerprint(context));
+            if (result != null && result.epoch == number && isCacheable(result.expectation)) {
+                return result.expectation;
+            }
+            return null;
+        }
+
+        /**
+         * Stores the expectation the request matched, ignored unless the expectation is unlimited
+         */
+        public void put(HttpRequestMatchContext context, Expectation expectation) {
+            if (isCacheable(expectation)) {
+                results.put(fingerprint(context), new Result(number, expectation));
+            }
+        }
+
+        private List<Object> fingerprint(HttpRequestMatchContext context) {
+            HttpRequest httpRequest = context.getHttpRequest();
+            KeyToMultiValueIndex headers = context.getHeaders();
+            Object headerValues;
+            if (allHeaders || !headers.isIndexed()) {
+                // a regex header name may match any header name
+                headerValues = toMap(httpRequest.getHeaders());
+            } else {
+                Map<String, List<String>> relevantHeaders = new HashMap<String, List<String>>();
+                for (String headerName : headerNames) {
+                    List<String> values = headers.get(headerName);
+                    if (values != null) {
+                        relevantHeaders.put(headerName, values);
+                    }
+                }
+                headerValues = relevantHeaders;
+            }
+            return Arrays.asList(
+                    httpRequest.getMethod(),
+                    httpRequest.getURL(),
+                    httpRequest.getPath(),
+                    toMap(httpRequest.getQueryStringParameters()),
+                    toMap(httpRequest.getCookies()),
+                    headerValues,
+                    httpRequest.getBody() != null ? httpRequest.getBody().getClass() : null,
+                    bodyHash(context)
+            );
+        }
+    }
+
+    private static boolean isCacheable(Expectation expectation) {
+        return expectation != null && (expectation.getTimes() == null || expectation.getTimes().isUnlimited());
+    }
+
+    private static Map<String, List<String>> toMap(List<? extends KeyToMultiValue> keyToMultiValues) {
+        Map<String, List<String>> map = new HashMap<String, List<String>>();
+        for (KeyToMultiValue keyToMultiValue : keyToMultiValues) {
+            List<String> values = map.get(keyToMultiValue.getName());
+            if (values == null) {
+                map.put(keyToMultiValue.getName(), keyToMultiValue.getValues());
+            } else {
+                List<String> mergedValues = new ArrayList<String>(values);
+                mergedValues.addAll(keyToMultiValue.getValues());
+                map.put(keyToMultiValue.getName(), mergedValues);
+            }
+        }
+        return map;
+    }
+
+    private static HashCode bodyHash(HttpRequestMatchContext context) {
+        return context.getHttpRequest().getBody() != null ? Hashing.murmur3_128().hashBytes(context.getBodyAsBytes()) : null;
+    }
+
+    private static class Result {
+        private final long epoch;
+        private final Expectation expectation;
+
+        private Result(long epoch, Expectation expectation) {
+            this.epoch = epoch;
+            this.expectation = expectation;
+        }
+    }
+}
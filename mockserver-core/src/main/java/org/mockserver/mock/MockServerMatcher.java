@@ -5,6 +5,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import org.mockserver.client.serialization.Base64Converter;
 import org.mockserver.client.serialization.ExpectationSerializer;
+import org.mockserver.matchers.HttpRequestMatchContext;
 import org.mockserver.matchers.HttpRequestMatcher;
 import org.mockserver.matchers.MatcherBuilder;
 import org.mockserver.matchers.Times;
@@ -14,18 +15,23 @@ import org.mockserver.model.HttpRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * Matches requests against expectations without locking, when, clear and reset are serialised with each other
+ * but never block handle, which always reads a consistent version of the expectations
+ *
+ * The unlimited expectation a request matched is cached until the expectations next change, so repeated
+ * identical requests skip matching
+ *
  * @author jamesdbloom
  */
 public class MockServerMatcher extends EqualsHashCodeToString {
 
-    protected final List<Expectation> expectations = new ArrayList<Expectation>();
+    protected final ExpectationIndex expectations = new ExpectationIndex();
+    private final MatchResultCache matchResultCache = new MatchResultCache();
     private Logger requestLogger = LoggerFactory.getLogger("REQUEST");
 
     public synchronized Expectation when(HttpRequest httpRequest) {
@@ -35,7 +41,7 @@ public class MockServerMatcher extends EqualsHashCodeToString {
     public synchronized Expectation when(final HttpRequest httpRequest, Times times) {
         Expectation expectation;
         if (times.isUnlimited()) {
-            Collection<Expectation> existingExpectationsWithMatchingRequest = Collections2.filter(expectations, new Predicate<Expectation>() {
+            Collection<Expectation> existingExpectationsWithMatchingRequest = Collections2.filter(expectations.sharingIndexKey(httpRequest), new Predicate<Expectation>() {
                 public boolean apply(Expectation expectation) {
                     return expectation.contains(httpRequest);
                 }
@@ -52,19 +58,29 @@ public class MockServerMatcher extends EqualsHashCodeToString {
             expectation = new Expectation(httpRequest, times);
         }
         expectations.add(expectation);
+        matchResultCache.added(expectation);
         return expectation;
     }
 
-    public synchronized Action handle(HttpRequest httpRequest) {
-        ArrayList<Expectation> expectations = new ArrayList<Expectation>(this.expectations);
-        for (Expectation expectation : expectations) {
-            if (expectation.matches(httpRequest)) {
-                if (!expectation.getTimes().greaterThenZero()) {
-                    if (this.expectations.contains(expectation)) {
-                        this.expectations.remove(expectation);
-                    }
+    /**
+     * Returns the action of the first expectation matching the request, a response delay is not applied so
+     * the caller can schedule the response rather than blocking the thread handling the request
+     */
+    public Action handle(HttpRequest httpRequest) {
+        HttpRequestMatchContext context = new HttpRequestMatchContext(httpRequest);
+        // read before matching so a result is never stored in an epoch newer than the expectations it was matched against
+        MatchResultCache.Epoch epoch = matchResultCache.epoch();
+        Expectation cachedExpectation = epoch.get(context);
+        if (cachedExpectation != null) {
+            return cachedExpectation.getAction(false);
+        }
+        for (Expectation expectation : expectations.candidates(httpRequest)) {
+            if (expectation.matchesContext(context)) {
+                if (expectation.getTimes() != null && !expectation.getTimes().greaterThenZero()) {
+                    this.expectations.removeLater(expectation);
                 }
-                return expectation.getAction(true);
+                epoch.put(context, expectation);
+                return expectation.getAction(false);
             }
         }
         return null;
@@ -73,13 +89,12 @@ public class MockServerMatcher extends EqualsHashCodeToString {
     public synchronized void clear(HttpRequest httpRequest) {
         if (httpRequest != null) {
             HttpRequestMatcher httpRequestMatcher = new MatcherBuilder().transformsToMatcher(httpRequest);
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
+            for (Expectation expectation : expectations.expectations()) {
                 if (httpRequestMatcher.matches(expectation.getHttpRequest())) {
-                    if (this.expectations.contains(expectation)) {
-                        this.expectations.remove(expectation);
-                    }
+                    this.expectations.remove(expectation);
                 }
             }
+            matchResultCache.removed();
         } else {
             reset();
         }
@@ -87,19 +102,20 @@ public class MockServerMatcher extends EqualsHashCodeToString {
 
     public synchronized void reset() {
         this.expectations.clear();
+        matchResultCache.reset();
     }
 
-    public synchronized void dumpToLog(HttpRequest httpRequest) {
+    public void dumpToLog(HttpRequest httpRequest) {
         if (httpRequest != null) {
             ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
+            for (Expectation expectation : expectations.expectations()) {
                 if (expectation.matches(httpRequest)) {
                     requestLogger.warn(cleanBase64Response(expectationSerializer.serialize(expectation)));
                 }
             }
         } else {
             ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-            for (Expectation expectation : new ArrayList<Expectation>(expectations)) {
+            for (Expectation expectation : expectations.expectations()) {
                 requestLogger.warn(cleanBase64Response(expectationSerializer.serialize(expectation)));
             }
         }
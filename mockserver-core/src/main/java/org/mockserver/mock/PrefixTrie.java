@@ -0,0 +1,85 @@
+package org.mockserver.mock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Character trie of values keyed on string prefixes, a single pass over an input string finds the values of
+ * every prefix of that input
+ *
+ * Readers never lock, each node's values are a copy-on-write array, writers must be externally synchronised
+ *
+ * @author jamesdbloom
+ */
+class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<V>();
+
+    public void add(String prefix, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            Character character = prefix.charAt(i);
+            Node<V> child = node.children.get(character);
+            if (child == null) {
+                child = new Node<V>();
+                node.children.put(character, child);
+            }
+            node = child;
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Removes the value and any nodes left with no values and no children
+     */
+    public boolean remove(String prefix, V value) {
+        return remove(root, prefix, 0, value);
+    }
+
+    private boolean remove(Node<V> node, String prefix, int index, V value) {
+        if (index == prefix.length()) {
+            return node.values.remove(value);
+        }
+        Character character = prefix.charAt(index);
+        Node<V> child = node.children.get(character);
+        if (child != null && remove(child, prefix, index + 1, value)) {
+            if (child.values.isEmpty() && child.children.isEmpty()) {
+                node.children.remove(character);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the values with exactly this prefix
+     */
+    public List<V> get(String prefix) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node != null ? node.values : Collections.<V>emptyList();
+    }
+
+    /**
+     * Adds the values of each prefix of the input, shortest prefix first, ignoring prefixes without values
+     */
+    public void collectPrefixesOf(String input, List<List<V>> result) {
+        Node<V> node = root;
+        for (int i = 0; i <= input.length() && node != null; i++) {
+            if (!node.values.isEmpty()) {
+                result.add(node.values);
+            }
+            node = i < input.length() ? node.children.get(input.charAt(i)) : null;
+        }
+    }
+
+    private static class Node<V> {
+        private final ConcurrentMap<Character, Node<V>> children = new ConcurrentHashMap<Character, Node<V>>(4);
+        private final CopyOnWriteArrayList<V> values = new CopyOnWriteArrayList<V>();
+    }
+}
@@ -1,18 +1,119 @@
 package org.mockserver.model;
 
+import org.mockserver.configuration.SystemProperties;
+
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * A fixed delay or a latency profile the delay of each response is sampled from
+ *
+ * Samples are drawn from a per-thread random number generator, if the mockserver.delaySeed system property is set
+ * each thread's generator is seeded from it (and the order the thread first sampled a delay) so runs are repeatable
+ *
  * @author jamesdbloom
  */
 public class Delay extends EqualsHashCodeToString {
 
+    // standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.3263478740408408;
+    private static final AtomicLong threadIndex = new AtomicLong();
+    private static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            Long seed = SystemProperties.delaySeed();
+            return seed != null ? new Random(seed + threadIndex.getAndIncrement()) : new Random();
+        }
+    };
     private final TimeUnit timeUnit;
     private final long value;
+    private final Distribution distribution;
+    private final Long min;
+    private final Long max;
+    private final Long mean;
+    private final Long standardDeviation;
+    private final Long median;
+    private final Long p99;
+    private final SortedMap<Double, Long> percentiles;
 
     public Delay(TimeUnit timeUnit, long value) {
+        this(timeUnit, value, null, null, null, null, null, null, null, null);
+    }
+
+    private Delay(TimeUnit timeUnit, long value, Distribution distribution, Long min, Long max, Long mean, Long standardDeviation, Long median, Long p99, SortedMap<Double, Long> percentiles) {
         this.timeUnit = timeUnit;
         this.value = value;
+        this.distribution = distribution;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.median = median;
+        this.p99 = p99;
+        this.percentiles = percentiles;
+    }
+
+    /**
+     * A delay uniformly distributed between min and max
+     */
+    public static Delay uniform(TimeUnit timeUnit, long min, long max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("A uniform delay requires 0 <= min <= max");
+        }
+        return new Delay(timeUnit, 0, Distribution.UNIFORM, min, max, null, null, null, null, null);
+    }
+
+    /**
+     * A normally distributed delay, samples below zero are treated as zero
+     */
+    public static Delay normal(TimeUnit timeUnit, long mean, long standardDeviation) {
+        if (mean < 0 || standardDeviation < 0) {
+            throw new IllegalArgumentException("A normal delay requires a mean and standard deviation of at least zero");
+        }
+        return new Delay(timeUnit, 0, Distribution.NORMAL, null, null, mean, standardDeviation, null, null, null);
+    }
+
+    /**
+     * A log-normally distributed delay with the specified median and 99th percentile, for long tailed latency
+     */
+    public static Delay logNormal(TimeUnit timeUnit, long median, long p99) {
+        if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("A log-normal delay requires 0 < median <= p99");
+        }
+        return new Delay(timeUnit, 0, Distribution.LOG_NORMAL, null, null, null, null, median, p99, null);
+    }
+
+    /**
+     * A delay with the 50th, 90th, 99th and 99.9th percentiles of a measured latency
+     */
+    public static Delay percentiles(TimeUnit timeUnit, long p50, long p90, long p99, long p999) {
+        Map<Double, Long> percentiles = new HashMap<Double, Long>();
+        percentiles.put(50.0, p50);
+        percentiles.put(90.0, p90);
+        percentiles.put(99.0, p99);
+        percentiles.put(99.9, p999);
+        return percentiles(timeUnit, percentiles);
+    }
+
+    /**
+     * A delay with an empirical distribution given as the delay at each percentile (from 0 to 100), between percentiles
+     * the delay is interpolated linearly, below the lowest percentile it is interpolated from zero delay at the 0th
+     * percentile and above the highest percentile it is the delay of the highest percentile
+     */
+    public static Delay percentiles(TimeUnit timeUnit, Map<Double, Long> percentiles) {
+        if (percentiles == null || percentiles.isEmpty()) {
+            throw new IllegalArgumentException("A percentile delay requires at least one percentile");
+        }
+        SortedMap<Double, Long> sortedPercentiles = new TreeMap<Double, Long>(percentiles);
+        long previous = 0;
+        for (Map.Entry<Double, Long> entry : sortedPercentiles.entrySet()) {
+            if (entry.getKey() < 0 || entry.getKey() > 100 || entry.getValue() == null || entry.getValue() < previous) {
+                throw new IllegalArgumentException("A percentile delay requires percentiles from 0 to 100 with delays that do not decrease");
+            }
+            previous = entry.getValue();
+        }
+        return new Delay(timeUnit, 0, Distribution.PERCENTILES, null, null, null, null, null, null, Collections.unmodifiableSortedMap(sortedPercentiles));
     }
 
     public TimeUnit getTimeUnit() {
@@ -23,14 +124,110 @@ public class Delay extends EqualsHashCodeToString {
         return value;
     }
 
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    public Long getMin() {
+        return min;
+    }
+
+    public Long getMax() {
+        return max;
+    }
+
+    public Long getMean() {
+        return mean;
+    }
+
+    public Long getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public Long getMedian() {
+        return median;
+    }
+
+    public Long getP99() {
+        return p99;
+    }
+
+    public SortedMap<Double, Long> getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * @return a delay in milliseconds sampled from the latency profile (or the fixed delay), zero if there is no
+     * time unit, so the response can be scheduled instead of blocking the thread with applyDelay()
+     */
+    public long sampleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(sampleNanos());
+    }
+
+    long sampleNanos() {
+        return sampleNanos(random.get());
+    }
+
+    long sampleNanos(Random random) {
+        if (timeUnit == null) {
+            return 0;
+        }
+        if (distribution == null) {
+            return timeUnit.toNanos(value);
+        }
+        return Math.round(sample(random) * timeUnit.toNanos(1));
+    }
+
+    private double sample(Random random) {
+        switch (distribution) {
+            case UNIFORM:
+                return min + random.nextDouble() * (max - min);
+            case NORMAL:
+                return Math.max(0, mean + random.nextGaussian() * standardDeviation);
+            case LOG_NORMAL:
+                return median * Math.exp(random.nextGaussian() * Math.log((double) p99 / median) / Z_99);
+            case PERCENTILES:
+                return percentile(random.nextDouble() * 100);
+            default:
+                return value;
+        }
+    }
+
+    private double percentile(double percentile) {
+        double lowerPercentile = 0;
+        double lowerValue = 0;
+        for (Map.Entry<Double, Long> entry : percentiles.entrySet()) {
+            if (percentile <= entry.getKey()) {
+                if (entry.getKey() == lowerPercentile) {
+                    return entry.getValue();
+                }
+                return lowerValue + (entry.getValue() - lowerValue) * (percentile - lowerPercentile) / (entry.getKey() - lowerPercentile);
+            }
+            lowerPercentile = entry.getKey();
+            lowerValue = entry.getValue();
+        }
+        return lowerValue;
+    }
+
     public void applyDelay() {
         if (timeUnit != null) {
             try {
-                timeUnit.sleep(value);
+                if (distribution == null) {
+                    timeUnit.sleep(value);
+                } else {
+                    TimeUnit.NANOSECONDS.sleep(sampleNanos());
+                }
             } catch (InterruptedException ie) {
                 logger.error("InterruptedException while apply delay to response", ie);
                 throw new RuntimeException("InterruptedException while apply delay to response", ie);
             }
         }
     }
+
+    public enum Distribution {
+        UNIFORM,
+        NORMAL,
+        LOG_NORMAL,
+        PERCENTILES
+    }
 }
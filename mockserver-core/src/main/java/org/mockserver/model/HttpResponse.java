@@ -16,6 +16,7 @@ public class HttpResponse extends Action {
     private Map<String, Header> headers = new LinkedHashMap<String, Header>();
     private Map<String, Cookie> cookies = new LinkedHashMap<String, Cookie>();
     private Delay delay;
+    private Throttle throttle;
 
     public HttpResponse() {
     }
@@ -162,7 +163,8 @@ public class HttpResponse extends Action {
     }
 
     /**
-     * The delay before responding with this request as a Delay object, for example new Delay(TimeUnit.SECONDS, 3)
+     * The delay before responding with this request as a Delay object, for example new Delay(TimeUnit.SECONDS, 3),
+     * or a latency profile each delay is sampled from, for example Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400)
      *
      * @param delay a Delay object, for example new Delay(TimeUnit.SECONDS, 3)
      */
@@ -175,6 +177,20 @@ public class HttpResponse extends Action {
         return delay;
     }
 
+    /**
+     * Limits the throughput of the response body, for example new Throttle().withBytesPerSecond(16 * 1024)
+     *
+     * @param throttle a Throttle object, for example new Throttle().withBytesPerSecond(16 * 1024)
+     */
+    public HttpResponse withThrottle(Throttle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    public Throttle getThrottle() {
+        return throttle;
+    }
+
     @JsonIgnore
     public HttpResponse applyDelay() {
         if (delay != null) {
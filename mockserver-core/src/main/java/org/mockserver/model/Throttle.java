@@ -0,0 +1,65 @@
+package org.mockserver.model;
+
+/**
+ * Limits how fast a response body is sent, the body is sent as a series of chunks each delayed so the
+ * throughput stays under bytesPerSecond and, optionally, by a chunk delay between chunks
+ *
+ * @author jamesdbloom
+ */
+public class Throttle extends EqualsHashCodeToString {
+
+    private long bytesPerSecond;
+    private int chunkSize;
+    private Delay chunkDelay;
+
+    public Throttle() {
+    }
+
+    public static Throttle throttle() {
+        return new Throttle();
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * The maximum throughput of the response body, zero means no throughput limit
+     *
+     * @param bytesPerSecond the maximum number of body bytes sent per second
+     */
+    public Throttle withBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The number of bytes in each chunk of the response body, if not specified (or zero) the chunk size is a
+     * tenth of a second of the throughput limit (at most 8KB) or 8KB if there is no throughput limit
+     *
+     * @param chunkSize the number of bytes per chunk
+     */
+    public Throttle withChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public Delay getChunkDelay() {
+        return chunkDelay;
+    }
+
+    /**
+     * The delay before each chunk, a latency profile is sampled separately for each chunk, if the throughput
+     * limit requires a longer delay the longer delay is used
+     *
+     * @param chunkDelay a fixed delay or latency profile
+     */
+    public Throttle withChunkDelay(Delay chunkDelay) {
+        this.chunkDelay = chunkDelay;
+        return this;
+    }
+}
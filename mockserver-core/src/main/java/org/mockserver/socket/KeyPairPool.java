@@ -0,0 +1,72 @@
+package org.mockserver.socket;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Key pairs generated on a background thread so minting a certificate during a TLS handshake only has to sign it,
+ * a key pair taken from the pool is replaced straight away and if the pool is empty one is generated by the caller
+ *
+ * The pool is first filled when the first key pair is taken, so nothing is generated if no certificate is ever minted
+ *
+ * @author jamesdbloom
+ */
+class KeyPairPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyPairPool.class);
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MockServer-KeyPairPool-%d").build());
+    private final String algorithm;
+    private final int size;
+    private final BlockingQueue<KeyPair> keyPairs;
+    private final AtomicBoolean filling = new AtomicBoolean();
+
+    KeyPairPool(String algorithm, int size) {
+        this.algorithm = algorithm;
+        this.size = size;
+        this.keyPairs = new ArrayBlockingQueue<KeyPair>(Math.max(size, 1));
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    int available() {
+        return keyPairs.size();
+    }
+
+    KeyPair take() throws Exception {
+        KeyPair keyPair = keyPairs.poll();
+        fill();
+        if (keyPair == null) {
+            keyPair = KeyStoreFactory.generateKeyPair(algorithm);
+        }
+        return keyPair;
+    }
+
+    private void fill() {
+        if (size > 0 && filling.compareAndSet(false, true)) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (keyPairs.remainingCapacity() > 0) {
+                            keyPairs.offer(KeyStoreFactory.generateKeyPair(algorithm));
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Exception generating " + algorithm + " key pair", e);
+                    } finally {
+                        filling.set(false);
+                    }
+                }
+            });
+        }
+    }
+}
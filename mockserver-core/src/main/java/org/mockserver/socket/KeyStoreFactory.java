@@ -15,6 +15,7 @@ import org.bouncycastle.x509.X509V3CertificateGenerator;
 import java.math.BigInteger;
 import java.security.*;
 import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
 import java.util.*;
 import org.bouncycastle.asn1.x509.BasicConstraints;
 import org.bouncycastle.asn1.x509.Extensions;
@@ -31,6 +32,10 @@ public class KeyStoreFactory {
      * we generate the AC issuer's certificate
      */
     public X509Certificate createCACert(PublicKey publicKey, PrivateKey privateKey) throws Exception {
+        return createCACert(publicKey, privateKey, new Date(System.currentTimeMillis() + (1000L * 60 * 60 * 24 * 30)));
+    }
+
+    X509Certificate createCACert(PublicKey publicKey, PrivateKey privateKey, Date notAfter) throws Exception {
         //
         // signers name
         //
@@ -49,10 +54,10 @@ public class KeyStoreFactory {
         x509V1CertificateGenerator.setSerialNumber(BigInteger.valueOf(System.currentTimeMillis()));
         x509V1CertificateGenerator.setIssuerDN(new X509Principal(issuer));
         x509V1CertificateGenerator.setNotBefore(new Date(System.currentTimeMillis() - 1000L * 60 * 60 * 24 * 30));
-        x509V1CertificateGenerator.setNotAfter(new Date(System.currentTimeMillis() + (1000L * 60 * 60 * 24 * 30)));
+        x509V1CertificateGenerator.setNotAfter(notAfter);
         x509V1CertificateGenerator.setSubjectDN(new X509Principal(subject));
         x509V1CertificateGenerator.setPublicKey(publicKey);
-        x509V1CertificateGenerator.setSignatureAlgorithm("SHA1WithRSAEncryption");
+        x509V1CertificateGenerator.setSignatureAlgorithm("SHA256WithRSAEncryption");
 
         X509Certificate cert = x509V1CertificateGenerator.generate(privateKey);
 
@@ -67,6 +72,10 @@ public class KeyStoreFactory {
      * we generate a certificate signed by our CA's intermediate certficate
      */
     public X509Certificate createClientCert(PublicKey publicKey, PrivateKey certificateAuthorityPrivateKey, PublicKey certificateAuthorityPublicKey, String domain, String[] subjectAlternativeNameDomains, String[] subjectAlternativeNameIps) throws Exception {
+        return createClientCert(publicKey, certificateAuthorityPrivateKey, certificateAuthorityPublicKey, domain, subjectAlternativeNameDomains, subjectAlternativeNameIps, new Date(System.currentTimeMillis() + (1000L * 60 * 60 * 24 * 30)));
+    }
+
+    X509Certificate createClientCert(PublicKey publicKey, PrivateKey certificateAuthorityPrivateKey, PublicKey certificateAuthorityPublicKey, String domain, String[] subjectAlternativeNameDomains, String[] subjectAlternativeNameIps, Date notAfter) throws Exception {
         //
         // issuer
         //
@@ -76,13 +85,14 @@ public class KeyStoreFactory {
         // create the certificate - version 3
         //
         X509V3CertificateGenerator x509V3CertificateGenerator = new X509V3CertificateGenerator();
-        x509V3CertificateGenerator.setSerialNumber(BigInteger.valueOf(System.currentTimeMillis()));
+        // random as certificates for many hosts can be minted by the same issuer in the same millisecond
+        x509V3CertificateGenerator.setSerialNumber(new BigInteger(64, new SecureRandom()));
         x509V3CertificateGenerator.setIssuerDN(new X509Principal(issuer));
         x509V3CertificateGenerator.setNotBefore(new Date(System.currentTimeMillis() - 1000L * 60 * 60 * 24 * 30));
-        x509V3CertificateGenerator.setNotAfter(new Date(System.currentTimeMillis() + (1000L * 60 * 60 * 24 * 30)));
+        x509V3CertificateGenerator.setNotAfter(notAfter);
         x509V3CertificateGenerator.setSubjectDN(new X509Principal("CN=" + domain + ", O=MockServer, L=London, ST=England, C=UK"));
         x509V3CertificateGenerator.setPublicKey(publicKey);
-        x509V3CertificateGenerator.setSignatureAlgorithm("SHA1WithRSAEncryption");
+        x509V3CertificateGenerator.setSignatureAlgorithm("SHA256WithRSAEncryption");
 
         //
         // add the extensions
@@ -122,6 +132,29 @@ public class KeyStoreFactory {
         return kpGen.generateKeyPair();
     }
 
+    /**
+     * Create a random EC key pair on the P-256 curve
+     */
+    public static KeyPair generateECKeyPair() throws Exception {
+        Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME);
+        kpGen.initialize(new ECGenParameterSpec("secp256r1"), new SecureRandom());
+        return kpGen.generateKeyPair();
+    }
+
+    /**
+     * Create a random key pair, algorithm is either RSA or EC
+     */
+    public static KeyPair generateKeyPair(String algorithm) throws Exception {
+        if ("EC".equalsIgnoreCase(algorithm)) {
+            return generateECKeyPair();
+        } else if ("RSA".equalsIgnoreCase(algorithm)) {
+            return generateRSAKeyPair();
+        } else {
+            throw new IllegalArgumentException("Unsupported key algorithm [" + algorithm + "] only RSA and EC are supported");
+        }
+    }
+
     /**
      * Create KeyStore and add a self-signed X.509 Certificate
      */
@@ -156,6 +189,9 @@ public class KeyStoreFactory {
         // add certification
         keyStore.setKeyEntry(certificationAlias, privateKey, keyStorePassword, new X509Certificate[]{clientCert, caCert});
 
+        // add certificate authority, used to sign the certificates minted for each host
+        keyStore.setKeyEntry(certificateAuthorityAlias, certificateAuthorityPrivateKey, keyStorePassword, new X509Certificate[]{caCert});
+
         return keyStore;
     }
 }
@@ -0,0 +1,173 @@
+package org.mockserver.socket;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.net.InetAddresses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Presents a certificate for the hostname a client asked for with SNI, so a proxied HTTPS connection to any host sees a
+ * certificate for that host signed by the MockServer certificate authority, connections without SNI get a certificate
+ * for the engine's peer host hint or localhost
+ *
+ * SNI is read reflectively as it is only available from Java 8, on older runtimes the peer host hint is always used
+ *
+ * Certificates are minted on first use with a key pair from a KeyPairPool and the most recently used are cached, the
+ * alias returned for a connection is the hostname so every connection shares one SSLContext and its session cache
+ *
+ * @author jamesdbloom
+ */
+class MintingKeyManager extends X509ExtendedKeyManager {
+
+    private static final String DEFAULT_HOST = "localhost";
+    private static final Logger logger = LoggerFactory.getLogger(MintingKeyManager.class);
+    private static final Method GET_REQUESTED_SERVER_NAMES;
+    private static final Class<?> SNI_HOST_NAME;
+    private static final Method GET_ASCII_NAME;
+
+    static {
+        Method getRequestedServerNames = null;
+        Class<?> sniHostName = null;
+        Method getAsciiName = null;
+        try {
+            getRequestedServerNames = Class.forName("javax.net.ssl.ExtendedSSLSession").getMethod("getRequestedServerNames");
+            sniHostName = Class.forName("javax.net.ssl.SNIHostName");
+            getAsciiName = sniHostName.getMethod("getAsciiName");
+        } catch (Exception e) {
+            logger.info("SNI not supported by this java runtime, certificates will be minted for the CONNECT or SOCKS host or localhost");
+            getRequestedServerNames = null;
+        }
+        GET_REQUESTED_SERVER_NAMES = getRequestedServerNames;
+        SNI_HOST_NAME = sniHostName;
+        GET_ASCII_NAME = getAsciiName;
+    }
+    private final KeyPairPool keyPairPool;
+    private final LoadingCache<String, KeyStore.PrivateKeyEntry> certificates;
+
+    MintingKeyManager(final PrivateKey certificateAuthorityPrivateKey, final X509Certificate certificateAuthorityCertificate, final KeyPairPool keyPairPool, int cacheSize) {
+        this.keyPairPool = keyPairPool;
+        this.certificates = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .build(new CacheLoader<String, KeyStore.PrivateKeyEntry>() {
+                    @Override
+                    public KeyStore.PrivateKeyEntry load(String host) throws Exception {
+                        long start = System.currentTimeMillis();
+                        KeyPair keyPair = keyPairPool.take();
+                        boolean isIp = InetAddresses.isInetAddress(host);
+                        X509Certificate certificate = new KeyStoreFactory().createClientCert(
+                                keyPair.getPublic(),
+                                certificateAuthorityPrivateKey,
+                                certificateAuthorityCertificate.getPublicKey(),
+                                host,
+                                (isIp ? null : new String[]{host}),
+                                (isIp ? new String[]{host} : null)
+                        );
+                        logger.debug("Minted certificate for [" + host + "] in " + (System.currentTimeMillis() - start) + "ms");
+                        return new KeyStore.PrivateKeyEntry(keyPair.getPrivate(), new X509Certificate[]{certificate, certificateAuthorityCertificate});
+                    }
+                });
+    }
+
+    /**
+     * Presents certificateChain for host instead of minting one, such as the certificate saved in the key store for localhost
+     */
+    void addCertificate(String host, PrivateKey privateKey, X509Certificate[] certificateChain) {
+        certificates.put(host.toLowerCase(Locale.ENGLISH), new KeyStore.PrivateKeyEntry(privateKey, certificateChain));
+    }
+
+    long cachedCertificates() {
+        return certificates.size();
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        return chooseAlias(keyType, handshakeSession(engine), engine.getPeerHost());
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        return chooseAlias(keyType, (socket instanceof SSLSocket ? handshakeSession(socket) : null), null);
+    }
+
+    private String chooseAlias(String keyType, Object handshakeSession, String peerHost) {
+        if (!keyPairPool.getAlgorithm().equalsIgnoreCase(keyType)) {
+            return null;
+        }
+        String host = requestedServerName(handshakeSession);
+        if (host == null) {
+            host = (peerHost != null ? peerHost : DEFAULT_HOST);
+        }
+        return host.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * The handshake session is only available from Java 7, returns null on older runtimes
+     */
+    private static Object handshakeSession(Object engineOrSocket) {
+        try {
+            Class<?> type = (engineOrSocket instanceof SSLEngine ? SSLEngine.class : SSLSocket.class);
+            return type.getMethod("getHandshakeSession").invoke(engineOrSocket);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * The host name requested with SNI, read reflectively as the SNI api is only available from Java 8, returns null
+     * on older runtimes or if the client didn't send a host name
+     */
+    private static String requestedServerName(Object handshakeSession) {
+        if (GET_REQUESTED_SERVER_NAMES != null && GET_REQUESTED_SERVER_NAMES.getDeclaringClass().isInstance(handshakeSession)) {
+            try {
+                for (Object serverName : (List<?>) GET_REQUESTED_SERVER_NAMES.invoke(handshakeSession)) {
+                    if (SNI_HOST_NAME.isInstance(serverName)) {
+                        return (String) GET_ASCII_NAME.invoke(serverName);
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Exception reading SNI host name from handshake session", e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        return (X509Certificate[]) certificates.getUnchecked(alias).getCertificateChain();
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        return certificates.getUnchecked(alias).getPrivateKey();
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        return null;
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return null;
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        return null;
+    }
+}
@@ -1,6 +1,8 @@
 package org.mockserver.socket;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.handler.ssl.SslHandler;
+import org.mockserver.configuration.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,12 +11,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.net.Socket;
 import java.security.KeyStore;
+import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Builds the SSLContext for accepting secure connections and the SSLContext for opening them once, so every secure
+ * connection shares a TLS session cache and clients that reconnect resume their session with an abbreviated handshake
+ *
  * @author jamesdbloom
  */
 public class SSLFactory {
@@ -42,6 +55,8 @@ public class SSLFactory {
         }
     };
     private KeyStore keystore;
+    private volatile SSLContext serverSSLContext;
+    private volatile SSLContext clientSSLContext;
 
     @VisibleForTesting
     SSLFactory() {
@@ -52,24 +67,114 @@ public class SSLFactory {
         return sslFactory;
     }
 
+    /**
+     * @return the SSLContext for accepting secure connections
+     */
     public SSLContext sslContext() {
+        if (serverSSLContext == null) {
+            synchronized (this) {
+                if (serverSSLContext == null) {
+                    serverSSLContext = buildSSLContext(true);
+                }
+            }
+        }
+        return serverSSLContext;
+    }
+
+    /**
+     * @return the SSLContext for opening secure connections, such as when forwarding or proxying a request
+     */
+    public SSLContext clientSslContext() {
+        if (clientSSLContext == null) {
+            synchronized (this) {
+                if (clientSSLContext == null) {
+                    clientSSLContext = buildSSLContext(false);
+                }
+            }
+        }
+        return clientSSLContext;
+    }
+
+    /**
+     * @return an SslHandler for a secure connection that has been accepted, its handshake is recorded by SSLHandshakeMetrics
+     */
+    public SslHandler serverSslHandler() {
+        return serverSslHandler(null);
+    }
+
+    /**
+     * @param host the host the client connected to, such as the host of a CONNECT request, for which a certificate is
+     *             presented if the client doesn't ask for a host with SNI
+     * @return an SslHandler for a secure connection that has been accepted, its handshake is recorded by SSLHandshakeMetrics
+     */
+    public SslHandler serverSslHandler(String host) {
+        SSLEngine engine = (host != null ? sslContext().createSSLEngine(host, -1) : sslContext().createSSLEngine());
+        engine.setUseClientMode(false);
+        return SSLHandshakeMetrics.getInstance().monitor(new SslHandler(engine));
+    }
+
+    /**
+     * @return an SslHandler for a secure connection to host and port, which are used to find a cached session to resume,
+     * its handshake is recorded by SSLHandshakeMetrics
+     */
+    public SslHandler clientSslHandler(String host, int port) {
+        SSLEngine engine = clientSslContext().createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        return SSLHandshakeMetrics.getInstance().monitor(new SslHandler(engine));
+    }
+
+    private KeyManager[] serverKeyManagers() throws Exception {
+        KeyStore keyStore = buildKeyStore();
+        if (keyStore.isKeyEntry(KEY_STORE_CA_ALIAS)) {
+            // mint a certificate for each host signed by the certificate authority
+            PrivateKey certificateAuthorityPrivateKey = (PrivateKey) keyStore.getKey(KEY_STORE_CA_ALIAS, KEY_STORE_PASSWORD.toCharArray());
+            X509Certificate certificateAuthorityCertificate = (X509Certificate) keyStore.getCertificate(KEY_STORE_CA_ALIAS);
+            KeyPairPool keyPairPool = new KeyPairPool(SystemProperties.sslKeyAlgorithm(), SystemProperties.sslKeyPoolSize());
+            MintingKeyManager mintingKeyManager = new MintingKeyManager(certificateAuthorityPrivateKey, certificateAuthorityCertificate, keyPairPool, SystemProperties.sslCertificateCacheSize());
+            // the key store's own certificate is for localhost, so connections without SNI don't need one minted
+            Certificate[] certificateChain = keyStore.getCertificateChain(KEY_STORE_CERT_ALIAS);
+            if (certificateChain != null && keyPairPool.getAlgorithm().equalsIgnoreCase(certificateChain[0].getPublicKey().getAlgorithm())) {
+                PrivateKey privateKey = (PrivateKey) keyStore.getKey(KEY_STORE_CERT_ALIAS, KEY_STORE_PASSWORD.toCharArray());
+                mintingKeyManager.addCertificate("localhost", privateKey, Arrays.copyOf(certificateChain, certificateChain.length, X509Certificate[].class));
+            }
+            return new KeyManager[]{mintingKeyManager};
+        } else {
+            // a key store without the certificate authority's key, such as one provided by the user, is used as it is
+            KeyManagerFactory keyManagerFactory = getKeyManagerFactoryInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD.toCharArray());
+            return keyManagerFactory.getKeyManagers();
+        }
+    }
+
+    private SSLContext buildSSLContext(boolean server) {
         try {
             // key manager
-            KeyManagerFactory keyManagerFactory = getKeyManagerFactoryInstance(KeyManagerFactory.getDefaultAlgorithm());
-            keyManagerFactory.init(buildKeyStore(), KEY_STORE_PASSWORD.toCharArray());
+            // only accepted connections present a certificate, so opening a secure connection never loads the key store
+            KeyManager[] keyManagers = (server ? serverKeyManagers() : null);
 
             // ssl context
             SSLContext sslContext = getSSLContextInstance("TLS");
-            sslContext.init(keyManagerFactory.getKeyManagers(), new TrustManager[]{DUMMY_TRUST_MANAGER}, null);
+            sslContext.init(keyManagers, new TrustManager[]{DUMMY_TRUST_MANAGER}, null);
+
+            // session cache
+            configureSessionCache(sslContext.getServerSessionContext());
+            configureSessionCache(sslContext.getClientSessionContext());
             return sslContext;
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize the SSLContext", e);
         }
     }
 
+    private void configureSessionCache(SSLSessionContext sessionContext) {
+        if (sessionContext != null) {
+            sessionContext.setSessionCacheSize(SystemProperties.sslSessionCacheSize());
+            sessionContext.setSessionTimeout(SystemProperties.sslSessionTimeout());
+        }
+    }
+
     public SSLSocket wrapSocket(Socket socket) throws Exception {
         // ssl socket factory
-        SSLSocketFactory sslSocketFactory = sslContext().getSocketFactory();
+        SSLSocketFactory sslSocketFactory = clientSslContext().getSocketFactory();
 
         // ssl socket
         SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, socket.getInetAddress().getHostAddress(), socket.getPort(), true);
@@ -78,19 +183,56 @@ public class SSLFactory {
         return sslSocket;
     }
 
-    public KeyStore buildKeyStore() {
+    /**
+     * @return the file the key store is loaded from and saved to, in the directory set by mockserver.sslKeyStoreDirectory
+     * or otherwise the working directory
+     */
+    public File keyStoreFile() {
+        String keyStoreDirectory = SystemProperties.sslKeyStoreDirectory();
+        return (keyStoreDirectory != null ? new File(keyStoreDirectory, KEY_STORE_FILENAME) : new File(KEY_STORE_FILENAME));
+    }
+
+    /**
+     * Loads the key store from keyStoreFile() or, if there isn't one or the certificates it generated are about to
+     * expire, generates a new certificate authority and certificate and saves them, so the expensive key generation
+     * only happens the first time a secure connection is used and not at all if the key store file is reused
+     */
+    public synchronized KeyStore buildKeyStore() {
         if (keystore == null) {
-            File keyStoreFile = new File(KEY_STORE_FILENAME);
+            File keyStoreFile = keyStoreFile();
             if (keyStoreFile.exists()) {
                 loadKeyStore(keyStoreFile);
-            } else {
+            }
+            if (keystore == null || isExpiring(keystore)) {
                 dynamicallyCreateKeyStore();
-                saveKeyStore();
+                saveKeyStore(keyStoreFile);
             }
         }
         return keystore;
     }
 
+    private boolean isExpiring(KeyStore keyStore) {
+        try {
+            // only key stores MockServer generated, with the certificate authority's key, are replaced
+            if (keyStore.isKeyEntry(KEY_STORE_CA_ALIAS)) {
+                Date validUntil = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+                for (String alias : new String[]{KEY_STORE_CERT_ALIAS, KEY_STORE_CA_ALIAS}) {
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    if (!(certificate instanceof X509Certificate)) {
+                        return true;
+                    }
+                    ((X509Certificate) certificate).checkValidity(validUntil);
+                }
+            }
+            return false;
+        } catch (CertificateException ce) {
+            logger.info("Replacing key store [" + keyStoreFile() + "] as its certificates are about to expire");
+            return true;
+        } catch (KeyStoreException kse) {
+            return true;
+        }
+    }
+
     @VisibleForTesting
     SSLContext getSSLContextInstance(String protocol) throws NoSuchAlgorithmException {
         return SSLContext.getInstance(protocol);
@@ -118,7 +260,7 @@ public class SSLFactory {
         try {
             FileInputStream fileInputStream = null;
             try {
-                fileInputStream = new FileInputStream(KEY_STORE_FILENAME);
+                fileInputStream = new FileInputStream(keyStoreFile);
                 logger.trace("Loading key store from file [" + keyStoreFile + "]");
                 keystore = KeyStore.getInstance(KeyStore.getDefaultType());
                 keystore.load(fileInputStream, KEY_STORE_PASSWORD.toCharArray());
@@ -132,22 +274,37 @@ public class SSLFactory {
         }
     }
 
-    private void saveKeyStore() {
+    private void saveKeyStore(File keyStoreFile) {
         try {
             ByteArrayOutputStream bout = new ByteArrayOutputStream();
             keystore.store(bout, KEY_STORE_PASSWORD.toCharArray());
-            File keyStoreFile = new File(KEY_STORE_FILENAME);
+            File keyStoreDirectory = keyStoreFile.getAbsoluteFile().getParentFile();
+            if (!keyStoreDirectory.exists() && !keyStoreDirectory.mkdirs()) {
+                throw new IOException("Failed to create key store directory [" + keyStoreDirectory + "]");
+            }
             logger.trace("Saving key store to file [" + keyStoreFile + "]");
+            // written to a temporary file and renamed so other instances sharing the directory never load half a key store
+            File temporaryFile = File.createTempFile(KEY_STORE_FILENAME, ".tmp", keyStoreDirectory);
             FileOutputStream fileOutputStream = null;
             try {
-                fileOutputStream = new FileOutputStream(keyStoreFile);
+                fileOutputStream = new FileOutputStream(temporaryFile);
                 fileOutputStream.write(bout.toByteArray());
             } finally {
                 if (fileOutputStream != null) {
                     fileOutputStream.close();
                 }
             }
-            keyStoreFile.deleteOnExit();
+            if (!temporaryFile.renameTo(keyStoreFile)) {
+                // renaming over an existing file fails on some platforms
+                if (!keyStoreFile.delete() || !temporaryFile.renameTo(keyStoreFile)) {
+                    temporaryFile.delete();
+                    throw new IOException("Failed to rename [" + temporaryFile + "] to [" + keyStoreFile + "]");
+                }
+            }
+            if (SystemProperties.sslKeyStoreDirectory() == null) {
+                // only a key store in a directory that has been configured is kept for the next run
+                keyStoreFile.deleteOnExit();
+            }
         } catch (Exception e) {
             throw new RuntimeException("Exception while saving KeyStore", e);
         }
@@ -0,0 +1,115 @@
+package org.mockserver.socket;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the TLS handshakes of secure connections, how many of them resumed a cached session with an abbreviated
+ * handshake and how many failed, and how long the successful handshakes took
+ *
+ * @author jamesdbloom
+ */
+public class SSLHandshakeMetrics {
+
+    private static final SSLHandshakeMetrics sslHandshakeMetrics = new SSLHandshakeMetrics();
+    private final Logger logger = LoggerFactory.getLogger(SSLHandshakeMetrics.class);
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+    private final AtomicLong failedHandshakes = new AtomicLong();
+    private final AtomicLong totalHandshakeNanos = new AtomicLong();
+    private final AtomicLong maxHandshakeNanos = new AtomicLong();
+
+    @VisibleForTesting
+    SSLHandshakeMetrics() {
+
+    }
+
+    public static SSLHandshakeMetrics getInstance() {
+        return sslHandshakeMetrics;
+    }
+
+    /**
+     * Records the handshake of sslHandler, timed from now until it completes
+     */
+    public SslHandler monitor(final SslHandler sslHandler) {
+        final long startNanos = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        sslHandler.handshakeFuture().addListener(new GenericFutureListener<Future<Channel>>() {
+            @Override
+            public void operationComplete(Future<Channel> future) {
+                if (future.isSuccess()) {
+                    // a resumed session was created by an earlier handshake
+                    boolean resumed = sslHandler.engine().getSession().getCreationTime() < startMillis;
+                    record(System.nanoTime() - startNanos, resumed);
+                } else {
+                    failedHandshakes.incrementAndGet();
+                }
+            }
+        });
+        return sslHandler;
+    }
+
+    private void record(long handshakeNanos, boolean resumed) {
+        handshakes.incrementAndGet();
+        if (resumed) {
+            resumedHandshakes.incrementAndGet();
+        }
+        totalHandshakeNanos.addAndGet(handshakeNanos);
+        long max;
+        while (handshakeNanos > (max = maxHandshakeNanos.get()) && !maxHandshakeNanos.compareAndSet(max, handshakeNanos)) {
+            // retry until this handshake is recorded as the longest or a longer one has been recorded
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug((resumed ? "Resumed" : "Full") + " TLS handshake took " + TimeUnit.NANOSECONDS.toMicros(handshakeNanos) + "us, " + this);
+        }
+    }
+
+    /**
+     * @return the number of successful handshakes, including resumed handshakes
+     */
+    public long getHandshakes() {
+        return handshakes.get();
+    }
+
+    public long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    public long getFailedHandshakes() {
+        return failedHandshakes.get();
+    }
+
+    public long getAverageHandshakeTime(TimeUnit timeUnit) {
+        long handshakes = this.handshakes.get();
+        return (handshakes > 0 ? timeUnit.convert(totalHandshakeNanos.get() / handshakes, TimeUnit.NANOSECONDS) : 0);
+    }
+
+    public long getMaxHandshakeTime(TimeUnit timeUnit) {
+        return timeUnit.convert(maxHandshakeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public void reset() {
+        handshakes.set(0);
+        resumedHandshakes.set(0);
+        failedHandshakes.set(0);
+        totalHandshakeNanos.set(0);
+        maxHandshakeNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "handshakes=" + getHandshakes() +
+                ", resumed=" + getResumedHandshakes() +
+                ", failed=" + getFailedHandshakes() +
+                ", average=" + getAverageHandshakeTime(TimeUnit.MICROSECONDS) + "us" +
+                ", max=" + getMaxHandshakeTime(TimeUnit.MICROSECONDS) + "us";
+    }
+}
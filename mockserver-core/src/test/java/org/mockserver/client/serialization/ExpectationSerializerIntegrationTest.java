@@ -8,6 +8,8 @@ import org.mockserver.model.*;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -342,6 +344,52 @@ public class ExpectationSerializerIntegrationTest {
                 .setTimes(new TimesDTO(Times.exactly(5))).buildObject(), expectation);
     }
 
+    @Test
+    public void shouldDeserializeLatencyProfiles() throws IOException {
+        // given
+        String requestBytes = ("[{\n" +
+                "  \"httpResponse\" : {\n" +
+                "    \"delay\" : {\n" +
+                "      \"timeUnit\" : \"MILLISECONDS\",\n" +
+                "      \"distribution\" : \"LOG_NORMAL\",\n" +
+                "      \"median\" : 20,\n" +
+                "      \"p99\" : 400\n" +
+                "    }\n" +
+                "  }\n" +
+                "}, {\n" +
+                "  \"httpResponse\" : {\n" +
+                "    \"delay\" : {\n" +
+                "      \"timeUnit\" : \"MILLISECONDS\",\n" +
+                "      \"distribution\" : \"PERCENTILES\",\n" +
+                "      \"percentiles\" : {\n" +
+                "        \"50\" : 20,\n" +
+                "        \"99.9\" : 1000\n" +
+                "      }\n" +
+                "    }\n" +
+                "  }\n" +
+                "}]");
+        Map<Double, Long> percentiles = new HashMap<Double, Long>();
+        percentiles.put(50.0, 20l);
+        percentiles.put(99.9, 1000l);
+
+        // when
+        Expectation[] expectations = new ExpectationSerializer().deserializeArray(requestBytes);
+
+        // then
+        assertEquals(Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400), expectations[0].getHttpResponse(false).getDelay());
+        assertEquals(Delay.percentiles(TimeUnit.MILLISECONDS, percentiles), expectations[1].getHttpResponse(false).getDelay());
+    }
+
+    @Test
+    public void shouldRoundTripLatencyProfiles() {
+        // given
+        Expectation expectation = new Expectation(new HttpRequest(), Times.unlimited()).thenRespond(new HttpResponse().withDelay(Delay.percentiles(TimeUnit.MILLISECONDS, 20, 50, 200, 1000)));
+        ExpectationSerializer expectationSerializer = new ExpectationSerializer();
+
+        // then
+        assertEquals(expectation.getHttpResponse(false).getDelay(), expectationSerializer.deserialize(expectationSerializer.serialize(expectation)).getHttpResponse(false).getDelay());
+    }
+
     @Test
     public void shouldDeserializeCompleteObjectWithForward() throws IOException {
         // given
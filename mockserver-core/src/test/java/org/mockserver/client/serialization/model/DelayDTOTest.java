@@ -34,4 +34,13 @@ public class DelayDTOTest {
         assertThat(delay.getTimeUnit(), is(TimeUnit.DAYS));
         assertThat(delay.getValue(), is(5l));
     }
+
+    @Test
+    public void shouldBuildLatencyProfiles() {
+        assertThat(new DelayDTO(Delay.uniform(TimeUnit.MILLISECONDS, 10, 20)).buildObject(), is(Delay.uniform(TimeUnit.MILLISECONDS, 10, 20)));
+        assertThat(new DelayDTO(Delay.normal(TimeUnit.MILLISECONDS, 10, 2)).buildObject(), is(Delay.normal(TimeUnit.MILLISECONDS, 10, 2)));
+        assertThat(new DelayDTO(Delay.logNormal(TimeUnit.MILLISECONDS, 10, 200)).buildObject(), is(Delay.logNormal(TimeUnit.MILLISECONDS, 10, 200)));
+        assertThat(new DelayDTO(Delay.percentiles(TimeUnit.MILLISECONDS, 10, 20, 30, 40)).buildObject(), is(Delay.percentiles(TimeUnit.MILLISECONDS, 10, 20, 30, 40)));
+        assertThat(new DelayDTO(new Delay(TimeUnit.MILLISECONDS, 10)).buildObject(), is(new Delay(TimeUnit.MILLISECONDS, 10)));
+    }
 }
@@ -0,0 +1,37 @@
+package org.mockserver.client.serialization.model;
+
+import org.junit.Test;
+import org.mockserver.model.Delay;
+import org.mockserver.model.Throttle;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author jamesdbloom
+ */
+public class ThrottleDTOTest {
+
+    @Test
+    public void shouldReturnValueSetInConstructor() {
+        // when
+        ThrottleDTO throttle = new ThrottleDTO(new Throttle().withBytesPerSecond(1024).withChunkSize(128).withChunkDelay(new Delay(TimeUnit.MILLISECONDS, 5)));
+
+        // then
+        assertThat(throttle.getBytesPerSecond(), is(1024l));
+        assertThat(throttle.getChunkSize(), is(128));
+        assertThat(throttle.getChunkDelay(), is(new DelayDTO(new Delay(TimeUnit.MILLISECONDS, 5))));
+    }
+
+    @Test
+    public void shouldBuildCorrectObject() {
+        // given
+        Throttle throttle = new Throttle().withBytesPerSecond(1024).withChunkSize(128).withChunkDelay(Delay.uniform(TimeUnit.MILLISECONDS, 5, 10));
+
+        // then
+        assertThat(new ThrottleDTO(throttle).buildObject(), is(throttle));
+        assertThat(new ThrottleDTO(new Throttle()).buildObject(), is(new Throttle()));
+    }
+}
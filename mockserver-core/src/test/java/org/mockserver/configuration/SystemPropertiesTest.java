@@ -11,6 +11,7 @@ import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author jamesdbloom
@@ -77,6 +78,55 @@ public class SystemPropertiesTest {
         SystemProperties.bufferSize();
     }
 
+    @Test
+    public void shouldSetAndReadRegexCacheSize() {
+        // given
+        System.clearProperty("mockserver.regexCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_REGEX_CACHE_SIZE, SystemProperties.regexCacheSize());
+        SystemProperties.regexCacheSize(100);
+
+        // then
+        assertEquals(100, SystemProperties.regexCacheSize());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowRuntimeExceptionForInvalidRegexCacheSize() {
+        // given
+        System.setProperty("mockserver.regexCacheSize", "invalid");
+
+        // then
+        SystemProperties.regexCacheSize();
+    }
+
+    @Test
+    public void shouldSetAndReadMatchCacheSize() {
+        // given
+        System.clearProperty("mockserver.matchCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_MATCH_CACHE_SIZE, SystemProperties.matchCacheSize());
+        SystemProperties.matchCacheSize(100);
+
+        // then
+        assertEquals(100, SystemProperties.matchCacheSize());
+    }
+
+    @Test
+    public void shouldSetAndReadDelaySeed() {
+        // given
+        System.clearProperty("mockserver.delaySeed");
+
+        // when
+        assertNull(SystemProperties.delaySeed());
+        SystemProperties.delaySeed(100);
+
+        // then
+        assertEquals(new Long(100), SystemProperties.delaySeed());
+        System.clearProperty("mockserver.delaySeed");
+    }
+
     @Test
     public void shouldSetAndReadServerStopPort() {
         // given
@@ -156,4 +206,134 @@ public class SystemPropertiesTest {
         // then
         SystemProperties.socksPort();
     }
+
+    @Test
+    public void shouldSetAndReadForwardedBodyLogLimit() {
+        // given
+        System.clearProperty("mockserver.forwardedBodyLogLimit");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_FORWARDED_BODY_LOG_LIMIT, SystemProperties.forwardedBodyLogLimit());
+        SystemProperties.forwardedBodyLogLimit(10);
+
+        // then
+        assertEquals(10, SystemProperties.forwardedBodyLogLimit());
+    }
+
+    @Test
+    public void shouldSetAndReadStreamForwardedRequestBody() {
+        // given
+        System.clearProperty("mockserver.streamForwardedRequestBody");
+
+        // when
+        assertEquals(false, SystemProperties.streamForwardedRequestBody());
+        SystemProperties.streamForwardedRequestBody(true);
+
+        // then
+        assertEquals(true, SystemProperties.streamForwardedRequestBody());
+    }
+
+    @Test
+    public void shouldSetAndReadForwardedResponseMaxSize() {
+        // given
+        System.clearProperty("mockserver.forwardedResponseMaxSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_FORWARDED_RESPONSE_MAX_SIZE, SystemProperties.forwardedResponseMaxSize());
+        SystemProperties.forwardedResponseMaxSize(10);
+
+        // then
+        assertEquals(10, SystemProperties.forwardedResponseMaxSize());
+    }
+
+    @Test
+    public void shouldSetAndReadForwardedBodyLogHashed() {
+        // given
+        System.clearProperty("mockserver.forwardedBodyLogHashed");
+
+        // when
+        assertEquals(false, SystemProperties.forwardedBodyLogHashed());
+        SystemProperties.forwardedBodyLogHashed(true);
+
+        // then
+        assertEquals(true, SystemProperties.forwardedBodyLogHashed());
+    }
+
+    @Test
+    public void shouldSetAndReadSslSessionCacheSize() {
+        // given
+        System.clearProperty("mockserver.sslSessionCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_SSL_SESSION_CACHE_SIZE, SystemProperties.sslSessionCacheSize());
+        SystemProperties.sslSessionCacheSize(10);
+
+        // then
+        assertEquals(10, SystemProperties.sslSessionCacheSize());
+    }
+
+    @Test
+    public void shouldSetAndReadSslSessionTimeout() {
+        // given
+        System.clearProperty("mockserver.sslSessionTimeout");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_SSL_SESSION_TIMEOUT, SystemProperties.sslSessionTimeout());
+        SystemProperties.sslSessionTimeout(10);
+
+        // then
+        assertEquals(10, SystemProperties.sslSessionTimeout());
+    }
+
+    @Test
+    public void shouldSetAndReadSslKeyStoreDirectory() {
+        // given
+        System.clearProperty("mockserver.sslKeyStoreDirectory");
+
+        // when
+        assertNull(SystemProperties.sslKeyStoreDirectory());
+        SystemProperties.sslKeyStoreDirectory("/tmp/mockserver");
+
+        // then
+        assertEquals("/tmp/mockserver", SystemProperties.sslKeyStoreDirectory());
+    }
+
+    @Test
+    public void shouldSetAndReadSslKeyAlgorithm() {
+        // given
+        System.clearProperty("mockserver.sslKeyAlgorithm");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_SSL_KEY_ALGORITHM, SystemProperties.sslKeyAlgorithm());
+        SystemProperties.sslKeyAlgorithm("EC");
+
+        // then
+        assertEquals("EC", SystemProperties.sslKeyAlgorithm());
+    }
+
+    @Test
+    public void shouldSetAndReadSslKeyPoolSize() {
+        // given
+        System.clearProperty("mockserver.sslKeyPoolSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_SSL_KEY_POOL_SIZE, SystemProperties.sslKeyPoolSize());
+        SystemProperties.sslKeyPoolSize(10);
+
+        // then
+        assertEquals(10, SystemProperties.sslKeyPoolSize());
+    }
+
+    @Test
+    public void shouldSetAndReadSslCertificateCacheSize() {
+        // given
+        System.clearProperty("mockserver.sslCertificateCacheSize");
+
+        // when
+        assertEquals(SystemProperties.DEFAULT_SSL_CERTIFICATE_CACHE_SIZE, SystemProperties.sslCertificateCacheSize());
+        SystemProperties.sslCertificateCacheSize(10);
+
+        // then
+        assertEquals(10, SystemProperties.sslCertificateCacheSize());
+    }
 }
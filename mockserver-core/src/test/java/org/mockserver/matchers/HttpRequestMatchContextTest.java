@@ -0,0 +1,98 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+import org.mockserver.model.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class HttpRequestMatchContextTest {
+
+    @Test
+    public void shouldOnlyReadHeadersCookiesAndQueryStringOnceForManyMatchers() {
+        // given
+        HttpRequest httpRequest = spy(new HttpRequest()
+                .withPath("/somepath")
+                .withQueryStringParameter(new Parameter("queryName", "queryValue"))
+                .withHeaders(new Header("headerName", "headerValue"))
+                .withCookies(new Cookie("cookieName", "cookieValue")));
+        HttpRequestMatchContext context = new HttpRequestMatchContext(httpRequest);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            assertTrue(new HttpRequestMatcher(new HttpRequest()
+                    .withQueryStringParameter(new Parameter("queryName", "queryValue"))
+                    .withHeaders(new Header("headerName", "headerValue"))
+                    .withCookies(new Cookie("cookieName", "cookieValue"))).matchesContext(context));
+        }
+
+        // then
+        verify(httpRequest, times(1)).getQueryStringParameters();
+        verify(httpRequest, times(1)).getHeaders();
+        verify(httpRequest, times(1)).getCookies();
+    }
+
+    @Test
+    public void shouldParseBodyOnce() {
+        // given
+        HttpRequestMatchContext jsonContext = new HttpRequestMatchContext(new HttpRequest().withBody("{ \"name\": \"value\" }"));
+        HttpRequestMatchContext xmlContext = new HttpRequestMatchContext(new HttpRequest().withBody("<element>value</element>"));
+
+        // then
+        assertNotNull(jsonContext.getBodyAsJson());
+        assertSame(jsonContext.getBodyAsJson(), jsonContext.getBodyAsJson());
+        assertNotNull(xmlContext.getBodyAsDocument());
+        assertSame(xmlContext.getBodyAsDocument(), xmlContext.getBodyAsDocument());
+        assertSame(jsonContext.getBodyAsParameters(), jsonContext.getBodyAsParameters());
+    }
+
+    @Test
+    public void shouldReturnNullForBodyThatCannotBeParsed() {
+        // given
+        HttpRequestMatchContext context = new HttpRequestMatchContext(new HttpRequest().withBody("not json or xml"));
+
+        // then
+        assertNull(context.getBodyAsJson());
+        assertNull(context.getBodyAsDocument());
+    }
+
+    @Test
+    public void shouldReturnEmptyBodyWhenRequestHasNoBody() {
+        // given
+        HttpRequestMatchContext context = new HttpRequestMatchContext(new HttpRequest());
+
+        // then
+        assertEquals("", context.getBodyAsString());
+        assertArrayEquals(new byte[0], context.getBodyAsBytes());
+    }
+
+    @Test
+    public void shouldMatchBinaryBody() {
+        // given
+        byte[] body = "some_bytes".getBytes();
+        HttpRequestMatchContext context = new HttpRequestMatchContext(new HttpRequest().withBody(new BinaryBody(body)));
+
+        // then
+        assertArrayEquals(body, context.getBodyAsBytes());
+        assertTrue(new HttpRequestMatcher(new HttpRequest().withBody(new BinaryBody(body))).matchesContext(context));
+        assertFalse(new HttpRequestMatcher(new HttpRequest().withBody(new BinaryBody("other_bytes".getBytes()))).matchesContext(context));
+    }
+
+    @Test
+    public void shouldEvaluateEqualBodyMatchersOnceForManyMatchers() {
+        // given
+        HttpRequestMatchContext context = new HttpRequestMatchContext(new HttpRequest().withPath("/somepath").withBody("{\"id\": 1}"));
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            assertTrue(new HttpRequestMatcher(new HttpRequest().withPath("/somepath").withBody(new StringBody("{\"id\": 1}", Body.Type.JSON))).matchesContext(context));
+        }
+        assertFalse(new HttpRequestMatcher(new HttpRequest().withPath("/somepath").withBody(new StringBody("{\"id\": 2}", Body.Type.JSON))).matchesContext(context));
+
+        // then
+        assertEquals(2, context.resultCount());
+    }
+}
@@ -6,6 +6,9 @@ import org.mockserver.model.*;
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.StringBody.regex;
 import static org.mockserver.model.StringBody.xpath;
@@ -273,4 +276,31 @@ public class HttpRequestMatcherTest {
                 ).toString()
         );
     }
+
+    @Test
+    public void doesNotEvaluateRemainingFieldsAfterMethodDoesNotMatch() {
+        // given
+        HttpRequest httpRequest = spy(new HttpRequest().withMethod("POST").withPath("somePath").withBody("some_body"));
+
+        // when
+        assertFalse(new HttpRequestMatcher(new HttpRequest().withMethod("GET").withPath("somePath").withBody(xpath("/element"))).matches(httpRequest));
+
+        // then
+        verify(httpRequest, never()).getPath();
+        verify(httpRequest, never()).getHeaders();
+        verify(httpRequest, never()).getCookies();
+        verify(httpRequest, never()).getBody();
+    }
+
+    @Test
+    public void doesNotEvaluateBodyAfterHeadersDoNotMatch() {
+        // given
+        HttpRequest httpRequest = spy(new HttpRequest().withPath("somePath").withHeaders(new Header("name", "otherValue")).withBody("some_body"));
+
+        // when
+        assertFalse(new HttpRequestMatcher(new HttpRequest().withPath("somePath").withHeaders(new Header("name", "value")).withBody(xpath("/element"))).matches(httpRequest));
+
+        // then
+        verify(httpRequest, never()).getBody();
+    }
 }
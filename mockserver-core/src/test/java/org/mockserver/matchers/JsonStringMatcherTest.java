@@ -361,6 +361,31 @@ public class JsonStringMatcherTest {
         assertFalse(new JsonStringMatcher("some_value").matches(""));
     }
 
+    @Test
+    public void shouldMatchArraysOfObjectsInAnyOrder() {
+        assertTrue(new JsonStringMatcher("[{ \"id\": 2 }, { \"id\": 1 }]").matches("[{ \"id\": 1, \"name\": \"one\" }, { \"id\": 2, \"name\": \"two\" }]"));
+        assertTrue(new JsonStringMatcher("{ \"values\": [3, 1, 2] }").matches("{ \"values\": [1, 2, 3] }"));
+    }
+
+    @Test
+    public void shouldNotMatchArraysOfDifferentLength() {
+        assertFalse(new JsonStringMatcher("{ \"values\": [1, 2] }").matches("{ \"values\": [1, 2, 3] }"));
+        assertFalse(new JsonStringMatcher("{ \"values\": [1, 1] }").matches("{ \"values\": [1, 2] }"));
+    }
+
+    @Test
+    public void shouldMatchNumbersByValue() {
+        assertTrue(new JsonStringMatcher("{ \"value\": 1 }").matches("{ \"value\": 1.0 }"));
+        assertFalse(new JsonStringMatcher("{ \"value\": 1 }").matches("{ \"value\": \"1\" }"));
+    }
+
+    @Test
+    public void shouldNotMatchDifferentTypes() {
+        assertFalse(new JsonStringMatcher("{ \"value\": {} }").matches("{ \"value\": [] }"));
+        assertFalse(new JsonStringMatcher("{ \"value\": null }").matches("{ \"other\": null }"));
+        assertTrue(new JsonStringMatcher("{ \"value\": null }").matches("{ \"value\": null }"));
+    }
+
     @Test
     public void showHaveCorrectEqualsBehaviour(){
         assertEquals(new JsonStringMatcher("some_value"), new JsonStringMatcher("some_value"));
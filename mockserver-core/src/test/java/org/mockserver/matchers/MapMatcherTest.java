@@ -10,6 +10,7 @@ import org.mockserver.model.KeyToMultiValue;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -259,4 +260,61 @@ public class MapMatcherTest {
         // then
         assertFalse(mapMatcher.matches(keyToMultiValues));
     }
+
+    @Test
+    public void matchesValuesFromRepeatedKeys() {
+        // given
+        multimap.put("foo", "bar1");
+        multimap.put("foo", "bar2");
+
+        // when
+        keyToMultiValues.add(new KeyToMultiValue("foo", "bar1"));
+        keyToMultiValues.add(new KeyToMultiValue("FOO", "bar2"));
+
+        // then
+        assertTrue(mapMatcher.matches(keyToMultiValues));
+    }
+
+    @Test
+    public void matchesRegexKeyInMatchedValues() {
+        // given
+        multimap.put("foo", "bar");
+
+        // when
+        keyToMultiValues.add(new KeyToMultiValue("f.*", "bar"));
+
+        // then
+        assertTrue(mapMatcher.matches(keyToMultiValues));
+    }
+
+    @Test
+    public void doesNotMatchMissingLiteralKey() {
+        // given
+        multimap.put("foo", "bar");
+        multimap.put("baz", "qux");
+
+        // when
+        keyToMultiValues.add(new KeyToMultiValue("foo", "bar"));
+
+        // then
+        assertFalse(mapMatcher.matches(keyToMultiValues));
+    }
+
+    @Test
+    public void sharesResultOfEqualEntriesAcrossMatchers() {
+        // given
+        CaseInsensitiveRegexMultiMap first = new CaseInsensitiveRegexMultiMap();
+        first.put("foo", "bar");
+        first.put("baz", "qux");
+        CaseInsensitiveRegexMultiMap second = new CaseInsensitiveRegexMultiMap();
+        second.put("foo", "bar");
+        keyToMultiValues.add(new KeyToMultiValue("foo", "bar"));
+        keyToMultiValues.add(new KeyToMultiValue("baz", "qux"));
+        KeyToMultiValueIndex index = new KeyToMultiValueIndex(keyToMultiValues);
+
+        // then
+        assertTrue(new MapMatcher(first).matches(index));
+        assertTrue(new MapMatcher(second).matches(index));
+        assertEquals(2, index.resultCount());
+    }
 }
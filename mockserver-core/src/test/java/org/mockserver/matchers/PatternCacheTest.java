@@ -0,0 +1,31 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class PatternCacheTest {
+
+    @Test
+    public void shouldReturnSameCompiledPattern() {
+        assertSame(PatternCache.compile("some_[a-z]{5}", false).get(), PatternCache.compile("some_[a-z]{5}", false).get());
+        assertNotSame(PatternCache.compile("some_[a-z]{5}", false).get(), PatternCache.compile("some_[a-z]{5}", true).get());
+    }
+
+    @Test
+    public void shouldCacheInvalidRegexAsAbsent() {
+        assertFalse(PatternCache.compile("/{}", false).isPresent());
+        assertFalse(PatternCache.compile("/{}", true).isPresent());
+        assertFalse(PatternCache.matches("/{}", "/{}", false));
+    }
+
+    @Test
+    public void shouldMatchWithCaseSensitivity() {
+        assertTrue(PatternCache.matches("some_[a-z]{5}", "some_value", false));
+        assertFalse(PatternCache.matches("some_[a-z]{5}", "SOME_VALUE", false));
+        assertTrue(PatternCache.matches("some_[a-z]{5}", "SOME_VALUE", true));
+    }
+}
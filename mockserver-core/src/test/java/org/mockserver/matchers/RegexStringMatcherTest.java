@@ -2,6 +2,7 @@ package org.mockserver.matchers;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -66,4 +67,44 @@ public class RegexStringMatcherTest {
     public void shouldHandleIllegalRegexPatternForTest() {
         assertFalse(new RegexStringMatcher("some_value").matches("/{}"));
     }
+
+    @Test
+    public void shouldMatchIgnoringCase() {
+        assertTrue(RegexStringMatcher.matches("Some_Value", "sOME_vALUE", true));
+        assertTrue(RegexStringMatcher.matches("Some_[A-Z]{5}", "some_value", true));
+        assertTrue(RegexStringMatcher.matches("some_value", "SOME_[a-z]{5}", true));
+        assertFalse(RegexStringMatcher.matches("Some_Value", "sOME_vALUE", false));
+        assertFalse(RegexStringMatcher.matches("Some_[A-Z]{5}", "some_value", false));
+    }
+
+    @Test
+    public void shouldHandleIllegalRegexPatternIgnoringCase() {
+        assertFalse(RegexStringMatcher.matches("/{}", "/{}", true));
+        assertFalse(RegexStringMatcher.matches("/{}", "some_value", true));
+        assertFalse(RegexStringMatcher.matches("some_value", "/{}", true));
+    }
+
+    @Test
+    public void shouldIdentifyLiteralValues() {
+        assertTrue(RegexStringMatcher.isLiteral("/some_path/some-value"));
+        assertFalse(RegexStringMatcher.isLiteral("/some_path/.*"));
+        assertFalse(RegexStringMatcher.isLiteral("some_[a-z]{5}"));
+        assertFalse(RegexStringMatcher.isLiteral(""));
+        assertFalse(RegexStringMatcher.isLiteral(null));
+    }
+
+    @Test
+    public void shouldReturnLiteralPrefix() {
+        assertEquals("/api/v", RegexStringMatcher.literalPrefix("/api/v[0-9]+/accounts/.*"));
+        assertEquals("/some_path", RegexStringMatcher.literalPrefix("/some_path"));
+        assertEquals("/some_path", RegexStringMatcher.literalPrefix("/some_paths?"));
+        assertEquals("/some_path", RegexStringMatcher.literalPrefix("/some_paths*"));
+        assertEquals("/some_path", RegexStringMatcher.literalPrefix("/some_paths{0,2}"));
+        assertEquals("/some_paths", RegexStringMatcher.literalPrefix("/some_paths+"));
+        assertEquals("", RegexStringMatcher.literalPrefix("/some_path|/other_path"));
+        assertEquals("", RegexStringMatcher.literalPrefix(".*"));
+        assertEquals("", RegexStringMatcher.literalPrefix("a?"));
+        assertEquals("", RegexStringMatcher.literalPrefix(""));
+        assertEquals("", RegexStringMatcher.literalPrefix(null));
+    }
 }
@@ -0,0 +1,150 @@
+package org.mockserver.matchers;
+
+import org.junit.Test;
+import org.mockserver.model.Body;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.StringBody;
+
+import static org.junit.Assert.*;
+import static org.mockserver.model.StringBody.xpath;
+
+/**
+ * @author jamesdbloom
+ */
+public class StreamingXPathMatcherTest {
+
+    private static final String[] DOCUMENTS = new String[]{
+            "<element><key>some_key</key><value>some_value</value></element>",
+            "<Envelope><Header/><Body><order id=\"1\" type='book'><item>one</item><item>two</item></order></Body></Envelope>",
+            "<Envelope><Body><wrapper><order id=\"2\"><item><![CDATA[three]]></item></order></wrapper></Body></Envelope>",
+            "<a><b>text<c/>other</b><b><!-- comment -->split &amp; text</b></a>",
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><order/></soap:Body></soap:Envelope>",
+            "<Envelope xmlns=\"urn:some\"><Body><order id=\"1\"/></Body></Envelope>",
+            "<x:Envelope><x:Body x:id=\"1\"><order/></x:Body></x:Envelope>",
+            "not xml"
+    };
+
+    private static final String[] EXPRESSIONS = new String[]{
+            "/element",
+            "/element/key",
+            "/element/key[text()='some_key']",
+            "/element/key[text()='some_value']",
+            "/element/missing",
+            "/key",
+            "//key",
+            "//order",
+            "/Envelope/Body/order",
+            "/Envelope/Body//order",
+            "/Envelope//order[@id='2']",
+            "//order[@id]",
+            "//order[@id='1'][@type='book']",
+            "//order[@id='1'][@type='cd']",
+            "//order[@missing]",
+            "//order/item[text()='two']",
+            "//order/item[text()=\"three\"]",
+            "//*[@id='2']/item",
+            "/*/*",
+            "/a/b[text()='text']",
+            "/a/b[text()='other']",
+            "/a/b[text()='split & text']",
+            "/a/b[text()='textother']",
+            "//Body",
+            "//Envelope",
+            "/Envelope//order",
+            "//Body/order",
+            "/*/Body[@id='1']",
+            "//*[@id]"
+    };
+
+    @Test
+    public void shouldMatchSameAsXPathStringMatcher() {
+        for (String expression : EXPRESSIONS) {
+            assertTrue(expression, StreamingXPathMatcher.isSupported(expression));
+            for (String document : DOCUMENTS) {
+                assertEquals(expression + " against " + document,
+                        new XPathStringMatcher(expression).matches(document),
+                        new StreamingXPathMatcher(expression).matches(document));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotSupportOtherExpressions() {
+        assertFalse(StreamingXPathMatcher.isSupported(null));
+        assertFalse(StreamingXPathMatcher.isSupported(""));
+        assertFalse(StreamingXPathMatcher.isSupported("/"));
+        assertFalse(StreamingXPathMatcher.isSupported("element"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element[key = 'some_key' and value = 'some_value']"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element[key]"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element[1]"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element/@id"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element/text()"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element[text()='value']/key"));
+        assertFalse(StreamingXPathMatcher.isSupported("/soap:Envelope"));
+        assertFalse(StreamingXPathMatcher.isSupported("count(/element) = 1"));
+        assertFalse(StreamingXPathMatcher.isSupported("/element[@id='1'"));
+    }
+
+    @Test
+    public void shouldNotSupportAbbreviatedStepsOrInvalidNames() {
+        String[] expressions = new String[]{
+                "/.",
+                "//.",
+                "/..",
+                "/element/.",
+                "/element/key/..",
+                "//key/..",
+                "/element/./key",
+                "/1element",
+                "/-element",
+                "/.element",
+                "//order[@1id]",
+                "//order[@.]"
+        };
+        for (String expression : expressions) {
+            assertFalse(expression, StreamingXPathMatcher.isSupported(expression));
+        }
+
+        // and - are matched by XPathStringMatcher
+        for (String expression : new String[]{"/.", "//.", "/element/.", "/element/key/..", "//key/..", "/element/./key"}) {
+            for (String document : DOCUMENTS) {
+                assertEquals(expression + " against " + document,
+                        new XPathStringMatcher(expression).matches(document),
+                        new HttpRequestMatcher(new HttpRequest().withBody(xpath(expression))).matches(new HttpRequest().withBody(new StringBody(document, Body.Type.EXACT))));
+            }
+        }
+    }
+
+    @Test
+    public void shouldSupportNamesWithDotsDashesAndDigits() {
+        assertTrue(StreamingXPathMatcher.isSupported("/element.name/key-1/_value"));
+        assertTrue(new StreamingXPathMatcher("/element.name/key-1").matches("<element.name><key-1/></element.name>"));
+        assertFalse(new StreamingXPathMatcher("/element.name/key-1").matches("<element.name><key-2/></element.name>"));
+    }
+
+    @Test
+    public void shouldMatchMatchingString() {
+        assertTrue(new StreamingXPathMatcher("/element").matches("/element"));
+        assertFalse(new StreamingXPathMatcher("/element").matches(null));
+        assertFalse(new StreamingXPathMatcher("/element").matches(""));
+    }
+
+    @Test
+    public void shouldStopReadingOnceMatched() {
+        assertTrue(new StreamingXPathMatcher("/element/key").matches("<element><key/><unclosed>"));
+    }
+
+    @Test
+    public void shouldStreamPrefixedDocumentWhenPrefixedNamesCannotMatch() {
+        // malformed after the match, so only matches if the document was streamed
+        String matched = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><order id=\"1\"/><unclosed>";
+
+        assertTrue(new StreamingXPathMatcher("//order[@id='1']").matches(matched));
+        assertFalse(new StreamingXPathMatcher("/Envelope/Body/order").matches(matched));
+    }
+
+    @Test
+    public void showHaveCorrectEqualsBehaviour() {
+        assertEquals(new StreamingXPathMatcher("/element"), new StreamingXPathMatcher("/element"));
+    }
+}
@@ -2,6 +2,8 @@ package org.mockserver.matchers;
 
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
@@ -31,4 +33,57 @@ public class TimesTest {
         times.decrement().decrement();
         assertThat(times.greaterThenZero(), is(false));
     }
+
+    @Test
+    public void shouldClaimRemainingTimes() {
+        // given
+        Times times = Times.exactly(2);
+
+        // then
+        assertThat(times.claim(), is(true));
+        assertThat(times.claim(), is(true));
+        assertThat(times.claim(), is(false));
+        assertThat(times.getRemainingTimes(), is(0));
+        assertThat(Times.unlimited().claim(), is(true));
+    }
+
+    @Test
+    public void shouldNotOverClaimWhenUsedConcurrently() throws Exception {
+        // given
+        final Times times = Times.exactly(1000);
+        final AtomicInteger claimed = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 500; j++) {
+                        if (times.claim()) {
+                            claimed.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+
+        // when
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        assertThat(claimed.get(), is(1000));
+        assertThat(times.greaterThenZero(), is(false));
+    }
+
+    @Test
+    public void shouldBeEqualWhenSameRemainingTimes() {
+        assertThat(Times.exactly(2).equals(Times.exactly(2)), is(true));
+        assertThat(Times.exactly(2).equals(Times.exactly(1)), is(false));
+        assertThat(Times.unlimited().equals(Times.unlimited()), is(true));
+        assertThat(Times.unlimited().equals(Times.exactly(0)), is(false));
+        assertThat(Times.unlimited().setNotUnlimitedResponses().equals(Times.once()), is(true));
+    }
 }
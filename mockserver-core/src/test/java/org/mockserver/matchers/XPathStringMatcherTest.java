@@ -2,6 +2,13 @@ package org.mockserver.matchers;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -63,6 +70,37 @@ public class XPathStringMatcherTest {
         assertFalse(new XPathStringMatcher("some_value").matches(""));
     }
 
+    @Test
+    public void shouldMatchConcurrently() throws Exception {
+        // given
+        final XPathStringMatcher xPathStringMatcher = new XPathStringMatcher("/element[key = 'some_key']");
+        final String matching = "<element><key>some_key</key></element>";
+        final String notMatching = "<element><key>some_other_key</key></element>";
+        final AtomicInteger incorrectResults = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executorService.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 250; i++) {
+                        if (!xPathStringMatcher.matches(matching) || xPathStringMatcher.matches(notMatching)) {
+                            incorrectResults.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        // then
+        assertEquals(0, incorrectResults.get());
+    }
+
     @Test
     public void showHaveCorrectEqualsBehaviour(){
         assertEquals(new XPathStringMatcher("some_value"), new XPathStringMatcher("some_value"));
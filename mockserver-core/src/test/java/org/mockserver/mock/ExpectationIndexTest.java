@@ -0,0 +1,187 @@
+package org.mockserver.mock;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpRequest;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class ExpectationIndexTest {
+
+    private ExpectationIndex expectationIndex;
+
+    @Before
+    public void prepareTestFixture() {
+        expectationIndex = new ExpectationIndex();
+    }
+
+    private Expectation add(HttpRequest httpRequest) {
+        Expectation expectation = new Expectation(httpRequest, Times.unlimited());
+        expectationIndex.add(expectation);
+        return expectation;
+    }
+
+    @Test
+    public void shouldOnlyReturnExpectationsWithSameLiteralPath() {
+        // given
+        Expectation somePath = add(new HttpRequest().withPath("/somepath"));
+        add(new HttpRequest().withPath("/otherpath"));
+
+        // then
+        assertEquals(Arrays.asList(somePath), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/somepath"))));
+        assertEquals(Arrays.asList(), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/notindexed"))));
+    }
+
+    @Test
+    public void shouldReturnLiteralAndRegexExpectationsInInsertionOrder() {
+        // given
+        Expectation regexPath = add(new HttpRequest().withPath("/some.*"));
+        Expectation literalPathGet = add(new HttpRequest().withMethod("GET").withPath("/somepath"));
+        Expectation emptyPath = add(new HttpRequest().withMethod("GET"));
+        Expectation literalPathAnyMethod = add(new HttpRequest().withPath("/somepath"));
+        Expectation literalPathRegexMethod = add(new HttpRequest().withMethod("GET|POST").withPath("/somepath"));
+        add(new HttpRequest().withMethod("POST").withPath("/somepath"));
+
+        // then
+        assertEquals(Arrays.asList(regexPath, literalPathGet, emptyPath, literalPathAnyMethod, literalPathRegexMethod), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withMethod("GET").withPath("/somepath"))));
+        assertEquals(Arrays.asList(regexPath, emptyPath, literalPathAnyMethod, literalPathRegexMethod), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/somepath"))));
+    }
+
+    @Test
+    public void shouldReturnAllExpectationsWhenRequestIsNotLiteral() {
+        // given
+        Expectation somePath = add(new HttpRequest().withPath("/somepath"));
+        Expectation otherPath = add(new HttpRequest().withMethod("GET").withPath("/otherpath"));
+
+        // then
+        assertEquals(Arrays.asList(somePath, otherPath), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/.*path"))));
+        assertEquals(Arrays.asList(somePath, otherPath), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withMethod("G.T").withPath("/somepath"))));
+        assertEquals(Arrays.asList(somePath, otherPath), Lists.newArrayList(expectationIndex.candidates(null)));
+    }
+
+    @Test
+    public void shouldReturnLiteralExpectationsDottedRequestPathCouldMatchAndRegexExpectations() {
+        // given
+        Expectation sameLength = add(new HttpRequest().withPath("/indexxhtml"));
+        add(new HttpRequest().withPath("/indexxhtmlx"));
+        add(new HttpRequest().withPath("/otherxhtml"));
+        Expectation dottedPath = add(new HttpRequest().withPath("/index.html"));
+        Expectation regexPath = add(new HttpRequest().withMethod("GET").withPath("/index.*"));
+        add(new HttpRequest().withPath("/other.*"));
+        Expectation emptyPath = add(new HttpRequest());
+        Expectation sameLengthWithMethod = add(new HttpRequest().withMethod("POST").withPath("/index_html"));
+
+        // then
+        assertEquals(Arrays.asList(sameLength, dottedPath, regexPath, emptyPath, sameLengthWithMethod), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withMethod("GET").withPath("/index.html"))));
+        assertEquals(Arrays.asList(sameLength, dottedPath, regexPath, emptyPath, sameLengthWithMethod), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/index.html"))));
+    }
+
+    @Test
+    public void shouldStopReturningRemovedLiteralExpectationForDottedRequestPath() {
+        // given
+        Expectation literalPath = add(new HttpRequest().withPath("/abc"));
+
+        // when
+        expectationIndex.remove(literalPath);
+
+        // then
+        assertEquals(Arrays.asList(), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/a.c"))));
+    }
+
+    @Test
+    public void shouldRemoveExpectationByIdentity() {
+        // given
+        Expectation first = add(new HttpRequest().withPath("/somepath"));
+        Expectation second = add(new HttpRequest().withPath("/somepath"));
+        Expectation regex = add(new HttpRequest().withPath("/some.*"));
+
+        // when
+        assertTrue(expectationIndex.remove(second));
+        assertTrue(expectationIndex.remove(regex));
+        assertFalse(expectationIndex.remove(regex));
+
+        // then
+        assertEquals(Arrays.asList(first), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/somepath"))));
+        assertEquals(Arrays.asList(first), expectationIndex.expectations());
+    }
+
+    @Test
+    public void shouldReturnExpectationsSharingIndexKey() {
+        // given
+        Expectation first = add(new HttpRequest().withMethod("GET").withPath("/somepath"));
+        add(new HttpRequest().withMethod("POST").withPath("/somepath"));
+        Expectation regex = add(new HttpRequest().withPath("/some.*"));
+
+        // then
+        assertEquals(Arrays.asList(first), expectationIndex.sharingIndexKey(new HttpRequest().withMethod("GET").withPath("/somepath")));
+        assertEquals(Arrays.asList(regex), expectationIndex.sharingIndexKey(new HttpRequest().withPath("/some.*")));
+    }
+
+    @Test
+    public void shouldClearAllExpectations() {
+        // given
+        add(new HttpRequest().withPath("/somepath"));
+        add(new HttpRequest().withPath("/some.*"));
+
+        // when
+        expectationIndex.clear();
+
+        // then
+        assertEquals(0, expectationIndex.size());
+        assertEquals(Arrays.asList(), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/somepath"))));
+    }
+
+    @Test
+    public void shouldIterateSnapshotWhenModifiedDuringIteration() {
+        // given
+        Expectation first = add(new HttpRequest().withPath("/somepath"));
+        Expectation second = add(new HttpRequest().withPath("/somepath"));
+        Iterator<Expectation> candidates = expectationIndex.candidates(new HttpRequest().withPath("/somepath")).iterator();
+
+        // when
+        expectationIndex.remove(second);
+        add(new HttpRequest().withPath("/somepath"));
+
+        // then
+        assertEquals(Arrays.asList(first, second), Lists.newArrayList(candidates));
+    }
+
+    @Test
+    public void shouldOnlyReturnRegexPathExpectationsWithMatchingLiteralPrefix() {
+        // given
+        Expectation accounts = add(new HttpRequest().withPath("/api/v[0-9]+/accounts/.*"));
+        Expectation orders = add(new HttpRequest().withPath("/api/v[0-9]+/orders/.*"));
+        Expectation api = add(new HttpRequest().withPath("/api.*"));
+        add(new HttpRequest().withPath("/other/.*"));
+        Expectation noPrefix = add(new HttpRequest().withPath(".*/accounts/.*"));
+
+        // then
+        assertEquals(Arrays.asList(accounts, orders, api, noPrefix), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/api/v1/accounts/1"))));
+        assertEquals(Arrays.asList(noPrefix), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/ap"))));
+    }
+
+    @Test
+    public void shouldRemoveRegexPathExpectation() {
+        // given
+        Expectation first = add(new HttpRequest().withPath("/api/.*"));
+        Expectation second = add(new HttpRequest().withPath("/api/v[0-9]+/.*"));
+
+        // when
+        assertTrue(expectationIndex.remove(second));
+
+        // then
+        assertEquals(Arrays.asList(first), Lists.newArrayList(expectationIndex.candidates(new HttpRequest().withPath("/api/v1/accounts"))));
+        assertEquals(Arrays.asList(first), expectationIndex.sharingIndexKey(new HttpRequest().withPath("/api/.*")));
+        assertEquals(Arrays.asList(), expectationIndex.sharingIndexKey(new HttpRequest().withPath("/api/v[0-9]+/.*")));
+    }
+}
@@ -0,0 +1,156 @@
+package org.mockserver.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.matchers.HttpRequestMatchContext;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author jamesdbloom
+ */
+public class MatchResultCacheTest {
+
+    private MatchResultCache matchResultCache;
+    private Expectation expectation;
+
+    @Before
+    public void prepareTestFixture() {
+        matchResultCache = new MatchResultCache(100);
+        expectation = new Expectation(new HttpRequest().withPath("somepath").withHeaders(new Header("Accept", "text/plain")), Times.unlimited());
+        matchResultCache.added(expectation);
+    }
+
+    private HttpRequestMatchContext context(HttpRequest httpRequest) {
+        return new HttpRequestMatchContext(httpRequest);
+    }
+
+    @Test
+    public void shouldReturnExpectationForRequestWithSameFingerprint() {
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath").withBody("somebody")), expectation);
+
+        // then
+        assertSame(expectation, matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withBody("somebody"))));
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("otherpath").withBody("somebody"))));
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withBody("otherbody"))));
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withMethod("POST").withBody("somebody"))));
+    }
+
+    @Test
+    public void shouldOnlyIncludeHeadersThatExpectationsMatchOn() {
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath").withHeaders(new Header("Accept", "text/plain"), new Header("Date", "today"))), expectation);
+
+        // then
+        assertSame(expectation, matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withHeaders(new Header("accept", "text/plain"), new Header("Date", "tomorrow")))));
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withHeaders(new Header("Accept", "text/html"), new Header("Date", "today")))));
+    }
+
+    @Test
+    public void shouldIncludeAllHeadersWhenAnExpectationHasRegexHeaderName() {
+        // given
+        matchResultCache.added(new Expectation(new HttpRequest().withHeaders(new Header("X-.*", "value")), Times.unlimited()));
+
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath").withHeaders(new Header("Date", "today"))), expectation);
+
+        // then
+        assertSame(expectation, matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withHeaders(new Header("Date", "today")))));
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath").withHeaders(new Header("Date", "tomorrow")))));
+    }
+
+    @Test
+    public void shouldNotCacheLimitedExpectations() {
+        // given
+        Expectation limitedExpectation = new Expectation(new HttpRequest().withPath("somepath"), Times.exactly(2));
+
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath")), limitedExpectation);
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+    }
+
+    @Test
+    public void shouldNotReturnExpectationThatIsNoLongerUnlimited() {
+        // given
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath")), expectation);
+
+        // when
+        expectation.setNotUnlimitedResponses();
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+    }
+
+    @Test
+    public void shouldInvalidateResultsWhenExpectationsChange() {
+        // given
+        MatchResultCache.Epoch epoch = matchResultCache.epoch();
+        epoch.put(context(new HttpRequest().withPath("somepath")), expectation);
+
+        // when
+        matchResultCache.added(new Expectation(new HttpRequest().withPath("otherpath"), Times.unlimited()));
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath")), expectation);
+        matchResultCache.removed();
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+
+        // when
+        matchResultCache.epoch().put(context(new HttpRequest().withPath("somepath")), expectation);
+        matchResultCache.reset();
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+    }
+
+    @Test
+    public void shouldNotStoreResultsInLaterEpoch() {
+        // given
+        MatchResultCache.Epoch epoch = matchResultCache.epoch();
+
+        // when
+        matchResultCache.removed();
+        epoch.put(context(new HttpRequest().withPath("somepath")), expectation);
+
+        // then
+        assertNull(matchResultCache.epoch().get(context(new HttpRequest().withPath("somepath"))));
+    }
+
+    @Test
+    public void shouldRespondFromCacheUntilExpectationsChange() {
+        // given
+        MockServerMatcher mockServerMatcher = new MockServerMatcher();
+        HttpResponse firstResponse = new HttpResponse().withBody("first");
+        HttpResponse secondResponse = new HttpResponse().withBody("second");
+        mockServerMatcher.when(new HttpRequest().withPath("somepath")).thenRespond(firstResponse);
+
+        // then
+        assertEquals(firstResponse, mockServerMatcher.handle(new HttpRequest().withPath("somepath")));
+        assertEquals(firstResponse, mockServerMatcher.handle(new HttpRequest().withPath("somepath")));
+
+        // when - the first expectation can now only be used once more
+        mockServerMatcher.when(new HttpRequest().withPath("somepath")).thenRespond(secondResponse);
+
+        // then
+        assertEquals(firstResponse, mockServerMatcher.handle(new HttpRequest().withPath("somepath")));
+        assertEquals(secondResponse, mockServerMatcher.handle(new HttpRequest().withPath("somepath")));
+
+        // when
+        mockServerMatcher.reset();
+
+        // then
+        assertNull(mockServerMatcher.handle(new HttpRequest().withPath("somepath")));
+    }
+}
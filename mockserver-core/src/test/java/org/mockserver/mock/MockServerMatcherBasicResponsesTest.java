@@ -42,6 +42,17 @@ public class MockServerMatcherBasicResponsesTest {
         assertEquals(httpResponse, mockServerMatcher.handle(new HttpRequest().withPath("somePath")));
     }
 
+    @Test
+    public void respondWhenDottedPathMatchesLiteralPathAsRegex() {
+        // when
+        mockServerMatcher.when(httpRequest.withPath("/abc")).thenRespond(httpResponse.withBody("someBody"));
+
+        // then
+        assertEquals(httpResponse, mockServerMatcher.handle(new HttpRequest().withPath("/a.c")));
+        assertEquals(httpResponse, mockServerMatcher.handle(new HttpRequest().withMethod("GET").withPath("/a.c")));
+        assertNull(mockServerMatcher.handle(new HttpRequest().withPath("/a.cd")));
+    }
+
     @Test
     public void doNotRespondWhenPathDoesNotMatch() {
         // when
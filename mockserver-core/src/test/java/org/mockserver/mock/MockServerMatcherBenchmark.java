@@ -0,0 +1,71 @@
+package org.mockserver.mock;
+
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+/**
+ * Measures the per-request latency of MockServerMatcher.handle() as the number of expectations grows, the
+ * latency should stay flat because literal path expectations are only compared against requests with that path
+ * and regex path expectations (one for every ten literal expectations) only against requests starting with the
+ * literal prefix of the regex, half the expectations and requests have a dotted path (e.g. /api/resource_1.json)
+ * which is measured separately as a '.' makes the expectation path a regex
+ *
+ * run with: java -cp <test classpath> org.mockserver.mock.MockServerMatcherBenchmark [iterations]
+ *
+ * @author jamesdbloom
+ */
+public class MockServerMatcherBenchmark {
+
+    private static final int[] EXPECTATION_COUNTS = new int[]{10, 100, 1000, 10000, 100000};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        System.out.println(String.format("%15s %30s %30s", "expectations", "literal path (ns/request)", "dotted path (ns/request)"));
+        for (int expectationCount : EXPECTATION_COUNTS) {
+            MockServerMatcher mockServerMatcher = createMockServerMatcher(expectationCount);
+            HttpRequest[] literalRequests = new HttpRequest[expectationCount / 2];
+            HttpRequest[] dottedRequests = new HttpRequest[expectationCount / 2];
+            for (int i = 0; i < expectationCount / 2; i++) {
+                literalRequests[i] = request(2 * i);
+                dottedRequests[i] = request(2 * i + 1);
+            }
+
+            // warm up
+            run(mockServerMatcher, literalRequests, iterations);
+            run(mockServerMatcher, dottedRequests, iterations);
+
+            long literalNanos = run(mockServerMatcher, literalRequests, iterations);
+            long dottedNanos = run(mockServerMatcher, dottedRequests, iterations);
+            System.out.println(String.format("%15d %30d %30d", expectationCount, literalNanos / iterations, dottedNanos / iterations));
+        }
+    }
+
+    private static MockServerMatcher createMockServerMatcher(int expectationCount) {
+        MockServerMatcher mockServerMatcher = new MockServerMatcher();
+        for (int i = 0; i < Math.max(expectationCount / 10, 5); i++) {
+            mockServerMatcher.when(new HttpRequest().withMethod("DELETE").withPath("/regex_" + i + "/.*")).thenRespond(new HttpResponse().withBody("regex_" + i));
+        }
+        for (int i = 0; i < expectationCount; i++) {
+            mockServerMatcher.when(request(i)).thenRespond(new HttpResponse().withBody("response_" + i));
+        }
+        return mockServerMatcher;
+    }
+
+    private static HttpRequest request(int i) {
+        return new HttpRequest()
+                .withMethod(i % 4 < 2 ? "GET" : "POST")
+                .withPath("/api/resource_" + i + (i % 2 == 0 ? "" : ".json"))
+                .withHeader(new Header("Accept", "application/json"));
+    }
+
+    private static long run(MockServerMatcher mockServerMatcher, HttpRequest[] requests, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (mockServerMatcher.handle(requests[i % requests.length]) == null) {
+                throw new IllegalStateException("request " + i + " did not match any expectation");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
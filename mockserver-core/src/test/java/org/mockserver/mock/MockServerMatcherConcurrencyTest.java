@@ -0,0 +1,127 @@
+package org.mockserver.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author jamesdbloom
+ */
+public class MockServerMatcherConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 1000;
+    private MockServerMatcher mockServerMatcher;
+    private ExecutorService executorService;
+
+    @Before
+    public void prepareTestFixture() {
+        mockServerMatcher = new MockServerMatcher();
+        executorService = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @Test
+    public void shouldMatchConcurrentlyWhileExpectationsAreAdded() throws Exception {
+        // given
+        final HttpResponse httpResponse = new HttpResponse().withBody("somebody");
+        mockServerMatcher.when(new HttpRequest().withPath("/somepath")).thenRespond(httpResponse);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            results.add(executorService.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    start.await();
+                    int matched = 0;
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        if (httpResponse.equals(mockServerMatcher.handle(new HttpRequest().withPath("/somepath")))) {
+                            matched++;
+                        }
+                    }
+                    return matched;
+                }
+            }));
+        }
+        Future<?> writer = executorService.submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    mockServerMatcher.when(new HttpRequest().withPath("/otherpath_" + i)).thenRespond(new HttpResponse().withBody("otherbody"));
+                }
+                return null;
+            }
+        });
+        start.countDown();
+
+        // then
+        for (Future<Integer> result : results) {
+            assertEquals(REQUESTS_PER_THREAD, result.get(30, TimeUnit.SECONDS).intValue());
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        assertEquals(REQUESTS_PER_THREAD + 1, mockServerMatcher.expectations.size());
+        executorService.shutdown();
+    }
+
+    @Test
+    public void shouldNotOverServeLimitedExpectationWhenMatchedConcurrently() throws Exception {
+        // given
+        final HttpResponse limitedResponse = new HttpResponse().withBody("limited");
+        mockServerMatcher.when(new HttpRequest().withPath("/somepath"), Times.exactly(REQUESTS_PER_THREAD)).thenRespond(limitedResponse);
+        mockServerMatcher.when(new HttpRequest().withPath("/some.*"), Times.unlimited()).thenRespond(new HttpResponse().withBody("unlimited"));
+        final CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            results.add(executorService.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    start.await();
+                    int matched = 0;
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        if (limitedResponse.equals(mockServerMatcher.handle(new HttpRequest().withPath("/somepath")))) {
+                            matched++;
+                        }
+                    }
+                    return matched;
+                }
+            }));
+        }
+        start.countDown();
+
+        // then
+        int matched = 0;
+        for (Future<Integer> result : results) {
+            matched += result.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(REQUESTS_PER_THREAD, matched);
+        assertEquals(1, mockServerMatcher.expectations.size());
+        executorService.shutdown();
+    }
+
+    @Test
+    public void shouldUnlinkUsedUpExpectationInBackground() throws Exception {
+        // given
+        Expectation expectation = mockServerMatcher.when(new HttpRequest().withPath("/somepath"), Times.once()).thenRespond(new HttpResponse());
+
+        // when
+        mockServerMatcher.handle(new HttpRequest().withPath("/somepath"));
+
+        // then
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (mockServerMatcher.expectations.isLinked(expectation) && System.currentTimeMillis() < timeout) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertFalse(mockServerMatcher.expectations.isLinked(expectation));
+        assertEquals(0, mockServerMatcher.expectations.size());
+    }
+}
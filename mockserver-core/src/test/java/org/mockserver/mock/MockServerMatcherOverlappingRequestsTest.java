@@ -50,4 +50,15 @@ public class MockServerMatcherOverlappingRequestsTest {
         assertEquals(httpResponse[1], mockServerMatcher.handle(new HttpRequest().withPath("somepath").withCookies(new Cookie("name", "value"))));
     }
 
+    @Test
+    public void respondWhenRegexPathAddedBeforeLiteralPathReturnFirstMatching() {
+        // when
+        mockServerMatcher.when(new HttpRequest().withPath("/some.*"), Times.once()).thenRespond(httpResponse[0].withBody("somebody1"));
+        mockServerMatcher.when(new HttpRequest().withPath("/somepath")).thenRespond(httpResponse[1].withBody("somebody2"));
+
+        // then
+        assertEquals(httpResponse[0], mockServerMatcher.handle(new HttpRequest().withPath("/somepath")));
+        assertEquals(httpResponse[1], mockServerMatcher.handle(new HttpRequest().withPath("/somepath")));
+    }
+
 }
@@ -0,0 +1,70 @@
+package org.mockserver.mock;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class PrefixTrieTest {
+
+    @Test
+    public void shouldCollectValuesOfEveryPrefixShortestFirst() {
+        // given
+        PrefixTrie<String> prefixTrie = new PrefixTrie<String>();
+        prefixTrie.add("/api/v", "one");
+        prefixTrie.add("/api/v", "two");
+        prefixTrie.add("/a", "three");
+        prefixTrie.add("/api/vx", "four");
+        prefixTrie.add("/other", "five");
+
+        // when
+        List<List<String>> result = new ArrayList<List<String>>();
+        prefixTrie.collectPrefixesOf("/api/v1", result);
+
+        // then
+        assertEquals(ImmutableList.of(ImmutableList.of("three"), ImmutableList.of("one", "two")), result);
+    }
+
+    @Test
+    public void shouldCollectValuesOfWholeInput() {
+        // given
+        PrefixTrie<String> prefixTrie = new PrefixTrie<String>();
+        prefixTrie.add("/api", "one");
+
+        // when
+        List<List<String>> result = new ArrayList<List<String>>();
+        prefixTrie.collectPrefixesOf("/api", result);
+
+        // then
+        assertEquals(ImmutableList.of(ImmutableList.of("one")), result);
+    }
+
+    @Test
+    public void shouldRemoveValues() {
+        // given
+        PrefixTrie<String> prefixTrie = new PrefixTrie<String>();
+        prefixTrie.add("/api/v", "one");
+        prefixTrie.add("/api", "two");
+
+        // when
+        assertTrue(prefixTrie.remove("/api/v", "one"));
+        assertFalse(prefixTrie.remove("/api/v", "one"));
+        assertFalse(prefixTrie.remove("/missing", "one"));
+
+        // then
+        List<List<String>> result = new ArrayList<List<String>>();
+        prefixTrie.collectPrefixesOf("/api/v1", result);
+        assertEquals(ImmutableList.of(ImmutableList.of("two")), result);
+        assertEquals(Arrays.<String>asList(), prefixTrie.get("/api/v"));
+        assertEquals(Arrays.asList("two"), prefixTrie.get("/api"));
+    }
+}
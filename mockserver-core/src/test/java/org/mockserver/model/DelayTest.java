@@ -2,10 +2,17 @@ package org.mockserver.model;
 
 import org.junit.Test;
 
+import org.mockserver.configuration.SystemProperties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author jamesdbloom
@@ -21,4 +28,140 @@ public class DelayTest {
         assertThat(delay.getTimeUnit(), is(TimeUnit.DAYS));
         assertThat(delay.getValue(), is(5l));
     }
+
+    @Test
+    public void shouldSampleFixedDelay() {
+        assertThat(new Delay(TimeUnit.SECONDS, 2).sampleMillis(), is(2000l));
+        assertThat(new Delay(TimeUnit.MICROSECONDS, 1500).sampleMillis(), is(1l));
+        assertThat(new Delay(null, 5).sampleMillis(), is(0l));
+    }
+
+    private double[] sortedSamples(Delay delay, int count) {
+        double[] samples = new double[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = delay.sampleNanos() / 1000000.0;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private double percentile(double[] sortedSamples, double percentile) {
+        return sortedSamples[(int) (sortedSamples.length * percentile / 100)];
+    }
+
+    @Test
+    public void shouldSampleUniformDelay() {
+        // when
+        double[] samples = sortedSamples(Delay.uniform(TimeUnit.MILLISECONDS, 10, 20), 10000);
+
+        // then
+        assertThat(samples[0] >= 10, is(true));
+        assertThat(samples[samples.length - 1] <= 20, is(true));
+        assertEquals(15, percentile(samples, 50), 0.5);
+    }
+
+    @Test
+    public void shouldSampleNormalDelay() {
+        // when
+        double[] samples = sortedSamples(Delay.normal(TimeUnit.MILLISECONDS, 100, 10), 10000);
+
+        // then
+        assertEquals(100, percentile(samples, 50), 1);
+        assertEquals(100 + 10 * 1.2816, percentile(samples, 90), 1.5);
+        assertThat(samples[0] >= 0, is(true));
+    }
+
+    @Test
+    public void shouldSampleLogNormalDelay() {
+        // when
+        double[] samples = sortedSamples(Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400), 100000);
+
+        // then
+        assertEquals(20, percentile(samples, 50), 1);
+        assertEquals(400, percentile(samples, 99), 40);
+    }
+
+    @Test
+    public void shouldSamplePercentileDelay() {
+        // when
+        double[] samples = sortedSamples(Delay.percentiles(TimeUnit.MILLISECONDS, 20, 50, 200, 1000), 100000);
+
+        // then
+        assertEquals(10, percentile(samples, 25), 1);
+        assertEquals(20, percentile(samples, 50), 1);
+        assertEquals(50, percentile(samples, 90), 5);
+        assertEquals(200, percentile(samples, 99), 50);
+        assertThat(samples[samples.length - 1] <= 1000, is(true));
+    }
+
+    @Test
+    public void shouldInterpolateFromLowestGivenPercentile() {
+        // given
+        Map<Double, Long> percentiles = new HashMap<Double, Long>();
+        percentiles.put(0.0, 100l);
+        percentiles.put(100.0, 100l);
+
+        // then
+        assertThat(Delay.percentiles(TimeUnit.MILLISECONDS, percentiles).sampleMillis(), is(100l));
+    }
+
+    @Test
+    public void shouldRepeatSamplesWithSameSeed() {
+        // given
+        Delay delay = Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400);
+        Random first = new Random(1234);
+        Random second = new Random(1234);
+
+        // then
+        for (int i = 0; i < 10; i++) {
+            assertThat(delay.sampleNanos(first), is(delay.sampleNanos(second)));
+        }
+    }
+
+    @Test
+    public void shouldSeedEachThreadDifferently() throws InterruptedException {
+        // given
+        final Delay delay = Delay.uniform(TimeUnit.MILLISECONDS, 0, 1000000);
+        final long[] samples = new long[2];
+        SystemProperties.delaySeed(1234);
+        try {
+            for (int i = 0; i < samples.length; i++) {
+                final int index = i;
+                Thread thread = new Thread(new Runnable() {
+                    public void run() {
+                        samples[index] = delay.sampleNanos();
+                    }
+                });
+                thread.start();
+                thread.join();
+            }
+        } finally {
+            System.clearProperty("mockserver.delaySeed");
+        }
+
+        // then
+        assertThat(samples[0] == samples[1], is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowUniformDelayWithMaxBelowMin() {
+        Delay.uniform(TimeUnit.MILLISECONDS, 20, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowLogNormalDelayWithP99BelowMedian() {
+        Delay.logNormal(TimeUnit.MILLISECONDS, 20, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowDecreasingPercentiles() {
+        Delay.percentiles(TimeUnit.MILLISECONDS, 20, 10, 200, 1000);
+    }
+
+    @Test
+    public void shouldBeEqualWithSameProfile() {
+        assertEquals(Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400), Delay.logNormal(TimeUnit.MILLISECONDS, 20, 400));
+        assertEquals(Delay.percentiles(TimeUnit.MILLISECONDS, 20, 50, 200, 1000), Delay.percentiles(TimeUnit.MILLISECONDS, 20, 50, 200, 1000));
+        assertThat(Delay.normal(TimeUnit.MILLISECONDS, 20, 5).equals(Delay.normal(TimeUnit.MILLISECONDS, 20, 6)), is(false));
+    }
 }
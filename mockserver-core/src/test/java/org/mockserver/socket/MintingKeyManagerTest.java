@@ -0,0 +1,195 @@
+package org.mockserver.socket;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.*;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class MintingKeyManagerTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private PrivateKey certificateAuthorityPrivateKey;
+    private X509Certificate certificateAuthorityCertificate;
+
+    @Before
+    public void createCertificateAuthority() throws Exception {
+        KeyStore keyStore = new KeyStoreFactory().generateCertificate("cert", "ca", PASSWORD, "localhost", null, null);
+        certificateAuthorityPrivateKey = (PrivateKey) keyStore.getKey("ca", PASSWORD);
+        certificateAuthorityCertificate = (X509Certificate) keyStore.getCertificate("ca");
+    }
+
+    private MintingKeyManager mintingKeyManager(String algorithm, int cacheSize) {
+        return new MintingKeyManager(certificateAuthorityPrivateKey, certificateAuthorityCertificate, new KeyPairPool(algorithm, 0), cacheSize);
+    }
+
+    private X509Certificate handshake(MintingKeyManager keyManager, String serverName) throws Exception {
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(new KeyManager[]{keyManager}, null, null);
+        final SSLServerSocket serverSocket = (SSLServerSocket) serverContext.getServerSocketFactory().createServerSocket(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> accepted = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    SSLSocket socket = (SSLSocket) serverSocket.accept();
+                    try {
+                        socket.startHandshake();
+                        socket.getInputStream().read();
+                    } finally {
+                        socket.close();
+                    }
+                    return null;
+                }
+            });
+            SSLSocket socket = (SSLSocket) SSLFactory.getInstance().clientSslContext().getSocketFactory().createSocket("localhost", serverSocket.getLocalPort());
+            try {
+                requestServerName(socket, serverName);
+                socket.startHandshake();
+                return (X509Certificate) socket.getSession().getPeerCertificates()[0];
+            } finally {
+                socket.close();
+                accepted.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets the SNI host name reflectively as the SNI api is only available from Java 8
+     */
+    private void requestServerName(SSLSocket socket, String serverName) throws Exception {
+        Class<?> sniServerNameClass = null;
+        try {
+            sniServerNameClass = Class.forName("javax.net.ssl.SNIServerName");
+        } catch (ClassNotFoundException cnfe) {
+            assumeTrue("SNI requires Java 8", false);
+        }
+        Object sniHostName = Class.forName("javax.net.ssl.SNIHostName").getConstructor(String.class).newInstance(serverName);
+        SSLParameters sslParameters = socket.getSSLParameters();
+        SSLParameters.class.getMethod("setServerNames", List.class).invoke(sslParameters, Arrays.asList(sniServerNameClass.cast(sniHostName)));
+        socket.setSSLParameters(sslParameters);
+    }
+
+    private String subjectAlternativeName(X509Certificate certificate) throws Exception {
+        Collection<List<?>> subjectAlternativeNames = certificate.getSubjectAlternativeNames();
+        assertThat(subjectAlternativeNames, hasSize(1));
+        return (String) subjectAlternativeNames.iterator().next().get(1);
+    }
+
+    @Test
+    public void shouldPresentCertificateMintedForRequestedHost() throws Exception {
+        // when
+        X509Certificate certificate = handshake(mintingKeyManager("RSA", 10), "www.example.com");
+
+        // then
+        assertThat(subjectAlternativeName(certificate), is("www.example.com"));
+        assertThat(certificate.getSubjectX500Principal().getName(), containsString("CN=www.example.com"));
+        assertThat(certificate.getPublicKey().getAlgorithm(), is("RSA"));
+        certificate.verify(certificateAuthorityCertificate.getPublicKey());
+    }
+
+    @Test
+    public void shouldPresentECCertificate() throws Exception {
+        // when
+        X509Certificate certificate = handshake(mintingKeyManager("EC", 10), "api.example.com");
+
+        // then
+        assertThat(subjectAlternativeName(certificate), is("api.example.com"));
+        assertThat(certificate.getPublicKey().getAlgorithm(), is("EC"));
+        certificate.verify(certificateAuthorityCertificate.getPublicKey());
+    }
+
+    @Test
+    public void shouldMintCertificateOncePerHost() {
+        // given
+        MintingKeyManager keyManager = mintingKeyManager("RSA", 10);
+
+        // when
+        X509Certificate[] first = keyManager.getCertificateChain("www.example.com");
+        X509Certificate[] second = keyManager.getCertificateChain("www.example.com");
+        X509Certificate[] other = keyManager.getCertificateChain("api.example.com");
+
+        // then
+        assertThat(second[0], sameInstance(first[0]));
+        assertThat(other[0], not(sameInstance(first[0])));
+        assertThat(first[1], is(certificateAuthorityCertificate));
+        assertThat(keyManager.cachedCertificates(), is(2l));
+    }
+
+    @Test
+    public void shouldPresentCertificateAddedForHost() throws Exception {
+        // given
+        MintingKeyManager keyManager = mintingKeyManager("RSA", 10);
+        KeyStore keyStore = new KeyStoreFactory().generateCertificate("cert", "ca", PASSWORD, "localhost", null, null);
+        X509Certificate[] certificateChain = new X509Certificate[]{(X509Certificate) keyStore.getCertificate("cert"), certificateAuthorityCertificate};
+
+        // when
+        keyManager.addCertificate("LocalHost", (PrivateKey) keyStore.getKey("cert", PASSWORD), certificateChain);
+
+        // then
+        assertThat(keyManager.getCertificateChain("localhost")[0], sameInstance(certificateChain[0]));
+        assertThat(keyManager.getPrivateKey("localhost"), is(keyStore.getKey("cert", PASSWORD)));
+    }
+
+    @Test
+    public void shouldDiscardLeastRecentlyUsedCertificate() {
+        // given
+        MintingKeyManager keyManager = mintingKeyManager("RSA", 1);
+
+        // when
+        X509Certificate[] first = keyManager.getCertificateChain("www.example.com");
+        keyManager.getCertificateChain("api.example.com");
+
+        // then
+        assertThat(keyManager.cachedCertificates(), is(1l));
+        assertThat(keyManager.getCertificateChain("www.example.com")[0], not(sameInstance(first[0])));
+    }
+
+    @Test
+    public void shouldChooseHostAsAlias() throws Exception {
+        // given
+        MintingKeyManager keyManager = mintingKeyManager("RSA", 10);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, null, null);
+
+        // then
+        assertThat(keyManager.chooseEngineServerAlias("RSA", null, sslContext.createSSLEngine("WWW.Example.com", -1)), is("www.example.com"));
+        assertThat(keyManager.chooseEngineServerAlias("RSA", null, sslContext.createSSLEngine()), is("localhost"));
+        assertThat(keyManager.chooseEngineServerAlias("EC", null, sslContext.createSSLEngine()), nullValue());
+    }
+
+    @Test
+    public void shouldGenerateKeyPairsInBackground() throws Exception {
+        // given
+        KeyPairPool keyPairPool = new KeyPairPool("EC", 2);
+        assertThat(keyPairPool.available(), is(0));
+
+        // when - the pool is filled once the first key pair is taken
+        assertThat(keyPairPool.take().getPublic().getAlgorithm(), is("EC"));
+
+        // then
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (keyPairPool.available() < 2 && System.currentTimeMillis() < timeout) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(keyPairPool.available(), is(2));
+        assertThat(keyPairPool.take().getPublic().getAlgorithm(), is("EC"));
+    }
+}
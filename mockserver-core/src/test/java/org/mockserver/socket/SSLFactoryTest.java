@@ -1,29 +1,133 @@
 package org.mockserver.socket;
 
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
 
 /**
  * @author jamesdbloom
  */
+@SuppressWarnings("deprecation")
 public class SSLFactoryTest {
 
-    @Ignore
+    private File keyStoreDirectory;
+    private String originalKeyStoreDirectory;
+
+    @Before
+    public void createKeyStoreDirectory() {
+        originalKeyStoreDirectory = SystemProperties.sslKeyStoreDirectory();
+        keyStoreDirectory = new File(Files.createTempDir(), "keys");
+        SystemProperties.sslKeyStoreDirectory(keyStoreDirectory.getAbsolutePath());
+    }
+
+    @After
+    public void deleteKeyStoreDirectory() {
+        if (originalKeyStoreDirectory != null) {
+            SystemProperties.sslKeyStoreDirectory(originalKeyStoreDirectory);
+        } else {
+            System.clearProperty("mockserver.sslKeyStoreDirectory");
+        }
+        new File(keyStoreDirectory, SSLFactory.KEY_STORE_FILENAME).delete();
+        keyStoreDirectory.delete();
+        keyStoreDirectory.getParentFile().delete();
+    }
+
+    private void saveKeyStore(KeyStore keyStore) throws Exception {
+        keyStoreDirectory.mkdirs();
+        FileOutputStream fileOutputStream = new FileOutputStream(new File(keyStoreDirectory, SSLFactory.KEY_STORE_FILENAME));
+        try {
+            keyStore.store(fileOutputStream, SSLFactory.KEY_STORE_PASSWORD.toCharArray());
+        } finally {
+            fileOutputStream.close();
+        }
+    }
+
     @Test
-    public void shouldLoadExistingKeyStoryFromFile() {
-        // todo
+    public void shouldLoadExistingKeyStoryFromFile() throws Exception {
+        // given
+        Certificate certificateAuthority = new SSLFactory().buildKeyStore().getCertificate(SSLFactory.KEY_STORE_CA_ALIAS);
+
+        // when
+        KeyStore keyStore = new SSLFactory().buildKeyStore();
+
+        // then
+        assertThat(keyStore.getCertificate(SSLFactory.KEY_STORE_CA_ALIAS), is(certificateAuthority));
     }
 
-    @Ignore
     @Test
-    public void shouldSaveKeyStoreToFile() {
-        // todo
+    public void shouldSaveKeyStoreToFile() throws Exception {
+        // when
+        new SSLFactory().buildKeyStore();
+
+        // then
+        assertThat(new SSLFactory().keyStoreFile(), is(new File(keyStoreDirectory, SSLFactory.KEY_STORE_FILENAME)));
+        assertThat(new File(keyStoreDirectory, SSLFactory.KEY_STORE_FILENAME).isFile(), is(true));
+        assertThat(keyStoreDirectory.list().length, is(1));
     }
 
-    @Ignore
     @Test
-    public void shouldDynamicallyCreateKeyStore() {
-        // todo
+    public void shouldDynamicallyCreateKeyStore() throws Exception {
+        // when
+        KeyStore keyStore = new SSLFactory().buildKeyStore();
+
+        // then
+        assertThat(keyStore.isKeyEntry(SSLFactory.KEY_STORE_CERT_ALIAS), is(true));
+        assertThat(keyStore.isKeyEntry(SSLFactory.KEY_STORE_CA_ALIAS), is(true));
+        X509Certificate certificateAuthority = (X509Certificate) keyStore.getCertificate(SSLFactory.KEY_STORE_CA_ALIAS);
+        ((X509Certificate) keyStore.getCertificate(SSLFactory.KEY_STORE_CERT_ALIAS)).verify(certificateAuthority.getPublicKey());
+    }
+
+    @Test
+    public void shouldReplaceKeyStoreThatIsAboutToExpire() throws Exception {
+        // given - a generated key store whose certificates expire in an hour
+        Date inAnHour = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        KeyPair certificateAuthorityKeyPair = KeyStoreFactory.generateRSAKeyPair();
+        KeyPair keyPair = KeyStoreFactory.generateRSAKeyPair();
+        X509Certificate expiringCertificate = new KeyStoreFactory().createCACert(certificateAuthorityKeyPair.getPublic(), certificateAuthorityKeyPair.getPrivate(), inAnHour);
+        X509Certificate expiringClientCertificate = new KeyStoreFactory().createClientCert(keyPair.getPublic(), certificateAuthorityKeyPair.getPrivate(), certificateAuthorityKeyPair.getPublic(), "localhost", null, null, inAnHour);
+        KeyStore expiringKeyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        expiringKeyStore.load(null, SSLFactory.KEY_STORE_PASSWORD.toCharArray());
+        expiringKeyStore.setKeyEntry(SSLFactory.KEY_STORE_CERT_ALIAS, keyPair.getPrivate(), SSLFactory.KEY_STORE_PASSWORD.toCharArray(), new X509Certificate[]{expiringClientCertificate, expiringCertificate});
+        expiringKeyStore.setKeyEntry(SSLFactory.KEY_STORE_CA_ALIAS, certificateAuthorityKeyPair.getPrivate(), SSLFactory.KEY_STORE_PASSWORD.toCharArray(), new X509Certificate[]{expiringCertificate});
+        saveKeyStore(expiringKeyStore);
+
+        // when
+        KeyStore keyStore = new SSLFactory().buildKeyStore();
+
+        // then
+        assertThat(keyStore.getCertificate(SSLFactory.KEY_STORE_CA_ALIAS), not(is((Certificate) expiringCertificate)));
+        assertThat(new SSLFactory().buildKeyStore().getCertificate(SSLFactory.KEY_STORE_CA_ALIAS), is(keyStore.getCertificate(SSLFactory.KEY_STORE_CA_ALIAS)));
+    }
+
+    @Test
+    public void shouldNotReplaceKeyStoreWithoutCertificateAuthority() throws Exception {
+        // given - a key store provided by the user
+        KeyStore providedKeyStore = new KeyStoreFactory().generateCertificate(SSLFactory.KEY_STORE_CERT_ALIAS, SSLFactory.KEY_STORE_CA_ALIAS, SSLFactory.KEY_STORE_PASSWORD.toCharArray(), "localhost", null, null);
+        providedKeyStore.deleteEntry(SSLFactory.KEY_STORE_CA_ALIAS);
+        saveKeyStore(providedKeyStore);
+
+        // when
+        KeyStore keyStore = new SSLFactory().buildKeyStore();
+
+        // then
+        assertThat(keyStore.isKeyEntry(SSLFactory.KEY_STORE_CA_ALIAS), is(false));
+        assertThat(keyStore.getCertificate(SSLFactory.KEY_STORE_CERT_ALIAS), is(providedKeyStore.getCertificate(SSLFactory.KEY_STORE_CERT_ALIAS)));
     }
 
     @Ignore
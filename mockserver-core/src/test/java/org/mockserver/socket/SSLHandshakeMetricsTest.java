@@ -0,0 +1,127 @@
+package org.mockserver.socket;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author jamesdbloom
+ */
+public class SSLHandshakeMetricsTest {
+
+    private final SSLHandshakeMetrics sslHandshakeMetrics = new SSLHandshakeMetrics();
+    private EventLoopGroup group;
+    private int port;
+
+    @Before
+    public void startServer() throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        Channel serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
+                        engine.setUseClientMode(false);
+                        ch.pipeline().addLast(sslHandshakeMetrics.monitor(new SslHandler(engine)));
+                    }
+                })
+                .bind(0).sync().channel();
+        port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @After
+    public void stopServer() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    private void connect(boolean secure) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        try {
+            if (secure) {
+                SSLSocket sslSocket = (SSLSocket) SSLFactory.getInstance().clientSslContext().getSocketFactory().createSocket(socket, "localhost", port, true);
+                // the JDK doesn't expose whether a TLS 1.3 handshake used a pre-shared key, so resumption is tested with TLS 1.2
+                sslSocket.setEnabledProtocols(new String[]{"TLSv1.2"});
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void waitForHandshakes(long count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (sslHandshakeMetrics.getHandshakes() + sslHandshakeMetrics.getFailedHandshakes() < count && System.currentTimeMillis() < timeout) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldBuildEachSSLContextOnce() {
+        assertThat(SSLFactory.getInstance().sslContext() == SSLFactory.getInstance().sslContext(), is(true));
+        assertThat(SSLFactory.getInstance().clientSslContext() == SSLFactory.getInstance().clientSslContext(), is(true));
+    }
+
+    @Test
+    public void shouldCountFullAndResumedHandshakes() throws Exception {
+        // when - the second connection to the same host and port resumes the session of the first
+        connect(true);
+        connect(true);
+        waitForHandshakes(2);
+
+        // then
+        assertThat(sslHandshakeMetrics.getHandshakes(), is(2l));
+        assertThat(sslHandshakeMetrics.getResumedHandshakes(), is(1l));
+        assertThat(sslHandshakeMetrics.getFailedHandshakes(), is(0l));
+        assertThat(sslHandshakeMetrics.getMaxHandshakeTime(TimeUnit.NANOSECONDS), greaterThan(0l));
+        assertThat(sslHandshakeMetrics.getMaxHandshakeTime(TimeUnit.NANOSECONDS), greaterThanOrEqualTo(sslHandshakeMetrics.getAverageHandshakeTime(TimeUnit.NANOSECONDS)));
+    }
+
+    @Test
+    public void shouldCountFailedHandshakes() throws Exception {
+        // when
+        connect(false);
+        waitForHandshakes(1);
+
+        // then
+        assertThat(sslHandshakeMetrics.getHandshakes(), is(0l));
+        assertThat(sslHandshakeMetrics.getFailedHandshakes(), is(1l));
+    }
+
+    @Test
+    public void shouldReset() throws Exception {
+        // given
+        connect(true);
+        waitForHandshakes(1);
+
+        // when
+        sslHandshakeMetrics.reset();
+
+        // then
+        assertThat(sslHandshakeMetrics.getHandshakes(), is(0l));
+        assertThat(sslHandshakeMetrics.getAverageHandshakeTime(TimeUnit.NANOSECONDS), is(0l));
+        assertThat(sslHandshakeMetrics.getMaxHandshakeTime(TimeUnit.NANOSECONDS), is(0l));
+    }
+}
@@ -2,12 +2,13 @@ package org.mockserver.mappers;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Splitter;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 import org.apache.commons.lang3.StringUtils;
-import org.mockserver.model.Cookie;
-import org.mockserver.model.Header;
-import org.mockserver.model.HttpRequest;
-import org.mockserver.model.NettyHttpRequest;
+import org.mockserver.model.*;
+
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
 
@@ -16,14 +17,29 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
  */
 public class NettyToMockServerRequestMapper {
 
+    /**
+     * @return the request with its body decoded as UTF-8, as it is matched against expectations and recorded
+     */
     public HttpRequest mapNettyRequestToMockServerRequest(NettyHttpRequest mockServerHttpRequest) {
+        return mapNettyRequestToMockServerRequest(mockServerHttpRequest, false);
+    }
+
+    /**
+     * @return the request to forward, with a binary body when the body is not valid UTF-8 so it is forwarded unchanged,
+     * use loggedBody(...) for the body recorded once it has been forwarded
+     */
+    public HttpRequest mapNettyRequestToForwardedRequest(NettyHttpRequest mockServerHttpRequest) {
+        return mapNettyRequestToMockServerRequest(mockServerHttpRequest, true);
+    }
+
+    private HttpRequest mapNettyRequestToMockServerRequest(NettyHttpRequest mockServerHttpRequest, boolean binarySafeBody) {
         HttpRequest httpRequest = new HttpRequest();
         if (mockServerHttpRequest != null) {
             setMethod(httpRequest, mockServerHttpRequest);
             setUrl(httpRequest, mockServerHttpRequest);
             setPath(httpRequest, mockServerHttpRequest);
             setQueryString(httpRequest, mockServerHttpRequest);
-            setBody(httpRequest, mockServerHttpRequest);
+            setBody(httpRequest, mockServerHttpRequest, binarySafeBody);
             setHeaders(httpRequest, mockServerHttpRequest);
             setCookies(httpRequest, mockServerHttpRequest);
         }
@@ -47,10 +63,43 @@ public class NettyToMockServerRequestMapper {
         httpRequest.withQueryStringParameters(mockServerHttpRequest.parameters());
     }
 
-    private void setBody(HttpRequest httpRequest, NettyHttpRequest mockServerHttpRequest) {
+    private void setBody(HttpRequest httpRequest, NettyHttpRequest mockServerHttpRequest, boolean binarySafeBody) {
         if (mockServerHttpRequest.content() != null) {
-            httpRequest.withBody(mockServerHttpRequest.content().toString(Charsets.UTF_8));
+            if (binarySafeBody) {
+                httpRequest.withBody(mapBody(mockServerHttpRequest.content()));
+            } else {
+                httpRequest.withBody(mockServerHttpRequest.content().toString(Charsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * @return the content as a string body, or as a binary body when it is not valid UTF-8 so it is forwarded unchanged
+     */
+    public Body mapBody(ByteBuf content) {
+        try {
+            String body = Charsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(content.nioBuffer())
+                    .toString();
+            return new StringBody(body, Body.Type.EXACT);
+        } catch (CharacterCodingException cce) {
+            byte[] bytes = new byte[content.readableBytes()];
+            content.getBytes(content.readerIndex(), bytes);
+            return new BinaryBody(bytes);
+        }
+    }
+
+    /**
+     * @return the body of a forwarded request as it is recorded, a binary body is decoded as UTF-8 like the body of
+     * any other request so the recorded body doesn't depend on whether the request was forwarded
+     */
+    public static Body loggedBody(Body body) {
+        if (body instanceof BinaryBody) {
+            return new StringBody(new String(((BinaryBody) body).getValue(), Charsets.UTF_8), Body.Type.EXACT);
         }
+        return body;
     }
 
     private void setHeaders(HttpRequest httpRequest, NettyHttpRequest mockServerHttpRequest) {
@@ -1,13 +1,22 @@
 package org.mockserver.mockserver;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.util.CharsetUtil;
-import org.mockserver.client.http.ApacheHttpClient;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.MockServerToNettyResponseMapper;
@@ -18,18 +27,23 @@ import org.mockserver.model.Action;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.NettyHttpRequest;
+import org.mockserver.model.Throttle;
 import org.mockserver.proxy.filters.Filters;
 import org.mockserver.proxy.filters.HopByHopHeaderFilter;
 import org.mockserver.proxy.filters.LogFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.isKeepAlive;
 
 public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
+    // keyed by identity and held weakly, so a rendered response is dropped with the expectation it was rendered for
+    private static final Cache<HttpResponse, RenderedResponse> renderedResponses = CacheBuilder.newBuilder().weakKeys().build();
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     // mockserver
     private final MockServerMatcher mockServerMatcher;
@@ -39,7 +53,7 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
     private final MockServer server;
     // request forwarding
     private Filters filters = new Filters();
-    private ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    private NettyHttpClient nettyHttpClient = NettyHttpClient.getInstance();
     // mappers
     private NettyToMockServerRequestMapper nettyToMockServerRequestMapper = new NettyToMockServerRequestMapper();
     private MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
@@ -49,6 +63,8 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
     // requests
     private NettyHttpRequest mockServerHttpRequest = null;
     private HttpRequest request = null;
+    // responses are written in request order, so no response starts before a delayed or throttled response ahead of it is written
+    private ChannelFuture lastResponseWritten = null;
 
     public MockServerHandler(MockServerMatcher mockServerMatcher, LogFilter logFilter, MockServer server, boolean secure) {
         this.mockServerMatcher = mockServerMatcher;
@@ -95,7 +111,8 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
 
                     } else {
 
-                        writeResponse(ctx, mockResponse(mockServerHttpRequest), isKeepAlive(request));
+                        MockedResponse response = mockResponse(mockServerHttpRequest);
+                        scheduleResponse(ctx, response.getResponse(), isKeepAlive(request), response.getDelayInMilliseconds(), response.getThrottle());
 
                     }
                 }
@@ -106,7 +123,80 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
+    /**
+     * Writes the response once it is available (a forwarded response arrives later on the http client's event loop),
+     * the delay has passed, and the previous response has been written, using tasks run on the channel's event loop,
+     * so a delayed, throttled or forwarded response never blocks the thread that handles this and other channels
+     */
+    private void scheduleResponse(final ChannelHandlerContext ctx, final Future<FullHttpResponse> response, final boolean isKeepAlive, long delayInMilliseconds, final Throttle throttle) {
+        final long writeNanoTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayInMilliseconds);
+        final ChannelPromise written = ctx.newPromise();
+        ChannelFuture previousResponseWritten = lastResponseWritten;
+        lastResponseWritten = written;
+        runWhenComplete(ctx, previousResponseWritten, new Runnable() {
+            @Override
+            public void run() {
+                runWhenComplete(ctx, response, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (response.isSuccess()) {
+                            writeResponseAt(ctx, response.getNow(), isKeepAlive, writeNanoTime, throttle, written);
+                        } else {
+                            logger.warn("Exception while forwarding request closing pipeline", response.cause());
+                            written.setFailure(response.cause());
+                            ctx.close();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void runWhenComplete(final ChannelHandlerContext ctx, Future<?> future, final Runnable task) {
+        if (future == null || future.isDone()) {
+            if (ctx.executor().inEventLoop()) {
+                task.run();
+            } else {
+                ctx.executor().execute(task);
+            }
+        } else {
+            future.addListener(new GenericFutureListener<Future<Object>>() {
+                @Override
+                public void operationComplete(Future<Object> future) {
+                    ctx.executor().execute(task);
+                }
+            });
+        }
+    }
+
+    private void writeResponseAt(final ChannelHandlerContext ctx, final FullHttpResponse response, final boolean isKeepAlive, long writeNanoTime, final Throttle throttle, final ChannelPromise written) {
+        Runnable write = new Runnable() {
+            @Override
+            public void run() {
+                if (throttle != null) {
+                    new ThrottledResponseWriter(ctx, response, throttle, written).write(isKeepAlive);
+                } else {
+                    writeResponse(ctx, response, isKeepAlive, written);
+                }
+            }
+        };
+        long delayNanos = writeNanoTime - System.nanoTime();
+        if (delayNanos <= 0) {
+            write.run();
+        } else {
+            ctx.executor().schedule(write, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
     private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive) {
+        writeResponse(ctx, response, isKeepAlive, ctx.newPromise());
+    }
+
+    private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive, ChannelPromise written) {
+        if (response instanceof RenderedResponse) {
+            ((RenderedResponse) response).write(ctx, isKeepAlive, written);
+            return;
+        }
         if (isKeepAlive) {
             // Add 'Content-Length' header only for a keep-alive connection.
             response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
@@ -114,43 +204,43 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
             // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
             response.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
         }
-        ctx.write(response);
-        ctx.flush();
+        ctx.writeAndFlush(response, written);
     }
 
     @VisibleForTesting
-    FullHttpResponse mockResponse(NettyHttpRequest nettyHttpRequest) {
+    MockedResponse mockResponse(NettyHttpRequest nettyHttpRequest) {
 
         String content = (nettyHttpRequest.content() != null ? nettyHttpRequest.content().toString(CharsetUtil.UTF_8) : "");
 
         if (nettyHttpRequest.matches(HttpMethod.PUT, "/dumpToLog")) {
 
             mockServerMatcher.dumpToLog(httpRequestSerializer.deserialize(content));
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return new MockedResponse(completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED)));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/reset")) {
 
             logFilter.reset();
             mockServerMatcher.reset();
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return new MockedResponse(completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED)));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/clear")) {
 
             org.mockserver.model.HttpRequest httpRequest = httpRequestSerializer.deserialize(content);
             logFilter.clear(httpRequest);
             mockServerMatcher.clear(httpRequest);
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return new MockedResponse(completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED)));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/expectation")) {
 
             Expectation expectation = expectationSerializer.deserialize(content);
             mockServerMatcher.when(expectation.getHttpRequest(), expectation.getTimes()).thenRespond(expectation.getHttpResponse(false)).thenForward(expectation.getHttpForward());
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CREATED);
+            render(expectation.getHttpResponse(false));
+            return new MockedResponse(completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CREATED)));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/retrieve")) {
 
             Expectation[] expectations = logFilter.retrieve(httpRequestSerializer.deserialize(content));
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(expectationSerializer.serialize(expectations).getBytes()));
+            return new MockedResponse(completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(expectationSerializer.serialize(expectations).getBytes()))));
 
         } else {
 
@@ -160,32 +250,73 @@ public class MockServerHandler extends SimpleChannelInboundHandler<Object> {
                 HttpForward httpForward = (HttpForward) action;
                 nettyHttpRequest.headers().set(HttpHeaders.Names.HOST, httpForward.getHost() + (httpForward.getPort() != null ? ":" + httpForward.getPort() : ""));
                 nettyHttpRequest.setSecure(httpForward.getScheme() == HttpForward.Scheme.HTTPS);
-                return forwardRequest(nettyHttpRequest);
+                return new MockedResponse(forwardRequest(nettyHttpRequest));
             } else {
                 HttpResponse httpResponse = (HttpResponse) action;
                 logFilter.onResponse(httpRequest, httpResponse);
-                return mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse);
+                RenderedResponse renderedResponse = render(httpResponse);
+                Future<FullHttpResponse> response = completed(renderedResponse != null ? renderedResponse : mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse));
+                if (httpResponse != null) {
+                    return new MockedResponse(response, (httpResponse.getDelay() != null ? httpResponse.getDelay().sampleMillis() : 0), httpResponse.getThrottle());
+                }
+                return new MockedResponse(response);
             }
 
         }
     }
 
+    /**
+     * Renders a response once into the bytes written for every request it matches, a throttled response is mapped
+     * for each request instead as it is written in chunks
+     */
+    private RenderedResponse render(HttpResponse httpResponse) {
+        if (httpResponse == null || httpResponse.getThrottle() != null) {
+            return null;
+        }
+        RenderedResponse renderedResponse = renderedResponses.getIfPresent(httpResponse);
+        if (renderedResponse == null) {
+            renderedResponse = new RenderedResponse(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse));
+            renderedResponses.put(httpResponse, renderedResponse);
+        }
+        return renderedResponse;
+    }
+
     @VisibleForTesting
-    FullHttpResponse forwardRequest(NettyHttpRequest request) {
-        return sendRequest(filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(request)));
+    Future<FullHttpResponse> forwardRequest(NettyHttpRequest request) {
+        return sendRequest(filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToForwardedRequest(request)));
     }
 
     @VisibleForTesting
-    FullHttpResponse sendRequest(final org.mockserver.model.HttpRequest httpRequest) {
+    Future<FullHttpResponse> sendRequest(final org.mockserver.model.HttpRequest httpRequest) {
         // if HttpRequest was set to null by a filter don't send request
         if (httpRequest != null) {
-            HttpResponse httpResponse = filters.applyFilters(httpRequest, apacheHttpClient.sendRequest(httpRequest));
-            return mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse);
+            final Promise<FullHttpResponse> response = ImmediateEventExecutor.INSTANCE.newPromise();
+            nettyHttpClient.sendRequest(httpRequest).addListener(new GenericFutureListener<Future<HttpResponse>>() {
+                @Override
+                public void operationComplete(Future<HttpResponse> future) {
+                    if (future.isSuccess()) {
+                        try {
+                            httpRequest.withBody(NettyToMockServerRequestMapper.loggedBody(httpRequest.getBody()));
+                            HttpResponse httpResponse = filters.applyFilters(httpRequest, future.getNow());
+                            response.setSuccess(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse));
+                        } catch (RuntimeException re) {
+                            response.setFailure(re);
+                        }
+                    } else {
+                        response.setFailure(future.cause());
+                    }
+                }
+            });
+            return response;
         } else {
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
         }
     }
 
+    private Future<FullHttpResponse> completed(FullHttpResponse response) {
+        return ImmediateEventExecutor.INSTANCE.newSucceededFuture(response);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         logger.warn("Exception caught by MockServer handler closing pipeline", cause);
@@ -0,0 +1,40 @@
+package org.mockserver.mockserver;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.concurrent.Future;
+import org.mockserver.model.Throttle;
+
+/**
+ * The response to a request together with how long to wait before it is written and how fast it is written, the delay
+ * is sampled once per request so it is carried with the response rather than sampled again when it is scheduled
+ *
+ * @author jamesdbloom
+ */
+class MockedResponse {
+
+    private final Future<FullHttpResponse> response;
+    private final long delayInMilliseconds;
+    private final Throttle throttle;
+
+    MockedResponse(Future<FullHttpResponse> response) {
+        this(response, 0, null);
+    }
+
+    MockedResponse(Future<FullHttpResponse> response, long delayInMilliseconds, Throttle throttle) {
+        this.response = response;
+        this.delayInMilliseconds = delayInMilliseconds;
+        this.throttle = throttle;
+    }
+
+    public Future<FullHttpResponse> getResponse() {
+        return response;
+    }
+
+    public long getDelayInMilliseconds() {
+        return delayInMilliseconds;
+    }
+
+    public Throttle getThrottle() {
+        return throttle;
+    }
+}
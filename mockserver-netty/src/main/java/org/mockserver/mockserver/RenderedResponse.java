@@ -0,0 +1,68 @@
+package org.mockserver.mockserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+
+/**
+ * A response encoded once, when its expectation is registered, into read-only direct buffers holding the status line
+ * and headers, and the body, each request it matches writes duplicates of the same buffers so serving the response
+ * encodes, copies and allocates nothing in proportion to its size
+ *
+ * @author jamesdbloom
+ */
+class RenderedResponse extends DefaultFullHttpResponse {
+
+    private final ByteBuf head;
+    private final ByteBuf keepAliveHead;
+
+    RenderedResponse(FullHttpResponse response) {
+        super(response.getProtocolVersion(), response.getStatus(), immutableCopy(response.content()));
+        headers().set(response.headers());
+        response.release();
+        head = encodeHead(false);
+        keepAliveHead = encodeHead(true);
+    }
+
+    private static ByteBuf immutableCopy(ByteBuf content) {
+        ByteBuf copy = Unpooled.directBuffer(content.readableBytes()).writeBytes(content, content.readerIndex(), content.readableBytes());
+        return Unpooled.unreleasableBuffer(Unpooled.unmodifiableBuffer(copy));
+    }
+
+    private ByteBuf encodeHead(boolean isKeepAlive) {
+        HttpResponse response = new DefaultHttpResponse(getProtocolVersion(), getStatus());
+        response.headers().set(headers());
+        if (isKeepAlive) {
+            response.headers().set(CONTENT_LENGTH, content().readableBytes());
+            response.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        channel.writeOutbound(response);
+        channel.finish();
+        ByteBuf encoded = (ByteBuf) channel.readOutbound();
+        try {
+            return immutableCopy(encoded);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    /**
+     * Writes the response as it would be written by the HttpResponseEncoder, with a Content-Length and keep alive
+     * header on a keep-alive connection
+     */
+    void write(ChannelHandlerContext ctx, boolean isKeepAlive, ChannelPromise written) {
+        // the bytes are already encoded, so they are written below the HttpServerCodec which only accepts a ByteBuf
+        // after the HttpResponse it belongs to
+        ChannelHandlerContext codecCtx = ctx.pipeline().context(HttpServerCodec.class);
+        ChannelHandlerContext writeCtx = (codecCtx != null ? codecCtx : ctx);
+        writeCtx.write((isKeepAlive ? keepAliveHead : head).duplicate());
+        writeCtx.writeAndFlush(content().duplicate(), written);
+    }
+}
@@ -0,0 +1,97 @@
+package org.mockserver.mockserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import org.mockserver.model.Throttle;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaders.Names.TRANSFER_ENCODING;
+
+/**
+ * Writes a response body as HTTP chunks paced by a Throttle, each chunk is scheduled on the channel's event loop
+ * once the previous chunk has been written, so no thread blocks and at most one chunk per connection is waiting
+ * in the outbound buffer
+ *
+ * @author jamesdbloom
+ */
+class ThrottledResponseWriter implements ChannelFutureListener {
+
+    static final int MAX_DEFAULT_CHUNK_SIZE = 8192;
+    private final ChannelHandlerContext ctx;
+    private final FullHttpResponse response;
+    private final Throttle throttle;
+    private final ChannelPromise written;
+    private final int chunkSize;
+    private int offset = 0;
+
+    ThrottledResponseWriter(ChannelHandlerContext ctx, FullHttpResponse response, Throttle throttle, ChannelPromise written) {
+        this.ctx = ctx;
+        this.response = response;
+        this.throttle = throttle;
+        this.written = written;
+        this.chunkSize = chunkSize(throttle);
+    }
+
+    static int chunkSize(Throttle throttle) {
+        if (throttle.getChunkSize() > 0) {
+            return throttle.getChunkSize();
+        } else if (throttle.getBytesPerSecond() > 0) {
+            return (int) Math.max(1, Math.min(throttle.getBytesPerSecond() / 10, MAX_DEFAULT_CHUNK_SIZE));
+        } else {
+            return MAX_DEFAULT_CHUNK_SIZE;
+        }
+    }
+
+    /**
+     * @return the nanoseconds to wait before writing a chunk of the specified size
+     */
+    static long chunkDelayNanos(Throttle throttle, int size) {
+        long delayNanos = (throttle.getChunkDelay() != null ? TimeUnit.MILLISECONDS.toNanos(throttle.getChunkDelay().sampleMillis()) : 0);
+        if (throttle.getBytesPerSecond() > 0) {
+            delayNanos = Math.max(delayNanos, TimeUnit.SECONDS.toNanos(size) / throttle.getBytesPerSecond());
+        }
+        return delayNanos;
+    }
+
+    void write(boolean isKeepAlive) {
+        HttpResponse head = new DefaultHttpResponse(response.getProtocolVersion(), response.getStatus());
+        head.headers().set(response.headers());
+        head.headers().remove(CONTENT_LENGTH);
+        head.headers().set(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        if (isKeepAlive) {
+            head.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        }
+        ctx.writeAndFlush(head).addListener(this);
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+        if (!future.isSuccess()) {
+            response.release();
+            written.setFailure(future.cause());
+            return;
+        }
+        final ByteBuf content = response.content();
+        if (offset >= content.readableBytes()) {
+            response.release();
+            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, written);
+            return;
+        }
+        final int size = Math.min(chunkSize, content.readableBytes() - offset);
+        ctx.executor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                HttpContent chunk = new DefaultHttpContent(content.slice(content.readerIndex() + offset, size).retain());
+                offset += size;
+                ctx.writeAndFlush(chunk).addListener(ThrottledResponseWriter.this);
+            }
+        }, chunkDelayNanos(throttle, size), TimeUnit.NANOSECONDS);
+    }
+}
@@ -3,6 +3,7 @@ package org.mockserver.proxy.http;
 import ch.qos.logback.classic.Level;
 import com.google.common.util.concurrent.SettableFuture;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
@@ -18,7 +19,6 @@ import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.SSLEngine;
 import java.io.IOException;
 import java.net.*;
 import java.util.Arrays;
@@ -97,9 +97,9 @@ public class HttpProxy {
             @Override
             public void run() {
                 try {
-                    ChannelFuture httpChannel = createHTTPChannel(port, securePort);
+                    ChannelFuture httpChannel = createHTTPChannel(port);
                     ChannelFuture httpsChannel = createHTTPSChannel(securePort);
-                    ChannelFuture socksChannel = createSOCKSChannel(socksPort, port);
+                    ChannelFuture socksChannel = createSOCKSChannel(socksPort);
                     ChannelFuture directChannel = createDirectChannel(directLocalPort, directRemoteHost, directRemotePort);
                     ChannelFuture directSecureChannel = createDirectSecureChannel(directLocalSecurePort, directRemoteHost, directRemotePort);
 
@@ -156,7 +156,7 @@ public class HttpProxy {
         }
     }
 
-    private ChannelFuture createHTTPChannel(final Integer port, final Integer securePort) throws ExecutionException, InterruptedException {
+    private ChannelFuture createHTTPChannel(final Integer port) throws ExecutionException, InterruptedException {
         boolean condition = port != null;
         if (condition) logger.info("Starting HTTP proxy & HTTPS CONNECT port [" + port + "]");
         return createBootstrap(condition, new ChannelInitializer<SocketChannel>() {
@@ -169,7 +169,7 @@ public class HttpProxy {
                 pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, false));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, false));
             }
         }, port, true);
     }
@@ -184,21 +184,19 @@ public class HttpProxy {
                 ChannelPipeline pipeline = ch.pipeline();
 
                 // add HTTPS support
-                SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
-                engine.setUseClientMode(false);
-                pipeline.addLast(SslHandler.class.getSimpleName(), new SslHandler(engine));
+                pipeline.addLast(SslHandler.class.getSimpleName(), SSLFactory.getInstance().serverSslHandler());
 
                 // add HTTP decoder and encoder
                 pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, securePort != null ? new InetSocketAddress(securePort) : null, true));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, true));
             }
         }, securePort, true);
     }
 
-    private ChannelFuture createSOCKSChannel(final Integer socksPort, final Integer port) throws ExecutionException, InterruptedException {
-        boolean condition = socksPort != null && port != null;
+    private ChannelFuture createSOCKSChannel(final Integer socksPort) throws ExecutionException, InterruptedException {
+        boolean condition = socksPort != null;
         if (condition) logger.info("Starting SOCKS proxy port [" + socksPort + "]");
         return createBootstrap(condition, new ChannelInitializer<SocketChannel>() {
             @Override
@@ -211,7 +209,7 @@ public class HttpProxy {
                 pipeline.addLast(SocksMessageEncoder.class.getSimpleName(), new SocksMessageEncoder());
 
                 // add handler
-                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, new InetSocketAddress(port), false));
+                pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, HttpProxy.this, false));
             }
         }, socksPort, true);
     }
@@ -242,9 +240,7 @@ public class HttpProxy {
                 ChannelPipeline pipeline = ch.pipeline();
 
                 // add HTTPS client -> proxy support
-                SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
-                engine.setUseClientMode(false);
-                pipeline.addLast("ssl inbound", new SslHandler(engine));
+                pipeline.addLast("ssl inbound", SSLFactory.getInstance().serverSslHandler());
 
                 // add handler
                 InetSocketAddress remoteSocketAddress = new InetSocketAddress(directRemoteHost, directRemotePort);
@@ -263,6 +259,7 @@ public class HttpProxy {
                     .childHandler(childHandler)
                     .option(ChannelOption.SO_BACKLOG, 1024)
                     .childOption(ChannelOption.AUTO_READ, autoRead)
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                     .bind(port).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
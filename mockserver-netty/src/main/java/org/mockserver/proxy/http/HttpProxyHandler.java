@@ -1,16 +1,25 @@
 package org.mockserver.proxy.http;
 
+import com.google.common.collect.ImmutableSet;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.socks.*;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import org.apache.commons.lang3.StringUtils;
-import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.client.http.NettyHttpClient;
+import org.mockserver.client.http.StreamingRequest;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
+import org.mockserver.configuration.SystemProperties;
 import org.mockserver.mappers.MockServerToNettyResponseMapper;
 import org.mockserver.mappers.NettyToMockServerRequestMapper;
 import org.mockserver.mock.Expectation;
@@ -22,8 +31,9 @@ import org.mockserver.proxy.http.socks.SocksConnectHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.InetSocketAddress;
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
@@ -31,14 +41,14 @@ import static io.netty.handler.codec.http.HttpHeaders.isKeepAlive;
 
 public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
 
+    private static final Set<String> CONTROL_PATHS = ImmutableSet.of("/stop", "/dumpToLog", "/reset", "/clear", "/retrieve");
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     // mockserver
-    private final InetSocketAddress connectSocket;
     private final boolean secure;
     private final HttpProxy server;
     private final LogFilter logFilter;
     private final Filters filters = new Filters();
-    private final ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    private final NettyHttpClient nettyHttpClient = NettyHttpClient.getInstance();
     // mappers
     private NettyToMockServerRequestMapper nettyToMockServerRequestMapper = new NettyToMockServerRequestMapper();
     private MockServerToNettyResponseMapper mockServerToNettyResponseMapper = new MockServerToNettyResponseMapper();
@@ -48,12 +58,15 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
     // requests
     private NettyHttpRequest mockServerHttpRequest = null;
     private HttpRequest request = null;
+    // a request body that is streamed upstream as it arrives, the request is null if a filter stopped it being proxied
+    private StreamedBody streamedBody = null;
+    private StreamingRequest streamingRequest = null;
+    // responses are written in request order, so no response starts before a forwarded response ahead of it is written
+    private ChannelFuture lastResponseWritten = null;
 
-
-    public HttpProxyHandler(LogFilter logFilter, HttpProxy server, InetSocketAddress connectSocket, boolean secure) {
+    public HttpProxyHandler(LogFilter logFilter, HttpProxy server, boolean secure) {
         this.logFilter = logFilter;
         this.server = server;
-        this.connectSocket = connectSocket;
         this.secure = secure;
         filters.withFilter(new org.mockserver.model.HttpRequest(), new HopByHopHeaderFilter());
         filters.withFilter(new org.mockserver.model.HttpRequest(), logFilter);
@@ -97,9 +110,16 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
                 }
                 mockServerHttpRequest = new NettyHttpRequest(request.getProtocolVersion(), request.getMethod(), uri, secure);
                 mockServerHttpRequest.headers().add(request.headers());
+                if (!(msg instanceof HttpContent) && isStreamed(mockServerHttpRequest)) {
+                    startStreaming(ctx);
+                }
             }
 
-            if (msg instanceof HttpContent && mockServerHttpRequest != null) {
+            if (msg instanceof HttpContent && streamedBody != null) {
+
+                streamContent(ctx, (HttpContent) msg);
+
+            } else if (msg instanceof HttpContent && mockServerHttpRequest != null) {
                 ByteBuf content = ((HttpContent) msg).content();
 
                 if (content.isReadable()) {
@@ -113,9 +133,9 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
                         mockServerHttpRequest.headers().entries().addAll(trailer.trailingHeaders().entries());
                     }
 
-                    if (connectSocket != null && mockServerHttpRequest.getMethod() == HttpMethod.CONNECT) {
+                    if (mockServerHttpRequest.getMethod() == HttpMethod.CONNECT) {
 
-                        ctx.pipeline().addAfter(ctx.name(), HttpConnectHandler.class.getSimpleName(), new HttpConnectHandler(connectSocket, true));
+                        ctx.pipeline().addAfter(ctx.name(), HttpConnectHandler.class.getSimpleName(), new HttpConnectHandler(logFilter, server, true));
                         ctx.pipeline().remove(this);
                         ctx.fireChannelRead(request);
 
@@ -131,7 +151,7 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
 
                     } else {
 
-                        writeResponse(ctx, mockResponse(mockServerHttpRequest), isKeepAlive(request));
+                        scheduleResponse(ctx, mockResponse(mockServerHttpRequest), isKeepAlive(request));
 
                     }
                 }
@@ -158,7 +178,7 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
                     SocksCmdRequest req = (SocksCmdRequest) socksRequest;
                     if (req.cmdType() == SocksCmdType.CONNECT) {
 
-                        ctx.pipeline().addLast(SocksConnectHandler.class.getSimpleName(), new SocksConnectHandler(connectSocket, secure));
+                        ctx.pipeline().addLast(SocksConnectHandler.class.getSimpleName(), new SocksConnectHandler(logFilter, server, secure));
                         ctx.pipeline().remove(this);
                         ctx.fireChannelRead(socksRequest);
 
@@ -180,7 +200,118 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
+    /**
+     * When streamForwardedRequestBody is enabled requests with a body are forwarded while the body arrives, apart from
+     * requests to the proxy itself, request filters then only see the request line and headers and only the prefix or
+     * hash of the body is logged, otherwise the whole body is received before the request is filtered and forwarded
+     */
+    private boolean isStreamed(NettyHttpRequest nettyHttpRequest) {
+        if (!SystemProperties.streamForwardedRequestBody()) {
+            return false;
+        }
+        if (nettyHttpRequest.getMethod() == HttpMethod.CONNECT || (nettyHttpRequest.getMethod() == HttpMethod.PUT && CONTROL_PATHS.contains(nettyHttpRequest.path()))) {
+            return false;
+        }
+        return HttpHeaders.isTransferEncodingChunked(nettyHttpRequest) || HttpHeaders.getContentLength(nettyHttpRequest, 0) > 0;
+    }
+
+    private void startStreaming(final ChannelHandlerContext ctx) {
+        streamedBody = new StreamedBody(SystemProperties.forwardedBodyLogLimit(), SystemProperties.forwardedBodyLogHashed());
+        org.mockserver.model.HttpRequest httpRequest = filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(mockServerHttpRequest));
+        // if HttpRequest was set to null by a filter don't send request
+        if (httpRequest != null) {
+            streamingRequest = nettyHttpClient.streamRequest(httpRequest);
+            final Runnable resumeReading = new Runnable() {
+                @Override
+                public void run() {
+                    ctx.channel().config().setAutoRead(true);
+                }
+            };
+            streamingRequest.onWritable(resumeReading);
+            streamingRequest.response().addListener(new GenericFutureListener<Future<HttpResponse>>() {
+                @Override
+                public void operationComplete(Future<HttpResponse> future) {
+                    resumeReading.run();
+                }
+            });
+            scheduleResponse(ctx, filterResponse(httpRequest, streamingRequest.response(), streamedBody), isKeepAlive(request));
+        }
+    }
+
+    /**
+     * Passes each chunk upstream as it arrives, reading stops while the upstream connection can't keep up and
+     * resumes once it is writable again or the response has been received
+     */
+    private void streamContent(ChannelHandlerContext ctx, HttpContent content) {
+        streamedBody.update(content.content());
+        if (streamingRequest != null) {
+            streamingRequest.write(content.retain());
+            if (!streamingRequest.isWritable() && !streamingRequest.response().isDone()) {
+                ctx.channel().config().setAutoRead(false);
+                // check again in case the connection became writable before reading stopped
+                if (streamingRequest.isWritable() || streamingRequest.response().isDone()) {
+                    ctx.channel().config().setAutoRead(true);
+                }
+            }
+        }
+        if (content instanceof LastHttpContent) {
+            if (streamingRequest == null) {
+                scheduleResponse(ctx, completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK)), isKeepAlive(request));
+            }
+            streamedBody = null;
+            streamingRequest = null;
+        }
+    }
+
+    /**
+     * Writes the response, on the channel's event loop, once it is available and the previous response has been
+     * written, so waiting for a forwarded response never blocks the thread that handles this and other channels
+     */
+    private void scheduleResponse(final ChannelHandlerContext ctx, final Future<FullHttpResponse> response, final boolean isKeepAlive) {
+        final ChannelPromise written = ctx.newPromise();
+        ChannelFuture previousResponseWritten = lastResponseWritten;
+        lastResponseWritten = written;
+        runWhenComplete(ctx, previousResponseWritten, new Runnable() {
+            @Override
+            public void run() {
+                runWhenComplete(ctx, response, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (response.isSuccess()) {
+                            writeResponse(ctx, response.getNow(), isKeepAlive, written);
+                        } else {
+                            logger.warn("Exception while forwarding request closing pipeline", response.cause());
+                            written.setFailure(response.cause());
+                            ctx.close();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void runWhenComplete(final ChannelHandlerContext ctx, Future<?> future, final Runnable task) {
+        if (future == null || future.isDone()) {
+            if (ctx.executor().inEventLoop()) {
+                task.run();
+            } else {
+                ctx.executor().execute(task);
+            }
+        } else {
+            future.addListener(new GenericFutureListener<Future<Object>>() {
+                @Override
+                public void operationComplete(Future<Object> future) {
+                    ctx.executor().execute(task);
+                }
+            });
+        }
+    }
+
     private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive) {
+        writeResponse(ctx, response, isKeepAlive, ctx.newPromise());
+    }
+
+    private void writeResponse(ChannelHandlerContext ctx, FullHttpResponse response, boolean isKeepAlive, ChannelPromise written) {
         if (isKeepAlive) {
             // Add 'Content-Length' header only for a keep-alive connection.
             response.headers().set(CONTENT_LENGTH, response.content().readableBytes());
@@ -188,35 +319,34 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
             // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
             response.headers().set(CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
         }
-        ctx.write(response);
-        ctx.flush();
+        ctx.writeAndFlush(response, written);
     }
 
-    private FullHttpResponse mockResponse(NettyHttpRequest nettyHttpRequest) {
+    private Future<FullHttpResponse> mockResponse(NettyHttpRequest nettyHttpRequest) {
 
         if (nettyHttpRequest.matches(HttpMethod.PUT, "/dumpToLog")) {
 
             List<String> typeValues = nettyHttpRequest.parameters().get("type");
             boolean asJava = typeValues != null && !typeValues.isEmpty() && "java".equals(typeValues.get(0));
             logFilter.dumpToLog((nettyHttpRequest.content() != null ? httpRequestSerializer.deserialize(nettyHttpRequest.content().toString(CharsetUtil.UTF_8)) : null), asJava);
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/reset")) {
 
             logFilter.reset();
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/clear")) {
 
             org.mockserver.model.HttpRequest httpRequest = httpRequestSerializer.deserialize(nettyHttpRequest.content().toString(CharsetUtil.UTF_8));
             logFilter.clear(httpRequest);
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED));
 
         } else if (nettyHttpRequest.matches(HttpMethod.PUT, "/retrieve")) {
 
             Expectation[] expectations = logFilter.retrieve(httpRequestSerializer.deserialize((nettyHttpRequest.content() != null ? nettyHttpRequest.content().toString(CharsetUtil.UTF_8) : "")));
             String serialize = expectationSerializer.serialize(expectations);
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(serialize.getBytes()));
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(serialize.getBytes())));
 
         } else {
 
@@ -225,18 +355,54 @@ public class HttpProxyHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
-    private FullHttpResponse forwardRequest(NettyHttpRequest request) {
-        return sendRequest(filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(request)));
+    private Future<FullHttpResponse> forwardRequest(NettyHttpRequest request) {
+        return sendRequest(filters.applyFilters(nettyToMockServerRequestMapper.mapNettyRequestToForwardedRequest(request)));
     }
 
-    private FullHttpResponse sendRequest(final org.mockserver.model.HttpRequest httpRequest) {
+    private Future<FullHttpResponse> sendRequest(final org.mockserver.model.HttpRequest httpRequest) {
         // if HttpRequest was set to null by a filter don't send request
         if (httpRequest != null) {
-            HttpResponse httpResponse = filters.applyFilters(httpRequest, apacheHttpClient.sendRequest(httpRequest));
-            return mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse);
+            return filterResponse(httpRequest, nettyHttpClient.sendRequest(httpRequest), null);
         } else {
-            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            return completed(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        }
+    }
+
+    private Future<FullHttpResponse> filterResponse(final org.mockserver.model.HttpRequest httpRequest, Future<HttpResponse> forwardedResponse, final StreamedBody streamedBody) {
+        final Promise<FullHttpResponse> response = ImmediateEventExecutor.INSTANCE.newPromise();
+        forwardedResponse.addListener(new GenericFutureListener<Future<HttpResponse>>() {
+            @Override
+            public void operationComplete(Future<HttpResponse> future) {
+                if (future.isSuccess()) {
+                    try {
+                        if (streamedBody != null) {
+                            httpRequest.withBody(streamedBody.body());
+                        } else {
+                            httpRequest.withBody(NettyToMockServerRequestMapper.loggedBody(httpRequest.getBody()));
+                        }
+                        HttpResponse httpResponse = filters.applyFilters(httpRequest, future.getNow());
+                        response.setSuccess(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(httpResponse));
+                    } catch (RuntimeException re) {
+                        response.setFailure(re);
+                    }
+                } else {
+                    response.setFailure(future.cause());
+                }
+            }
+        });
+        return response;
+    }
+
+    private Future<FullHttpResponse> completed(FullHttpResponse response) {
+        return ImmediateEventExecutor.INSTANCE.newSucceededFuture(response);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (streamingRequest != null) {
+            streamingRequest.abort(new IOException("Connection closed before whole request body was received"));
         }
+        super.channelInactive(ctx);
     }
 
     @Override
@@ -13,8 +13,6 @@ import io.netty.handler.ssl.SslHandler;
 import org.mockserver.proxy.filters.LogFilter;
 import org.mockserver.socket.SSLFactory;
 
-import javax.net.ssl.SSLEngine;
-import java.net.InetSocketAddress;
 import java.util.List;
 
 /**
@@ -25,16 +23,14 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
     private final boolean sslEnabled;
     private final boolean socksEnabled;
     private final LogFilter logFilter = new LogFilter();
-    private final int port;
 
-    public ProxyUnificationHandler(int port) {
-        this(true, true, port);
+    public ProxyUnificationHandler() {
+        this(true, true);
     }
 
-    private ProxyUnificationHandler(boolean sslEnabled, boolean socksEnabled, int port) {
+    private ProxyUnificationHandler(boolean sslEnabled, boolean socksEnabled) {
         this.sslEnabled = sslEnabled;
         this.socksEnabled = socksEnabled;
-        this.port = port;
     }
 
 
@@ -105,12 +101,10 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
 
     private void enableSsl(ChannelHandlerContext ctx) {
         ChannelPipeline pipeline = ctx.pipeline();
-        SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
-        engine.setUseClientMode(false);
-        pipeline.addLast("ssl", new SslHandler(engine));
+        pipeline.addLast("ssl", SSLFactory.getInstance().serverSslHandler());
 
         // re-unify
-        pipeline.addLast("sslUnification", new ProxyUnificationHandler(false, socksEnabled, port));
+        pipeline.addLast("sslUnification", new ProxyUnificationHandler(false, socksEnabled));
         pipeline.remove(this);
     }
 
@@ -118,17 +112,17 @@ public class ProxyUnificationHandler extends ByteToMessageDecoder {
         ChannelPipeline pipeline = ctx.pipeline();
         pipeline.addLast(SocksInitRequestDecoder.class.getSimpleName(), new SocksInitRequestDecoder());
         pipeline.addLast(SocksMessageEncoder.class.getSimpleName(), new SocksMessageEncoder());
-        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled));
+        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, sslEnabled));
 
         // re-unify
-        pipeline.addLast("socksUnification", new ProxyUnificationHandler(sslEnabled, false, port));
+        pipeline.addLast("socksUnification", new ProxyUnificationHandler(sslEnabled, false));
         pipeline.remove(this);
     }
 
     private void switchToHttp(ChannelHandlerContext ctx) {
         ChannelPipeline pipeline = ctx.pipeline();
         pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
-        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, new InetSocketAddress(port), sslEnabled));
+        pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, null, sslEnabled));
         pipeline.remove(this);
     }
 }
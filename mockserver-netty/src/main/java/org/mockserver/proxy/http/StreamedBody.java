@@ -0,0 +1,60 @@
+package org.mockserver.proxy.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import io.netty.buffer.ByteBuf;
+import org.mockserver.model.Body;
+import org.mockserver.model.StringBody;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * What is kept of a request body that is streamed upstream so it can be recorded by the LogFilter, either the first
+ * limit bytes of the body or, when hashed, a SHA-256 hash of the whole body, so the memory used for each request
+ * does not grow with the size of its body
+ *
+ * @author jamesdbloom
+ */
+class StreamedBody {
+
+    private final int limit;
+    private final MessageDigest digest;
+    private final ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+
+    StreamedBody(int limit, boolean hashed) {
+        this.limit = limit;
+        try {
+            this.digest = (hashed ? MessageDigest.getInstance("SHA-256") : null);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new RuntimeException("Exception creating SHA-256 digest", nsae);
+        }
+    }
+
+    synchronized void update(ByteBuf content) {
+        if (digest != null) {
+            digest.update(content.nioBuffer());
+        } else {
+            int length = Math.min(content.readableBytes(), limit - prefix.size());
+            if (length > 0) {
+                byte[] bytes = new byte[length];
+                content.getBytes(content.readerIndex(), bytes);
+                prefix.write(bytes, 0, length);
+            }
+        }
+    }
+
+    synchronized Body body() {
+        if (digest != null) {
+            try {
+                byte[] hash = ((MessageDigest) digest.clone()).digest();
+                return new StringBody("sha-256:" + BaseEncoding.base16().lowerCase().encode(hash), Body.Type.EXACT);
+            } catch (CloneNotSupportedException cnse) {
+                throw new RuntimeException("Exception hashing streamed body", cnse);
+            }
+        } else {
+            return new StringBody(new String(prefix.toByteArray(), Charsets.UTF_8), Body.Type.EXACT);
+        }
+    }
+}
@@ -1,21 +1,22 @@
 package org.mockserver.proxy.http.connect;
 
+import com.google.common.net.HostAndPort;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
+import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.proxy.http.HttpProxy;
 import org.mockserver.proxy.http.relay.RelayConnectHandler;
 
-import java.net.InetSocketAddress;
-
 @ChannelHandler.Sharable
 public final class HttpConnectHandler extends RelayConnectHandler<HttpRequest> {
 
-    public HttpConnectHandler(InetSocketAddress connectSocket, boolean secure) {
-        super(connectSocket, secure);
+    public HttpConnectHandler(LogFilter logFilter, HttpProxy server, boolean secure) {
+        super(logFilter, server, secure);
     }
 
     protected void removeCodecSupport(ChannelHandlerContext ctx) {
-        ctx.pipeline().remove(HttpServerCodec.class.getSimpleName());
+        ctx.pipeline().remove(HttpServerCodec.class);
         ctx.pipeline().remove(this);
     }
 
@@ -23,6 +24,18 @@ public final class HttpConnectHandler extends RelayConnectHandler<HttpRequest> {
         return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
     }
 
+    protected String connectHost(Object request) {
+        if (request != null && request instanceof HttpRequest) {
+            try {
+                return HostAndPort.fromString(((HttpRequest) request).getUri()).getHostText();
+            } catch (IllegalArgumentException iae) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
     protected Object failureResponse(Object request) {
         return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_GATEWAY);
     }
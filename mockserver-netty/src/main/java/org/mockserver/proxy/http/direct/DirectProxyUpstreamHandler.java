@@ -6,17 +6,16 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.ssl.SslHandler;
 import org.mockserver.logging.LoggingHandler;
 import org.mockserver.proxy.http.relay.BasicHttpDecoder;
 import org.mockserver.proxy.http.relay.ProxyRelayHandler;
+import org.mockserver.proxy.http.relay.RelayBuffer;
 import org.mockserver.proxy.interceptor.Interceptor;
 import org.mockserver.proxy.interceptor.ResponseInterceptor;
 import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
 
 public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
@@ -25,9 +24,8 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
     private final InetSocketAddress remoteSocketAddress;
     private final boolean secure;
     private final int bufferedCapacity;
-    private final Interceptor interceptor;
     private volatile Channel outboundChannel;
-    private volatile ByteBuf channelBuffer;
+    private final RelayBuffer relayBuffer;
     private volatile boolean bufferedMode;
     private volatile boolean flushedBuffer;
     private volatile Integer contentLength;
@@ -38,8 +36,8 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
         this.remoteSocketAddress = remoteSocketAddress;
         this.secure = secure;
         this.bufferedCapacity = bufferedCapacity;
-        this.interceptor = interceptor;
         this.logger = LoggerFactory.getLogger(loggerName);
+        this.relayBuffer = new RelayBuffer(bufferedCapacity, interceptor, logger);
         bufferedMode = bufferedCapacity > 0;
         flushedBuffer = false;
         contentLength = null;
@@ -47,17 +45,9 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
         flushContent = false;
     }
 
-    @Override
-    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
-        this.channelBuffer = Unpooled.directBuffer(bufferedCapacity);
-        super.handlerAdded(ctx);
-    }
-
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-        if (channelBuffer.refCnt() >= 1) {
-            channelBuffer.release();
-        }
+        relayBuffer.release();
         super.handlerRemoved(ctx);
     }
 
@@ -82,23 +72,22 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
 
                         // add HTTPS proxy -> server support
                         if (secure) {
-                            SSLEngine engine = SSLFactory.getInstance().sslContext().createSSLEngine();
-                            engine.setUseClientMode(true);
-                            pipeline.addLast("proxy -> server ssl", new SslHandler(engine));
+                            pipeline.addLast("proxy -> server ssl", SSLFactory.getInstance().clientSslHandler(remoteSocketAddress.getHostName(), remoteSocketAddress.getPort()));
                         }
 
                         // add handler
                         pipeline.addLast(new ProxyRelayHandler(inboundChannel, bufferedCapacity, new ResponseInterceptor(), logger));
                     }
                 })
-                .option(ChannelOption.AUTO_READ, false);
+                .option(ChannelOption.AUTO_READ, false)
+                .option(ChannelOption.ALLOCATOR, inboundChannel.alloc());
         ChannelFuture channelFuture = bootstrap.connect(remoteSocketAddress);
         outboundChannel = channelFuture.channel();
         channelFuture.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
                 if (future.isSuccess()) {
-                    channelBuffer.clear();
+                    relayBuffer.release();
                     bufferedMode = bufferedCapacity > 0;
                     flushedBuffer = false;
                     // connection complete start to read first data
@@ -115,14 +104,13 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         if (outboundChannel.isActive()) {
-            if (bufferedMode && channelBuffer.isReadable()) {
+            if (bufferedMode && relayBuffer.isReadable()) {
                 flushedBuffer = true;
-                logger.debug("CHANNEL INACTIVE: " + channelBuffer.toString(Charsets.UTF_8));
-                outboundChannel.writeAndFlush(interceptor.intercept(ctx, channelBuffer, logger)).addListener(new ChannelFutureListener() {
+                logger.debug("CHANNEL INACTIVE: " + relayBuffer.toString(Charsets.UTF_8));
+                outboundChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                     @Override
                     public void operationComplete(ChannelFuture future) throws Exception {
                         if (future.isSuccess()) {
-                            channelBuffer.clear();
                             // flushed entire buffer upstream so close connection
                             outboundChannel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
                         } else {
@@ -140,14 +128,13 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-        if (bufferedMode && outboundChannel.isActive() && channelBuffer.isReadable()) {
+        if (bufferedMode && outboundChannel.isActive() && relayBuffer.isReadable()) {
             flushedBuffer = true;
-            logger.debug("CHANNEL READ COMPLETE: " + channelBuffer.toString(Charsets.UTF_8));
-            outboundChannel.writeAndFlush(interceptor.intercept(ctx, channelBuffer, logger)).addListener(new ChannelFutureListener() {
+            logger.debug("CHANNEL READ COMPLETE: " + relayBuffer.toString(Charsets.UTF_8));
+            outboundChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (future.isSuccess()) {
-                        channelBuffer.clear();
                     } else {
                         logger.warn("Failed to write to: " + remoteSocketAddress, future.cause());
                         future.channel().close();
@@ -173,14 +160,14 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
                     contentSoFar += chunk.readableBytes();
                 } else {
                     // find content length
-                    BasicHttpDecoder basicHttpDecoder = new BasicHttpDecoder(Unpooled.copiedBuffer(chunk));
+                    BasicHttpDecoder basicHttpDecoder = new BasicHttpDecoder(chunk);
                     contentLength = basicHttpDecoder.getContentLength();
                     contentSoFar = (chunk.readableBytes() - basicHttpDecoder.getContentStart());
                 }
 
                 if (logger.isTraceEnabled()) {
-                    logger.trace("CHUNK:                     ---\n-\n" + Unpooled.copiedBuffer(chunk).toString(Charsets.UTF_8) + "\n-\n");
-                    logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + (contentSoFar - Unpooled.copiedBuffer(chunk).toString(Charsets.UTF_8).length()));
+                    logger.trace("CHUNK:                     ---\n-\n" + chunk.toString(Charsets.UTF_8) + "\n-\n");
+                    logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + (contentSoFar - chunk.toString(Charsets.UTF_8).length()));
                     logger.trace("CHUNK-SIZE:                --- " + chunk.readableBytes());
                     logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + contentSoFar);
                     if (contentLength != null) {
@@ -194,26 +181,34 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
                     flushContent = (contentSoFar >= contentLength) || (chunk.readableBytes() == 0);
                 }
                 try {
-                    channelBuffer.writeBytes(chunk);
+                    relayBuffer.write(ctx, chunk);
+                    chunk.release();
                     ctx.channel().read();
                 } catch (IndexOutOfBoundsException iobe) {
                     logger.trace("Flushing buffer upstream and switching to chunked mode as downstream response too large");
                     bufferedMode = false;
-                    // write and flush buffer upstream
-                    if (outboundChannel.isActive() && channelBuffer.isReadable()) {
-                        logger.debug("CHANNEL READ EX: " + chunk.toString(Charsets.UTF_8));
-                        outboundChannel.writeAndFlush(channelBuffer).addListener(new ChannelFutureListener() {
+                    if (!relayBuffer.isReadable()) {
+                        // this chunk starts the request and is too large for the buffer, so intercept it as the head
+                        relayBuffer.release();
+                        channelRead(ctx, relayBuffer.intercept(ctx, chunk));
+                    } else if (outboundChannel.isActive()) {
+                        // write and flush the intercepted head upstream
+                        logger.debug("CHANNEL READ EX: " + relayBuffer.toString(Charsets.UTF_8));
+                        outboundChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                             @Override
                             public void operationComplete(ChannelFuture future) throws Exception {
                                 if (future.isSuccess()) {
-                                    // write and flush this chunk upstream in case this single chunk is too large for buffer
+                                    // write and flush the chunk that was too large for the buffer
                                     channelRead(ctx, chunk);
                                 } else {
                                     logger.warn("Failed to write to: " + remoteSocketAddress, future.cause());
+                                    chunk.release();
                                     future.channel().close();
                                 }
                             }
                         });
+                    } else {
+                        chunk.release();
                     }
                 }
             } else {
@@ -232,6 +227,8 @@ public class DirectProxyUpstreamHandler extends ChannelDuplexHandler {
                             }
                         }
                     });
+                } else {
+                    chunk.release();
                 }
             }
         }
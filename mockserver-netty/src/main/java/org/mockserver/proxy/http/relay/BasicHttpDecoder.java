@@ -15,10 +15,12 @@ public class BasicHttpDecoder {
     private Integer contentLength = null;
     private int contentStart;
 
+    /**
+     * Reads the headers through a duplicate of byteBuf, so its reader index is unchanged and the caller still owns it
+     */
     public BasicHttpDecoder(ByteBuf byteBuf) {
-        this.byteBuf = byteBuf;
+        this.byteBuf = byteBuf.duplicate();
         readContentLength();
-        byteBuf.release();
     }
 
     private String readLine() {
@@ -39,13 +41,14 @@ public class BasicHttpDecoder {
     }
 
     private void readContentLength() {
+        int start = byteBuf.readerIndex();
         while (byteBuf.isReadable()) {
             String line = readLine();
             if (line.startsWith(HttpHeaders.Names.CONTENT_LENGTH)) {
                 contentLength = Integer.parseInt(line.split(":")[1].trim());
             }
             if (contentLength != null && line.isEmpty()) {
-                contentStart = byteBuf.readerIndex();
+                contentStart = byteBuf.readerIndex() - start;
                 break;
             }
         }
@@ -1,26 +0,0 @@
-package org.mockserver.proxy.http.relay;
-
-import io.netty.channel.Channel;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.util.concurrent.Promise;
-
-
-public final class DirectClientHandler extends ChannelInboundHandlerAdapter {
-    private final Promise<Channel> promise;
-
-    public DirectClientHandler(Promise<Channel> promise) {
-        this.promise = promise;
-    }
-
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) {
-        ctx.pipeline().remove(this);
-        promise.setSuccess(ctx.channel());
-    }
-
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable throwable) throws Exception {
-        promise.setFailure(throwable);
-    }
-}
@@ -10,10 +10,8 @@ import org.slf4j.Logger;
 public class ProxyRelayHandler extends ChannelDuplexHandler {
 
     private final Logger logger;
-    private final Interceptor interceptor;
-    private final int bufferedCapacity;
     private volatile Channel relayChannel;
-    private volatile ByteBuf channelBuffer;
+    private final RelayBuffer relayBuffer;
     private volatile boolean bufferedMode;
     private volatile boolean flushedBuffer;
     private volatile Integer contentLength;
@@ -22,9 +20,8 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
 
     public ProxyRelayHandler(Channel relayChannel, int bufferedCapacity, Interceptor interceptor, Logger logger) {
         this.relayChannel = relayChannel;
-        this.bufferedCapacity = bufferedCapacity;
-        this.interceptor = interceptor;
         this.logger = logger;
+        this.relayBuffer = new RelayBuffer(bufferedCapacity, interceptor, logger);
         bufferedMode = bufferedCapacity > 0;
         flushedBuffer = false;
         contentLength = null;
@@ -32,17 +29,9 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
         flushContent = false;
     }
 
-    @Override
-    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
-        this.channelBuffer = Unpooled.directBuffer(bufferedCapacity);
-        super.handlerAdded(ctx);
-    }
-
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-        if (channelBuffer.refCnt() >= 1) {
-            channelBuffer.release();
-        }
+        relayBuffer.release();
         super.handlerRemoved(ctx);
     }
 
@@ -55,14 +44,13 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         if (relayChannel.isActive()) {
-            if (bufferedMode && channelBuffer.isReadable()) {
+            if (bufferedMode && relayBuffer.isReadable()) {
                 flushedBuffer = true;
-                logger.debug("CHANNEL INACTIVE: " + channelBuffer.toString(Charsets.UTF_8));
-                relayChannel.writeAndFlush(interceptor.intercept(ctx, channelBuffer, logger)).addListener(new ChannelFutureListener() {
+                logger.debug("CHANNEL INACTIVE: " + relayBuffer.toString(Charsets.UTF_8));
+                relayChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                     @Override
                     public void operationComplete(ChannelFuture future) throws Exception {
                         if (future.isSuccess()) {
-                            channelBuffer.clear();
                             // flushed entire buffer upstream so close connection
                             relayChannel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
                         } else {
@@ -80,13 +68,12 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-        if (bufferedMode && relayChannel.isActive() && channelBuffer.isReadable()) {
+        if (bufferedMode && relayChannel.isActive() && relayBuffer.isReadable()) {
             flushedBuffer = true;
-            relayChannel.writeAndFlush(interceptor.intercept(ctx, channelBuffer, logger)).addListener(new ChannelFutureListener() {
+            relayChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (future.isSuccess()) {
-                        channelBuffer.clear();
                     } else {
                         logger.warn("Failed to send flush channel buffer", future.cause());
                         future.channel().close();
@@ -112,14 +99,14 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
                     contentSoFar += chunk.readableBytes();
                 } else {
                     // find content length
-                    BasicHttpDecoder basicHttpDecoder = new BasicHttpDecoder(Unpooled.copiedBuffer(chunk));
+                    BasicHttpDecoder basicHttpDecoder = new BasicHttpDecoder(chunk);
                     contentLength = basicHttpDecoder.getContentLength();
                     contentSoFar = (chunk.readableBytes() - basicHttpDecoder.getContentStart());
                 }
 
                 if (logger.isTraceEnabled()) {
-                    logger.trace("CHUNK:                     ---\n-\n" + Unpooled.copiedBuffer(chunk).toString(Charsets.UTF_8) + "\n-\n");
-                    logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + (contentSoFar - Unpooled.copiedBuffer(chunk).toString(Charsets.UTF_8).length()));
+                    logger.trace("CHUNK:                     ---\n-\n" + chunk.toString(Charsets.UTF_8) + "\n-\n");
+                    logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + (contentSoFar - chunk.toString(Charsets.UTF_8).length()));
                     logger.trace("CHUNK-SIZE:                --- " + chunk.readableBytes());
                     logger.trace("CONTENT-SO-FAR-PRE-CHUNK:  --- " + contentSoFar);
                     if (contentLength != null) {
@@ -132,8 +119,11 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
                     logger.trace("Flushing buffer as all content received");
                     flushContent = (contentSoFar >= contentLength) || (chunk.readableBytes() == 0);
                 }
+                boolean buffered = false;
                 try {
-                    channelBuffer.writeBytes(chunk);
+                    relayBuffer.write(ctx, chunk);
+                    chunk.release();
+                    buffered = true;
                     ctx.channel().read();
                 } catch (IndexOutOfBoundsException iobe) {
                     logger.trace("Flushing buffer and switching to chunked mode as buffer full");
@@ -141,21 +131,32 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
                 }
                 if (flushContent) {
                     flushedBuffer = true;
-                    if (relayChannel.isActive() && channelBuffer.isReadable()) {
-                        logger.debug("CHANNEL READ EX: " + chunk.toString(Charsets.UTF_8));
-                        relayChannel.writeAndFlush(channelBuffer).addListener(new ChannelFutureListener() {
+                    final boolean chunkBuffered = buffered;
+                    if (!chunkBuffered && !relayBuffer.isReadable()) {
+                        // this chunk starts the message and is too large for the buffer, so intercept it as the head
+                        relayBuffer.release();
+                        channelRead(ctx, relayBuffer.intercept(ctx, chunk));
+                    } else if (relayChannel.isActive()) {
+                        logger.debug("CHANNEL READ EX: " + relayBuffer.toString(Charsets.UTF_8));
+                        relayChannel.writeAndFlush(relayBuffer.take(ctx)).addListener(new ChannelFutureListener() {
                             @Override
                             public void operationComplete(ChannelFuture future) throws Exception {
                                 if (future.isSuccess()) {
-                                    channelBuffer.clear();
-                                    // write and flush this chunk upstream in case this single chunk is too large for buffer
-                                    channelRead(ctx, chunk);
+                                    if (!chunkBuffered) {
+                                        // write and flush this chunk upstream as it was too large for buffer
+                                        channelRead(ctx, chunk);
+                                    }
                                 } else {
-                                    logger.warn("Failed to send flush channel buffer [" + channelBuffer + "]", future.cause());
+                                    logger.warn("Failed to send flush channel buffer", future.cause());
+                                    if (!chunkBuffered) {
+                                        chunk.release();
+                                    }
                                     future.channel().close();
                                 }
                             }
                         });
+                    } else if (!chunkBuffered) {
+                        chunk.release();
                     }
                 }
             } else {
@@ -174,6 +175,8 @@ public class ProxyRelayHandler extends ChannelDuplexHandler {
                             }
                         }
                     });
+                } else {
+                    chunk.release();
                 }
             }
         } else {
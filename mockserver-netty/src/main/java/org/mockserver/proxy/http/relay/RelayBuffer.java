@@ -0,0 +1,76 @@
+package org.mockserver.proxy.http.relay;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import org.mockserver.proxy.interceptor.Interceptor;
+import org.slf4j.Logger;
+
+import java.nio.charset.Charset;
+
+/**
+ * Holds the head of a relayed message until it is intercepted and written, it is public only so the direct proxy
+ * handler in the sibling package can share it with ProxyRelayHandler
+ *
+ * @author jamesdbloom
+ */
+public class RelayBuffer {
+
+    private final int bufferedCapacity;
+    private final Interceptor interceptor;
+    private final Logger logger;
+    private volatile ByteBuf channelBuffer;
+
+    public RelayBuffer(int bufferedCapacity, Interceptor interceptor, Logger logger) {
+        this.bufferedCapacity = bufferedCapacity;
+        this.interceptor = interceptor;
+        this.logger = logger;
+    }
+
+    /**
+     * The buffer is taken from the channel's allocator when the first chunk is buffered and grows as chunks are added,
+     * up to bufferedCapacity, so an idle connection holds no buffer and a small message only holds what it needs
+     *
+     * @throws IndexOutOfBoundsException if the chunk does not fit in what is left of bufferedCapacity, the chunk is left untouched
+     */
+    public void write(ChannelHandlerContext ctx, ByteBuf chunk) {
+        if (channelBuffer == null) {
+            channelBuffer = ctx.alloc().buffer(Math.min(chunk.readableBytes(), bufferedCapacity), bufferedCapacity);
+        }
+        channelBuffer.writeBytes(chunk);
+    }
+
+    public boolean isReadable() {
+        return channelBuffer != null && channelBuffer.isReadable();
+    }
+
+    /**
+     * Hands the intercepted buffer over to be written, writing it releases it so this buffer no longer holds a reference
+     */
+    public ByteBuf take(ChannelHandlerContext ctx) throws Exception {
+        ByteBuf buffer = channelBuffer;
+        channelBuffer = null;
+        return intercept(ctx, buffer);
+    }
+
+    /**
+     * Passes a message head that was never buffered through the interceptor, releasing it if a different buffer is returned
+     */
+    public ByteBuf intercept(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
+        ByteBuf intercepted = interceptor.intercept(ctx, buffer, logger);
+        if (intercepted != buffer) {
+            buffer.release();
+        }
+        return intercepted;
+    }
+
+    public void release() {
+        if (channelBuffer != null) {
+            channelBuffer.release();
+            channelBuffer = null;
+        }
+    }
+
+    public String toString(Charset charset) {
+        return channelBuffer != null ? channelBuffer.toString(charset) : "";
+    }
+}
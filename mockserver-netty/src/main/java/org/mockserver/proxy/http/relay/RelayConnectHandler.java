@@ -1,101 +1,54 @@
 package org.mockserver.proxy.http.relay;
 
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
-import io.netty.util.concurrent.Promise;
+import io.netty.handler.codec.http.HttpServerCodec;
 import org.mockserver.logging.LoggingHandler;
-import org.mockserver.proxy.interceptor.RequestInterceptor;
-import org.mockserver.proxy.interceptor.ResponseInterceptor;
+import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.proxy.http.HttpProxy;
+import org.mockserver.proxy.http.HttpProxyHandler;
 import org.mockserver.socket.SSLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.SSLEngine;
-import java.net.InetSocketAddress;
-
+/**
+ * Terminates a CONNECT tunnel on the channel it was requested on, once the client has been told the tunnel is open
+ * the codec for the CONNECT request is replaced with an SslHandler, if the tunnel is secure, an HttpServerCodec and
+ * an HttpProxyHandler, so requests sent through the tunnel are handled on the same channel and connection instead
+ * of being relayed to the proxy's own port
+ */
 @ChannelHandler.Sharable
 public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler<T> {
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private final Bootstrap bootstrap = new Bootstrap();
-    private final InetSocketAddress connectSocket;
+    private final LogFilter logFilter;
+    private final HttpProxy server;
     private final boolean secure;
 
-    public RelayConnectHandler(InetSocketAddress connectSocket, boolean secure) {
-        if (connectSocket == null) throw new IllegalArgumentException("Connect Socket can not be null");
-        this.connectSocket = connectSocket;
+    public RelayConnectHandler(LogFilter logFilter, HttpProxy server, boolean secure) {
+        this.logFilter = logFilter;
+        this.server = server;
         this.secure = secure;
     }
 
     @Override
     public void channelRead0(final ChannelHandlerContext ctx, final T request) throws Exception {
-        final Promise<Channel> promise = ctx.executor().newPromise();
-        promise.addListener(
-                new GenericFutureListener<Future<Channel>>() {
-                    @Override
-                    public void operationComplete(final Future<Channel> future) throws Exception {
-                        final Channel outboundChannel = future.getNow();
-                        if (future.isSuccess()) {
-                            ctx.channel().writeAndFlush(successResponse(request))
-                                    .addListener(new ChannelFutureListener() {
-                                        @Override
-                                        public void operationComplete(ChannelFuture channelFuture) throws Exception {
-                                            removeCodecSupport(ctx);
-
-                                            // downstream
-                                            if (secure) {
-                                                SSLEngine clientEngine = SSLFactory.getInstance().sslContext().createSSLEngine();
-                                                clientEngine.setUseClientMode(true);
-                                                outboundChannel.pipeline().addLast("outbound relay ssl", new SslHandler(clientEngine));
-                                            }
-                                            Logger outboundLogger = LoggerFactory.getLogger("                -->");
-                                            if (logger.isDebugEnabled()) {
-                                                outboundChannel.pipeline().addLast("outbound relay logger", new LoggingHandler(outboundLogger));
-                                            }
-                                            outboundChannel.pipeline().addLast(new ProxyRelayHandler(ctx.channel(), 1048576, new RequestInterceptor(null), outboundLogger));
-
+        ctx.writeAndFlush(successResponse(request)).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    ChannelPipeline pipeline = ctx.pipeline();
+                    removeCodecSupport(ctx);
 
-                                            // upstream
-                                            if (secure) {
-                                                SSLEngine serverEngine = SSLFactory.getInstance().sslContext().createSSLEngine();
-                                                serverEngine.setUseClientMode(false);
-                                                ctx.channel().pipeline().addLast("upstream relay ssl", new SslHandler(serverEngine));
-                                            }
-                                            Logger inboundLogger = LoggerFactory.getLogger("<-- ");
-                                            if (logger.isDebugEnabled()) {
-                                                ctx.channel().pipeline().addLast("upstream relay logger", new LoggingHandler(inboundLogger));
-                                            }
-                                            ctx.channel().pipeline().addLast(new ProxyRelayHandler(outboundChannel, 1048576, new ResponseInterceptor(), inboundLogger));
-                                        }
-                                    });
-                        } else {
-                            failure("Failed to activate handler and retrieve channel", future.cause(), ctx, failureResponse(request));
-                        }
+                    if (secure) {
+                        pipeline.addLast("upstream relay ssl", SSLFactory.getInstance().serverSslHandler(connectHost(request)));
                     }
-                });
-
-        final Channel inboundChannel = ctx.channel();
-        bootstrap.group(inboundChannel.eventLoop())
-                .channel(NioSocketChannel.class)
-                .handler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    public void initChannel(SocketChannel socketChannel) throws Exception {
-                        socketChannel.pipeline().addLast(DirectClientHandler.class.getSimpleName(), new DirectClientHandler(promise));
+                    if (logger.isDebugEnabled()) {
+                        pipeline.addLast("upstream relay logger", new LoggingHandler(LoggerFactory.getLogger("<-- ")));
                     }
-                });
-
-        bootstrap.connect(connectSocket).addListener(new ChannelFutureListener() {
-            @Override
-            public void operationComplete(ChannelFuture future) throws Exception {
-                if (!future.isSuccess()) {
-                    failure("Connection failed to 127.0.0.1:" + connectSocket, future.cause(), ctx, failureResponse(request));
+                    pipeline.addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
+                    pipeline.addLast(HttpProxyHandler.class.getSimpleName(), new HttpProxyHandler(logFilter, server, secure));
+                } else {
+                    failure("Failed to send CONNECT response", future.cause(), ctx, failureResponse(request));
                 }
             }
         });
@@ -119,5 +72,10 @@ public abstract class RelayConnectHandler<T> extends SimpleChannelInboundHandler
 
     protected abstract Object successResponse(Object request);
 
+    /**
+     * @return the host the client asked to connect to, used to mint the certificate presented to the client
+     */
+    protected abstract String connectHost(Object request);
+
     protected abstract Object failureResponse(Object request);
 }
@@ -6,18 +6,22 @@ import io.netty.handler.codec.socks.SocksAddressType;
 import io.netty.handler.codec.socks.SocksCmdRequest;
 import io.netty.handler.codec.socks.SocksCmdResponse;
 import io.netty.handler.codec.socks.SocksCmdStatus;
+import io.netty.handler.codec.socks.SocksMessageEncoder;
+import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.proxy.http.HttpProxy;
 import org.mockserver.proxy.http.relay.RelayConnectHandler;
 
-import java.net.InetSocketAddress;
-
 @ChannelHandler.Sharable
 public final class SocksConnectHandler extends RelayConnectHandler<SocksCmdRequest> {
 
-    public SocksConnectHandler(InetSocketAddress connectSocket, boolean secure) {
-        super(connectSocket, secure);
+    public SocksConnectHandler(LogFilter logFilter, HttpProxy server, boolean secure) {
+        super(logFilter, server, secure);
     }
 
     protected void removeCodecSupport(ChannelHandlerContext ctx) {
+        if (ctx.pipeline().get(SocksMessageEncoder.class) != null) {
+            ctx.pipeline().remove(SocksMessageEncoder.class);
+        }
         ctx.pipeline().remove(this);
     }
 
@@ -29,6 +33,14 @@ public final class SocksConnectHandler extends RelayConnectHandler<SocksCmdReque
         }
     }
 
+    protected String connectHost(Object request) {
+        if (request != null && request instanceof SocksCmdRequest) {
+            return ((SocksCmdRequest) request).host();
+        } else {
+            return null;
+        }
+    }
+
     protected Object failureResponse(Object request) {
         if (request != null && request instanceof SocksCmdRequest) {
             return new SocksCmdResponse(SocksCmdStatus.FAILURE, ((SocksCmdRequest) request).addressType());
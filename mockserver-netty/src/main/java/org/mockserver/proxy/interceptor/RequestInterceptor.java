@@ -12,13 +12,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Rewrites the headers at the start of a request, the bytes after the headers are relayed unchanged so any body
+ * in the buffer, chunked or not, is not decoded
+ *
  * @author jamesdbloom
  */
 public class RequestInterceptor implements Interceptor {
 
+    private static final byte[] END_OF_HEADERS = "\r\n\r\n".getBytes(Charsets.US_ASCII);
     private final InetSocketAddress remoteSocketAddress;
-    private final Decoder httpRequestDecoder = new Decoder();
-    private final Encoder httpRequestEncoder = new Encoder();
 
     public RequestInterceptor(InetSocketAddress remoteSocketAddress) {
 
@@ -27,12 +29,16 @@ public class RequestInterceptor implements Interceptor {
 
     @Override
     public ByteBuf intercept(ChannelHandlerContext ctx, ByteBuf channelBuffer, Logger logger) throws Exception {
-        ByteBuf channelBufferCopy = Unpooled.copiedBuffer(channelBuffer);
         logger.debug("INTERCEPTING - REQUEST: " + channelBuffer.toString(Charsets.UTF_8));
+        int headersEnd = endOfHeaders(channelBuffer);
+        if (headersEnd == -1) {
+            logger.debug("Not intercepting request as buffer does not contain the whole of the request headers");
+            return channelBuffer;
+        }
+        ByteBuf headersCopy = Unpooled.copiedBuffer(channelBuffer.slice(channelBuffer.readerIndex(), headersEnd - channelBuffer.readerIndex()));
         try {
-            List<ByteBuf> allRequestRawChunks = new ArrayList<ByteBuf>();
             List<Object> requestHttpFormattedChunks = new ArrayList<Object>();
-            httpRequestDecoder.callDecode(ctx, channelBufferCopy, requestHttpFormattedChunks);
+            new Decoder().callDecode(ctx, headersCopy, requestHttpFormattedChunks);
 
             for (Object httpChunk : requestHttpFormattedChunks) {
                 if (httpChunk instanceof HttpRequest) {
@@ -42,25 +48,44 @@ public class RequestInterceptor implements Interceptor {
                         httpRequest.headers().set(HttpHeaders.Names.HOST, remoteSocketAddress.getHostName() + ":" + remoteSocketAddress.getPort());
                     }
                     httpRequest.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-                }
-                logger.debug("HTTP-FORMATTED -REQUEST- " + httpChunk.getClass().getSimpleName() + " -- " + httpChunk);
-                if (!(httpChunk instanceof LastHttpContent)) {
+                    logger.debug("HTTP-FORMATTED -REQUEST- " + httpChunk.getClass().getSimpleName() + " -- " + httpChunk);
+
                     List<Object> requestRawChunks = new ArrayList<Object>();
-                    httpRequestEncoder.encode(ctx, httpChunk, requestRawChunks);
+                    new Encoder().encode(ctx, httpRequest, requestRawChunks);
+                    List<ByteBuf> allRequestRawChunks = new ArrayList<ByteBuf>();
                     for (Object rawChunk : requestRawChunks) {
                         if (rawChunk instanceof ByteBuf) {
                             allRequestRawChunks.add((ByteBuf) rawChunk);
                         }
                     }
+                    // the bytes after the headers are kept by the returned buffer after the caller releases channelBuffer
+                    allRequestRawChunks.add(channelBuffer.slice(headersEnd, channelBuffer.writerIndex() - headersEnd).retain());
+
+                    // wrap rather than copy the encoded chunks, releasing the returned buffer releases them
+                    return Unpooled.wrappedBuffer(allRequestRawChunks.toArray(new ByteBuf[allRequestRawChunks.size()]));
                 }
             }
-
-            return Unpooled.copiedBuffer(allRequestRawChunks.toArray(new ByteBuf[allRequestRawChunks.size()]));
+            return channelBuffer;
         } finally {
-            channelBufferCopy.release();
+            headersCopy.release();
         }
     }
 
+    /**
+     * @return the index after the blank line ending the headers or -1 if the headers are not complete
+     */
+    private static int endOfHeaders(ByteBuf buffer) {
+        for (int i = buffer.readerIndex(); i <= buffer.writerIndex() - END_OF_HEADERS.length; i++) {
+            boolean found = true;
+            for (int j = 0; j < END_OF_HEADERS.length && found; j++) {
+                found = buffer.getByte(i + j) == END_OF_HEADERS[j];
+            }
+            if (found) {
+                return i + END_OF_HEADERS.length;
+            }
+        }
+        return -1;
+    }
 
     private class Encoder extends HttpRequestEncoder {
         public void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
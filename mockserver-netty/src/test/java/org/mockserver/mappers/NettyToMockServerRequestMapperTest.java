@@ -10,6 +10,7 @@ import org.mockserver.model.*;
 
 import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -78,4 +79,56 @@ public class NettyToMockServerRequestMapperTest {
         assertEquals("http://localhost/requestURI", httpRequest.getURL());
         assertEquals("/requestURI", httpRequest.getPath());
     }
+
+    @Test
+    public void shouldMapUtf8BodyToStringBody() {
+        // given
+        NettyHttpRequest nettyHttpRequest = new NettyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/requestURI", false);
+        nettyHttpRequest.content(Unpooled.wrappedBuffer("1a!@£$%^&*()_+=-".getBytes(Charsets.UTF_8)));
+
+        // when
+        HttpRequest httpRequest = new NettyToMockServerRequestMapper().mapNettyRequestToMockServerRequest(nettyHttpRequest);
+
+        // then
+        assertEquals(new StringBody("1a!@£$%^&*()_+=-", Body.Type.EXACT), httpRequest.getBody());
+    }
+
+    @Test
+    public void shouldMapNonUtf8BodyToUtf8StringBodyForMatching() {
+        // given
+        byte[] body = new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f};
+        NettyHttpRequest nettyHttpRequest = new NettyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/requestURI", false);
+        nettyHttpRequest.content(Unpooled.wrappedBuffer(body));
+
+        // when
+        HttpRequest httpRequest = new NettyToMockServerRequestMapper().mapNettyRequestToMockServerRequest(nettyHttpRequest);
+
+        // then
+        assertEquals(new StringBody(new String(body, Charsets.UTF_8), Body.Type.EXACT), httpRequest.getBody());
+    }
+
+    @Test
+    public void shouldMapNonUtf8BodyToBinaryBodyForForwarding() {
+        // given
+        byte[] body = new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f};
+        NettyHttpRequest nettyHttpRequest = new NettyHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/requestURI", false);
+        nettyHttpRequest.content(Unpooled.wrappedBuffer(body));
+
+        // when
+        HttpRequest httpRequest = new NettyToMockServerRequestMapper().mapNettyRequestToForwardedRequest(nettyHttpRequest);
+
+        // then
+        assertEquals(Body.Type.BINARY, httpRequest.getBody().getType());
+        assertArrayEquals(body, ((BinaryBody) httpRequest.getBody()).getValue());
+    }
+
+    @Test
+    public void shouldLogForwardedBinaryBodyAsUtf8StringBody() {
+        // given
+        byte[] body = new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f};
+
+        // then
+        assertEquals(new StringBody(new String(body, Charsets.UTF_8), Body.Type.EXACT), NettyToMockServerRequestMapper.loggedBody(new BinaryBody(body)));
+        assertEquals(new StringBody("some_body", Body.Type.EXACT), NettyToMockServerRequestMapper.loggedBody(new StringBody("some_body", Body.Type.EXACT)));
+    }
 }
@@ -2,11 +2,14 @@ package org.mockserver.mockserver;
 
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.MockServerToNettyResponseMapper;
@@ -14,15 +17,20 @@ import org.mockserver.mappers.NettyToMockServerRequestMapper;
 import org.mockserver.matchers.Times;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.MockServerMatcher;
+import org.mockserver.model.Delay;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.model.NettyHttpRequest;
+import org.mockserver.model.Throttle;
 import org.mockserver.proxy.filters.Filters;
 import org.mockserver.proxy.filters.LogFilter;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
@@ -43,7 +51,7 @@ public class MockServerHandlerTest {
     @Mock
     private Filters filters;
     @Mock
-    private ApacheHttpClient apacheHttpClient;
+    private NettyHttpClient nettyHttpClient;
     @Mock
     private NettyToMockServerRequestMapper nettyToMockServerRequestMapper;
     @Mock
@@ -79,16 +87,40 @@ public class MockServerHandlerTest {
         Expectation expectation = spy(new Expectation(new HttpRequest(), once()).thenRespond(httpResponse));
         when(expectationSerializer.deserialize(anyString())).thenReturn(expectation);
         when(mockServerMatcher.when(any(HttpRequest.class), any(Times.class))).thenReturn(expectation);
+        when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
 
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/expectation", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/expectation", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(expectationSerializer).deserialize("some_content");
         verify(expectation).thenRespond(same(httpResponse));
+        verify(mockServerToNettyResponseMapper).mapMockServerResponseToNettyResponse(same(httpResponse));
         assertThat(response.getStatus(), is(HttpResponseStatus.CREATED));
     }
 
+    @Test
+    public void shouldReturnResponseRenderedWhenExpectationWasAdded() {
+        // given
+        HttpResponse httpResponse = response();
+        Expectation expectation = new Expectation(new HttpRequest(), once()).thenRespond(httpResponse);
+        when(expectationSerializer.deserialize(anyString())).thenReturn(expectation);
+        when(mockServerMatcher.when(any(HttpRequest.class), any(Times.class))).thenReturn(expectation);
+        when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT));
+        when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenReturn(request());
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(httpResponse);
+        mockServerHandler.mockResponse(createNettyHttpRequest("/expectation", HttpMethod.PUT, "some_content"));
+
+        // when
+        FullHttpResponse first = mockServerHandler.mockResponse(createNettyHttpRequest("/some_path", HttpMethod.GET, "")).getResponse().getNow();
+        FullHttpResponse second = mockServerHandler.mockResponse(createNettyHttpRequest("/some_path", HttpMethod.GET, "")).getResponse().getNow();
+
+        // then - the response is mapped once when the expectation is added and not for each request
+        verify(mockServerToNettyResponseMapper, times(1)).mapMockServerResponseToNettyResponse(same(httpResponse));
+        assertThat(first.getStatus(), is(HttpResponseStatus.NO_CONTENT));
+        assertThat(second, sameInstance(first));
+    }
+
     @Test
     public void shouldAddExpectationWithForward() {
         // given
@@ -98,7 +130,7 @@ public class MockServerHandlerTest {
         when(mockServerMatcher.when(any(HttpRequest.class), any(Times.class))).thenReturn(expectation);
 
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/expectation", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/expectation", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(expectationSerializer).deserialize("some_content");
@@ -109,7 +141,7 @@ public class MockServerHandlerTest {
     @Test
     public void shouldResetExpectations() {
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/reset", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/reset", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(logFilter).reset();
@@ -124,7 +156,7 @@ public class MockServerHandlerTest {
         when(httpRequestSerializer.deserialize(anyString())).thenReturn(request);
 
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/clear", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/clear", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(httpRequestSerializer).deserialize("some_content");
@@ -140,7 +172,7 @@ public class MockServerHandlerTest {
         when(httpRequestSerializer.deserialize(anyString())).thenReturn(request);
 
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/dumpToLog", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/dumpToLog", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(httpRequestSerializer).deserialize("some_content");
@@ -158,7 +190,7 @@ public class MockServerHandlerTest {
         when(expectationSerializer.serialize(expectations)).thenReturn("serialized_expectation");
 
         // when
-        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/retrieve", HttpMethod.PUT, "some_content"));
+        FullHttpResponse response = mockServerHandler.mockResponse(createNettyHttpRequest("/retrieve", HttpMethod.PUT, "some_content")).getResponse().getNow();
 
         // then
         verify(httpRequestSerializer).deserialize("some_content");
@@ -179,7 +211,7 @@ public class MockServerHandlerTest {
         when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(defaultFullHttpResponse);
 
         // when
-        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest);
+        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest).getResponse().getNow();
 
         // then
         verify(nettyToMockServerRequestMapper).mapNettyRequestToMockServerRequest(nettyHttpRequest);
@@ -187,6 +219,34 @@ public class MockServerHandlerTest {
         assertThat(result.getStatus(), is(HttpResponseStatus.NO_CONTENT));
     }
 
+    @Test
+    public void shouldNotBlockForResponseDelay() {
+        // given
+        HttpResponse response = response().withDelay(new Delay(TimeUnit.SECONDS, 10)).withThrottle(new Throttle().withBytesPerSecond(1024));
+        NettyHttpRequest nettyHttpRequest = createNettyHttpRequest("/some_other_path", HttpMethod.GET, "some_content");
+
+        when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenReturn(request());
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(response);
+        when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+
+        // when
+        long start = System.currentTimeMillis();
+        MockedResponse mockedResponse = mockServerHandler.mockResponse(nettyHttpRequest);
+
+        // then - the delay is left for the event loop to schedule
+        assertThat(System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(10), is(true));
+        assertThat(mockedResponse.getDelayInMilliseconds(), is(TimeUnit.SECONDS.toMillis(10)));
+        assertThat(mockedResponse.getThrottle(), is(new Throttle().withBytesPerSecond(1024)));
+
+        // when
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(response());
+        mockedResponse = mockServerHandler.mockResponse(nettyHttpRequest);
+
+        // then
+        assertThat(mockedResponse.getDelayInMilliseconds(), is(0l));
+        assertThat(mockedResponse.getThrottle(), is((Throttle) null));
+    }
+
     @Test
     public void shouldForwardMatchedExpectation() {
         // given
@@ -197,24 +257,57 @@ public class MockServerHandlerTest {
         DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
 
         when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenReturn(request);
+        when(nettyToMockServerRequestMapper.mapNettyRequestToForwardedRequest(any(NettyHttpRequest.class))).thenReturn(request);
         when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(forward);
         when(filters.applyFilters(any(HttpRequest.class))).thenReturn(request);
-        when(apacheHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(response);
+        when(nettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(ImmediateEventExecutor.INSTANCE.newSucceededFuture(response));
         when(filters.applyFilters(any(HttpRequest.class), any(HttpResponse.class))).thenReturn(response);
         when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(defaultFullHttpResponse);
 
         // when
-        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest);
+        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest).getResponse().getNow();
 
         // then
         verify(mockServerMatcher).handle(request);
+        verify(nettyToMockServerRequestMapper).mapNettyRequestToForwardedRequest(nettyHttpRequest);
         verify(filters).applyFilters(request);
-        verify(apacheHttpClient).sendRequest(request);
+        verify(nettyHttpClient).sendRequest(request);
         verify(filters).applyFilters(request, response);
         verify(mockServerToNettyResponseMapper).mapMockServerResponseToNettyResponse(response);
         assertThat(result.getStatus(), is(HttpResponseStatus.NO_CONTENT));
     }
 
+    @Test
+    public void shouldNotWaitForForwardedResponse() {
+        // given
+        HttpRequest request = request();
+        HttpResponse response = response();
+        NettyHttpRequest nettyHttpRequest = createNettyHttpRequest("/some_other_path", HttpMethod.GET, "some_content");
+        DefaultFullHttpResponse defaultFullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
+        Promise<HttpResponse> forwardedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        when(nettyToMockServerRequestMapper.mapNettyRequestToMockServerRequest(any(NettyHttpRequest.class))).thenReturn(request);
+        when(nettyToMockServerRequestMapper.mapNettyRequestToForwardedRequest(any(NettyHttpRequest.class))).thenReturn(request);
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(forward());
+        when(filters.applyFilters(any(HttpRequest.class))).thenReturn(request);
+        when(nettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(forwardedResponse);
+        when(filters.applyFilters(any(HttpRequest.class), any(HttpResponse.class))).thenReturn(response);
+        when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(any(HttpResponse.class))).thenReturn(defaultFullHttpResponse);
+
+        // when
+        Future<FullHttpResponse> result = mockServerHandler.mockResponse(nettyHttpRequest).getResponse();
+
+        // then
+        assertThat(result.isDone(), is(false));
+
+        // when
+        forwardedResponse.setSuccess(response);
+
+        // then
+        verify(filters).applyFilters(request, response);
+        assertThat(result.getNow().getStatus(), is(HttpResponseStatus.NO_CONTENT));
+    }
+
     @Test
     public void shouldReturnNotFound() {
         // given
@@ -227,7 +320,7 @@ public class MockServerHandlerTest {
         when(mockServerToNettyResponseMapper.mapMockServerResponseToNettyResponse(null)).thenReturn(defaultFullHttpResponse);
 
         // when
-        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest);
+        FullHttpResponse result = mockServerHandler.mockResponse(nettyHttpRequest).getResponse().getNow();
 
         // then
         verify(mockServerMatcher).handle(request);
@@ -0,0 +1,65 @@
+package org.mockserver.mockserver;
+
+import org.mockserver.socket.PortFactory;
+import org.mockserver.socket.SSLFactory;
+
+import javax.net.ssl.SSLSocket;
+import java.io.File;
+import java.net.Socket;
+
+/**
+ * Measures how long MockServer.start() takes with and without an HTTPS port, which should be about the same as the key
+ * store is only loaded or generated when the first secure connection is accepted, and how long that first secure
+ * connection takes, which depends on whether the key store was generated or loaded from mockserver.sslKeyStoreDirectory
+ *
+ * run twice with: java -Dmockserver.sslKeyStoreDirectory=<directory> -cp <test classpath> org.mockserver.mockserver.MockServerStartupBenchmark [iterations]
+ * the first run generates the key store and the second loads it
+ *
+ * @author jamesdbloom
+ */
+public class MockServerStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        System.out.println(String.format("%30s %15s", "", "time (ms)"));
+
+        // warm up
+        start(false).stop();
+
+        System.out.println(String.format("%30s %15d", "start http", startNanos(false, iterations) / iterations / 1000000));
+        System.out.println(String.format("%30s %15d", "start http & https", startNanos(true, iterations) / iterations / 1000000));
+
+        File keyStoreFile = SSLFactory.getInstance().keyStoreFile();
+        boolean keyStoreExisted = keyStoreFile.exists();
+        int securePort = PortFactory.findFreePort();
+        MockServer mockServer = new MockServer();
+        mockServer.start(null, securePort);
+        try {
+            long start = System.nanoTime();
+            SSLSocket sslSocket = SSLFactory.getInstance().wrapSocket(new Socket("localhost", securePort));
+            long nanos = System.nanoTime() - start;
+            sslSocket.close();
+            System.out.println(String.format("%30s %15d", "first https connection", nanos / 1000000));
+            System.out.println("key store " + (keyStoreExisted ? "loaded from " : "generated and saved to ") + keyStoreFile.getAbsolutePath());
+        } finally {
+            mockServer.stop();
+        }
+    }
+
+    private static MockServer start(boolean secure) {
+        MockServer mockServer = new MockServer();
+        mockServer.start(PortFactory.findFreePort(), secure ? PortFactory.findFreePort() : null);
+        return mockServer;
+    }
+
+    private static long startNanos(boolean secure, int iterations) {
+        long nanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            MockServer mockServer = start(secure);
+            nanos += System.nanoTime() - start;
+            mockServer.stop();
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,109 @@
+package org.mockserver.mockserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author jamesdbloom
+ */
+public class RenderedResponseTest {
+
+    private FullHttpResponse response(byte[] body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED, Unpooled.copiedBuffer(body));
+        response.headers().add("headerName", "headerValue");
+        response.headers().add(HttpHeaders.Names.SET_COOKIE, "cookieName=cookieValue");
+        return response;
+    }
+
+    private byte[] encode(FullHttpResponse response) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        channel.writeOutbound(response);
+        channel.finish();
+        ByteBuf encoded = Unpooled.buffer();
+        ByteBuf part;
+        while ((part = (ByteBuf) channel.readOutbound()) != null) {
+            encoded.writeBytes(part);
+            part.release();
+        }
+        return bytes(encoded);
+    }
+
+    private byte[] bytes(ByteBuf... buffers) {
+        ByteBuf joined = Unpooled.buffer();
+        for (ByteBuf buffer : buffers) {
+            joined.writeBytes(buffer, buffer.readerIndex(), buffer.readableBytes());
+        }
+        byte[] bytes = new byte[joined.readableBytes()];
+        joined.readBytes(bytes);
+        return bytes;
+    }
+
+    private ByteBuf root(ByteBuf buffer) {
+        while (buffer.unwrap() != null) {
+            buffer = buffer.unwrap();
+        }
+        return buffer;
+    }
+
+    @Test
+    public void shouldWriteSameBytesAsEncoder() {
+        // given
+        byte[] body = "some_body".getBytes(CharsetUtil.UTF_8);
+        RenderedResponse renderedResponse = new RenderedResponse(response(body));
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = channel.pipeline().lastContext();
+
+        // when
+        renderedResponse.write(ctx, false, ctx.newPromise());
+        byte[] written = bytes((ByteBuf) channel.readOutbound(), (ByteBuf) channel.readOutbound());
+        renderedResponse.write(ctx, true, ctx.newPromise());
+        byte[] writtenKeepAlive = bytes((ByteBuf) channel.readOutbound(), (ByteBuf) channel.readOutbound());
+
+        // then
+        assertArrayEquals(encode(response(body)), written);
+        FullHttpResponse keepAliveResponse = response(body);
+        keepAliveResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, body.length);
+        keepAliveResponse.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        assertArrayEquals(encode(keepAliveResponse), writtenKeepAlive);
+        assertThat(renderedResponse.getStatus(), is(HttpResponseStatus.ACCEPTED));
+    }
+
+    @Test
+    public void shouldWriteSameBodyBufferForEachRequest() {
+        // given
+        byte[] body = new byte[1024 * 1024];
+        Arrays.fill(body, (byte) 'a');
+        RenderedResponse renderedResponse = new RenderedResponse(response(body));
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(), new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = channel.pipeline().lastContext();
+
+        // when
+        renderedResponse.write(ctx, true, ctx.newPromise());
+        channel.readOutbound();
+        ByteBuf firstBody = (ByteBuf) channel.readOutbound();
+        firstBody.release();
+        renderedResponse.write(ctx, true, ctx.newPromise());
+        channel.readOutbound();
+        ByteBuf secondBody = (ByteBuf) channel.readOutbound();
+        secondBody.release();
+
+        // then - both requests are written from the same buffer, which releasing a write does not free
+        assertThat(root(secondBody), sameInstance(root(firstBody)));
+        assertThat(root(firstBody).refCnt(), is(1));
+        assertThat(firstBody.readableBytes(), is(body.length));
+        assertThat(secondBody.readableBytes(), is(body.length));
+    }
+}
@@ -0,0 +1,98 @@
+package org.mockserver.mockserver;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.*;
+import org.junit.Test;
+import org.mockserver.model.Delay;
+import org.mockserver.model.Throttle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jamesdbloom
+ */
+public class ThrottledResponseWriterTest {
+
+    @Test
+    public void shouldDefaultChunkSizeFromThroughput() {
+        assertThat(ThrottledResponseWriter.chunkSize(new Throttle().withChunkSize(100).withBytesPerSecond(1000)), is(100));
+        assertThat(ThrottledResponseWriter.chunkSize(new Throttle().withBytesPerSecond(1000)), is(100));
+        assertThat(ThrottledResponseWriter.chunkSize(new Throttle().withBytesPerSecond(5)), is(1));
+        assertThat(ThrottledResponseWriter.chunkSize(new Throttle().withBytesPerSecond(1024 * 1024)), is(ThrottledResponseWriter.MAX_DEFAULT_CHUNK_SIZE));
+        assertThat(ThrottledResponseWriter.chunkSize(new Throttle()), is(ThrottledResponseWriter.MAX_DEFAULT_CHUNK_SIZE));
+    }
+
+    @Test
+    public void shouldUseLongerOfThroughputAndChunkDelay() {
+        assertThat(ThrottledResponseWriter.chunkDelayNanos(new Throttle().withBytesPerSecond(1000), 100), is(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(ThrottledResponseWriter.chunkDelayNanos(new Throttle().withBytesPerSecond(1000).withChunkDelay(new Delay(TimeUnit.MILLISECONDS, 250)), 100), is(TimeUnit.MILLISECONDS.toNanos(250)));
+        assertThat(ThrottledResponseWriter.chunkDelayNanos(new Throttle().withChunkDelay(new Delay(TimeUnit.MILLISECONDS, 5)), 100), is(TimeUnit.MILLISECONDS.toNanos(5)));
+        assertThat(ThrottledResponseWriter.chunkDelayNanos(new Throttle(), 100), is(0l));
+    }
+
+    @Test
+    public void shouldWriteThrottledChunks() throws Exception {
+        // given
+        final Throttle throttle = new Throttle().withBytesPerSecond(4000).withChunkSize(100);
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel serverChannel = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec(), new SimpleChannelInboundHandler<LastHttpContent>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, LastHttpContent msg) {
+                                    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(new byte[1000]));
+                                    new ThrottledResponseWriter(ctx, response, throttle, ctx.newPromise()).write(true);
+                                }
+                            });
+                        }
+                    })
+                    .bind(0).sync().channel();
+            Socket socket = new Socket("localhost", ((InetSocketAddress) serverChannel.localAddress()).getPort());
+            socket.setSoTimeout(5000);
+
+            // when
+            long start = System.currentTimeMillis();
+            socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+            String response = readUntilLastChunk(socket.getInputStream());
+            long elapsed = System.currentTimeMillis() - start;
+            socket.close();
+
+            // then - 1000 bytes at 4000 bytes per second as ten chunks of 100 bytes
+            assertTrue(response, response.contains("Transfer-Encoding: chunked"));
+            assertThat(response.split("\r\n64\r\n", -1).length - 1, is(10));
+            assertTrue("elapsed " + elapsed, elapsed >= 200);
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private String readUntilLastChunk(InputStream inputStream) throws Exception {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        int read;
+        while ((read = inputStream.read()) != -1) {
+            response.write(read);
+            if (response.toString("ISO-8859-1").endsWith("\r\n0\r\n\r\n")) {
+                break;
+            }
+        }
+        return response.toString("ISO-8859-1");
+    }
+}
@@ -0,0 +1,164 @@
+package org.mockserver.proxy.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.configuration.SystemProperties;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.Body;
+import org.mockserver.model.StringBody;
+import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.proxy.filters.ProxyRequestFilter;
+
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author jamesdbloom
+ */
+public class HttpProxyHandlerTest {
+
+    private static final byte[] BODY = new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28, (byte) 0x80, 0x7f};
+    private final LogFilter logFilter = new LogFilter();
+    private EventLoopGroup serverGroup;
+    private volatile byte[] receivedBody;
+    private int port;
+    private int originalLogLimit;
+    private boolean originalLogHashed;
+    private boolean originalStreamed;
+
+    @Before
+    public void startServer() throws InterruptedException {
+        originalLogLimit = SystemProperties.forwardedBodyLogLimit();
+        originalLogHashed = SystemProperties.forwardedBodyLogHashed();
+        originalStreamed = SystemProperties.streamForwardedRequestBody();
+        serverGroup = new NioEventLoopGroup(1);
+        Channel serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(1024 * 1024), new SimpleChannelInboundHandler<FullHttpRequest>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+                                byte[] body = new byte[request.content().readableBytes()];
+                                request.content().getBytes(0, body);
+                                receivedBody = body;
+                                FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.ACCEPTED);
+                                response.headers().set(HttpHeaders.Names.CONTENT_LENGTH, 0);
+                                ctx.writeAndFlush(response);
+                            }
+                        });
+                    }
+                })
+                .bind(0).sync().channel();
+        port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @After
+    public void stopServer() {
+        serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        SystemProperties.forwardedBodyLogLimit(originalLogLimit);
+        SystemProperties.forwardedBodyLogHashed(originalLogHashed);
+        SystemProperties.streamForwardedRequestBody(originalStreamed);
+    }
+
+    private FullHttpResponse proxyChunkedRequest(HttpProxyHandler httpProxyHandler) throws InterruptedException {
+        EmbeddedChannel channel = new EmbeddedChannel(httpProxyHandler);
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "http://localhost:" + port + "/some_path");
+        request.headers().set(HttpHeaders.Names.HOST, "localhost:" + port);
+        HttpHeaders.setTransferEncodingChunked(request);
+        channel.writeInbound(request);
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(BODY, 0, 3)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(BODY, 3, 3)));
+
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        Object response;
+        while ((response = channel.readOutbound()) == null && System.currentTimeMillis() < timeout) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            channel.runPendingTasks();
+        }
+        return (FullHttpResponse) response;
+    }
+
+    private Body loggedBody() {
+        List<org.mockserver.model.HttpRequest> loggedRequests = logFilter.httpRequests(new org.mockserver.model.HttpRequest());
+        assertThat(loggedRequests.size(), is(1));
+        return loggedRequests.get(0).getBody();
+    }
+
+    @Test
+    public void shouldStreamBinaryBodyAndLogBoundedPrefix() throws Exception {
+        // given
+        SystemProperties.streamForwardedRequestBody(true);
+        SystemProperties.forwardedBodyLogLimit(4);
+        SystemProperties.forwardedBodyLogHashed(false);
+
+        // when
+        FullHttpResponse response = proxyChunkedRequest(new HttpProxyHandler(logFilter, null, false));
+
+        // then
+        assertThat(response.getStatus(), is(HttpResponseStatus.ACCEPTED));
+        assertArrayEquals(BODY, receivedBody);
+        assertThat(loggedBody(), is((Body) new StringBody(new String(new byte[]{0x00, (byte) 0xff, (byte) 0xc3, 0x28}, Charsets.UTF_8), Body.Type.EXACT)));
+    }
+
+    @Test
+    public void shouldStreamBinaryBodyAndLogHash() throws Exception {
+        // given
+        SystemProperties.streamForwardedRequestBody(true);
+        SystemProperties.forwardedBodyLogHashed(true);
+
+        // when
+        FullHttpResponse response = proxyChunkedRequest(new HttpProxyHandler(logFilter, null, false));
+
+        // then
+        assertThat(response.getStatus(), is(HttpResponseStatus.ACCEPTED));
+        assertArrayEquals(BODY, receivedBody);
+        String hash = BaseEncoding.base16().lowerCase().encode(MessageDigest.getInstance("SHA-256").digest(BODY));
+        assertThat(loggedBody(), is((Body) new StringBody("sha-256:" + hash, Body.Type.EXACT)));
+    }
+
+    @Test
+    public void shouldFilterAndLogWholeBodyWhenNotStreamed() throws Exception {
+        // given
+        SystemProperties.streamForwardedRequestBody(false);
+        SystemProperties.forwardedBodyLogLimit(4);
+        final List<Body> filteredBodies = new ArrayList<Body>();
+        HttpProxyHandler httpProxyHandler = new HttpProxyHandler(logFilter, null, false).withFilter(new org.mockserver.model.HttpRequest(), new ProxyRequestFilter() {
+            @Override
+            public org.mockserver.model.HttpRequest onRequest(org.mockserver.model.HttpRequest httpRequest) {
+                filteredBodies.add(httpRequest.getBody());
+                return httpRequest;
+            }
+        });
+
+        // when
+        FullHttpResponse response = proxyChunkedRequest(httpProxyHandler);
+
+        // then
+        assertThat(response.getStatus(), is(HttpResponseStatus.ACCEPTED));
+        assertArrayEquals(BODY, receivedBody);
+        assertThat(filteredBodies, is(Arrays.<Body>asList(new BinaryBody(BODY))));
+        assertThat(loggedBody(), is((Body) new StringBody(new String(BODY, Charsets.UTF_8), Body.Type.EXACT)));
+    }
+}
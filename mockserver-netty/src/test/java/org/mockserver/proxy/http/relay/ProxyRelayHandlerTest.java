@@ -0,0 +1,147 @@
+package org.mockserver.proxy.http.relay;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+import org.mockserver.proxy.interceptor.RequestInterceptor;
+import org.mockserver.proxy.interceptor.ResponseInterceptor;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author jamesdbloom
+ */
+public class ProxyRelayHandlerTest {
+
+    private static final String HEADERS = "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n";
+
+    private String relayed(EmbeddedChannel relayChannel) {
+        StringBuilder relayed = new StringBuilder();
+        ByteBuf buffer;
+        while ((buffer = (ByteBuf) relayChannel.readOutbound()) != null) {
+            relayed.append(buffer.toString(CharsetUtil.UTF_8));
+            buffer.release();
+        }
+        return relayed.toString();
+    }
+
+    @Test
+    public void shouldBufferMessageAndReleaseChunks() {
+        // given
+        EmbeddedChannel relayChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProxyRelayHandler(relayChannel, 1048576, new ResponseInterceptor(), LoggerFactory.getLogger(ProxyRelayHandlerTest.class)));
+        ByteBuf firstChunk = Unpooled.copiedBuffer(HEADERS + "01234", CharsetUtil.UTF_8);
+        ByteBuf secondChunk = Unpooled.copiedBuffer("56789", CharsetUtil.UTF_8);
+
+        // when
+        channel.pipeline().fireChannelRead(firstChunk);
+        channel.pipeline().fireChannelRead(secondChunk);
+        channel.pipeline().fireChannelReadComplete();
+
+        // then - the whole message is relayed in one write
+        ByteBuf relayed = (ByteBuf) relayChannel.readOutbound();
+        assertThat(relayed.toString(CharsetUtil.UTF_8), is(HEADERS + "0123456789"));
+        relayed.release();
+        assertThat(relayChannel.readOutbound(), nullValue());
+        assertThat(firstChunk.refCnt(), is(0));
+        assertThat(secondChunk.refCnt(), is(0));
+        channel.finish();
+    }
+
+    @Test
+    public void shouldRelayChunksTooLargeForBuffer() {
+        // given
+        EmbeddedChannel relayChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProxyRelayHandler(relayChannel, HEADERS.length(), new ResponseInterceptor(), LoggerFactory.getLogger(ProxyRelayHandlerTest.class)));
+
+        // when
+        channel.pipeline().fireChannelRead(Unpooled.copiedBuffer(HEADERS, CharsetUtil.UTF_8));
+        channel.pipeline().fireChannelRead(Unpooled.copiedBuffer("0123456789", CharsetUtil.UTF_8));
+        channel.pipeline().fireChannelReadComplete();
+
+        // then - the buffered headers are flushed before the chunk that did not fit
+        assertThat(relayed(relayChannel), is(HEADERS + "0123456789"));
+        channel.finish();
+    }
+
+    @Test
+    public void shouldRelayFirstChunkTooLargeForBuffer() {
+        // given
+        EmbeddedChannel relayChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProxyRelayHandler(relayChannel, 10, new ResponseInterceptor(), LoggerFactory.getLogger(ProxyRelayHandlerTest.class)));
+        ByteBuf chunk = Unpooled.copiedBuffer(HEADERS + "0123456789", CharsetUtil.UTF_8);
+
+        // when
+        channel.writeInbound(chunk);
+
+        // then
+        assertThat(relayed(relayChannel), is(HEADERS + "0123456789"));
+        assertThat(chunk.refCnt(), is(0));
+        channel.finish();
+    }
+
+    @Test
+    public void shouldInterceptHeadBeforeRelayingChunksTooLargeForBuffer() {
+        // given
+        String requestHeaders = "POST /some_path HTTP/1.1\r\nHost: localhost:1234\r\nContent-Length: 10\r\n\r\n";
+        EmbeddedChannel relayChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProxyRelayHandler(relayChannel, requestHeaders.length(), new RequestInterceptor(new InetSocketAddress("localhost", 4321)), LoggerFactory.getLogger(ProxyRelayHandlerTest.class)));
+
+        // when
+        channel.pipeline().fireChannelRead(Unpooled.copiedBuffer(requestHeaders, CharsetUtil.UTF_8));
+        channel.pipeline().fireChannelRead(Unpooled.copiedBuffer("0123456789", CharsetUtil.UTF_8));
+        channel.pipeline().fireChannelReadComplete();
+
+        // then
+        String relayed = relayed(relayChannel);
+        assertThat(relayed, containsString("Host: localhost:4321\r\n"));
+        assertThat(relayed, containsString("Connection: close\r\n"));
+        assertThat(relayed, endsWith("\r\n\r\n0123456789"));
+        channel.finish();
+    }
+
+    @Test
+    public void shouldInterceptFirstChunkTooLargeForBuffer() {
+        // given
+        String request = "POST /some_path HTTP/1.1\r\nHost: localhost:1234\r\nContent-Length: 10\r\n\r\n0123456789";
+        EmbeddedChannel relayChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        EmbeddedChannel channel = new EmbeddedChannel(new ProxyRelayHandler(relayChannel, 10, new RequestInterceptor(new InetSocketAddress("localhost", 4321)), LoggerFactory.getLogger(ProxyRelayHandlerTest.class)));
+
+        // when
+        channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.UTF_8));
+
+        // then
+        String relayed = relayed(relayChannel);
+        assertThat(relayed, containsString("Host: localhost:4321\r\n"));
+        assertThat(relayed, containsString("Connection: close\r\n"));
+        assertThat(relayed, endsWith("\r\n\r\n0123456789"));
+        channel.finish();
+    }
+
+    @Test
+    public void shouldFindContentLengthWithoutConsumingChunk() {
+        // given
+        ByteBuf chunk = Unpooled.copiedBuffer("ignored" + HEADERS + "01234", CharsetUtil.UTF_8);
+        chunk.skipBytes("ignored".length());
+
+        // when
+        BasicHttpDecoder basicHttpDecoder = new BasicHttpDecoder(chunk);
+
+        // then
+        assertThat(basicHttpDecoder.getContentLength(), is(10));
+        assertThat(basicHttpDecoder.getContentStart(), is(HEADERS.length()));
+        assertThat(chunk.readerIndex(), is("ignored".length()));
+        assertThat(chunk.refCnt(), is(1));
+        chunk.release();
+    }
+}
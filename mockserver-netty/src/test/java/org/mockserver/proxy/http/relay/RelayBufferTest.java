@@ -0,0 +1,105 @@
+package org.mockserver.proxy.http.relay;
+
+import com.google.common.base.Charsets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.proxy.interceptor.Interceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author jamesdbloom
+ */
+public class RelayBufferTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelayBufferTest.class);
+    private ChannelHandlerContext ctx;
+
+    @Before
+    public void createContext() {
+        ctx = mock(ChannelHandlerContext.class);
+        when(ctx.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test
+    public void shouldBufferChunksAndHandOverInterceptedBuffer() throws Exception {
+        // given
+        RelayBuffer relayBuffer = new RelayBuffer(10, passThrough(), logger);
+        ByteBuf first = Unpooled.copiedBuffer("abc", Charsets.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("def", Charsets.UTF_8);
+
+        // when
+        relayBuffer.write(ctx, first);
+        relayBuffer.write(ctx, second);
+        ByteBuf taken = relayBuffer.take(ctx);
+
+        // then
+        assertThat(taken.toString(Charsets.UTF_8), is("abcdef"));
+        assertThat(relayBuffer.isReadable(), is(false));
+        assertThat(taken.release(), is(true));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void shouldLeaveChunkUntouchedWhenBufferIsFull() {
+        // given
+        RelayBuffer relayBuffer = new RelayBuffer(4, passThrough(), logger);
+        ByteBuf first = Unpooled.copiedBuffer("abc", Charsets.UTF_8);
+        ByteBuf second = Unpooled.copiedBuffer("def", Charsets.UTF_8);
+        relayBuffer.write(ctx, first);
+
+        // when
+        try {
+            relayBuffer.write(ctx, second);
+            fail("expected buffer to be full");
+        } catch (IndexOutOfBoundsException iobe) {
+            // then
+            assertThat(second.readableBytes(), is(3));
+            assertThat(relayBuffer.toString(Charsets.UTF_8), is("abc"));
+        }
+        relayBuffer.release();
+        assertThat(relayBuffer.isReadable(), is(false));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void shouldReleaseBufferReplacedByInterceptor() throws Exception {
+        // given
+        final ByteBuf replacement = Unpooled.copiedBuffer("replaced", Charsets.UTF_8);
+        Interceptor interceptor = mock(Interceptor.class);
+        when(interceptor.intercept(any(ChannelHandlerContext.class), any(ByteBuf.class), any(Logger.class))).thenReturn(replacement);
+        RelayBuffer relayBuffer = new RelayBuffer(10, interceptor, logger);
+        ByteBuf head = Unpooled.copiedBuffer("head", Charsets.UTF_8);
+
+        // when
+        ByteBuf intercepted = relayBuffer.intercept(ctx, head);
+
+        // then
+        assertThat(intercepted, sameInstance(replacement));
+        assertThat(head.refCnt(), is(0));
+        replacement.release();
+    }
+
+    private Interceptor passThrough() {
+        return new Interceptor() {
+            @Override
+            public ByteBuf intercept(ChannelHandlerContext ctx, ByteBuf channelBuffer, Logger logger) {
+                return channelBuffer;
+            }
+        };
+    }
+}
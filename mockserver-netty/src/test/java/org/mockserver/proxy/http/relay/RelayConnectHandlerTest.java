@@ -0,0 +1,129 @@
+package org.mockserver.proxy.http.relay;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.socks.*;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+import org.mockserver.proxy.filters.LogFilter;
+import org.mockserver.proxy.http.HttpProxyHandler;
+import org.mockserver.proxy.http.connect.HttpConnectHandler;
+import org.mockserver.proxy.http.socks.SocksConnectHandler;
+import org.mockserver.socket.SSLFactory;
+
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author jamesdbloom
+ */
+public class RelayConnectHandlerTest {
+
+    private final LogFilter logFilter = new LogFilter();
+
+    @Test
+    public void shouldTerminateConnectTunnelOnSameChannel() throws Exception {
+        shouldTerminateConnectTunnelOnSameChannel(new HttpConnectHandler(logFilter, null, true));
+    }
+
+    @Test
+    public void shouldTerminateConnectSentToHttpPortWithoutSecurePort() throws Exception {
+        shouldTerminateConnectTunnelOnSameChannel(new HttpProxyHandler(logFilter, null, false));
+    }
+
+    private void shouldTerminateConnectTunnelOnSameChannel(final ChannelHandler handler) throws Exception {
+        // given
+        final AtomicReference<Channel> acceptedChannel = new AtomicReference<Channel>();
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel serverChannel = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            acceptedChannel.set(ch);
+                            ch.pipeline().addLast(HttpServerCodec.class.getSimpleName(), new HttpServerCodec());
+                            ch.pipeline().addLast(handler.getClass().getSimpleName(), handler);
+                        }
+                    })
+                    .bind(0).sync().channel();
+            Socket socket = new Socket("localhost", ((InetSocketAddress) serverChannel.localAddress()).getPort());
+            try {
+                // when
+                socket.getOutputStream().write("CONNECT www.example.com:443 HTTP/1.1\r\nHost: www.example.com:443\r\n\r\n".getBytes(CharsetUtil.UTF_8));
+                String response = readHeaders(socket.getInputStream());
+
+                // then - the tunnel is open
+                assertThat(response, startsWith("HTTP/1.1 200 OK"));
+
+                // and - the tunnel is decrypted on the same channel with a certificate for the CONNECT host
+                SSLSocket sslSocket = (SSLSocket) SSLFactory.getInstance().clientSslContext().getSocketFactory().createSocket(socket, "www.example.com", 443, true);
+                sslSocket.startHandshake();
+                X509Certificate certificate = (X509Certificate) sslSocket.getSession().getPeerCertificates()[0];
+                assertThat(certificate.getSubjectX500Principal().getName(), containsString("CN=www.example.com"));
+
+                ChannelPipeline pipeline = acceptedChannel.get().pipeline();
+                assertThat(pipeline.get(HttpConnectHandler.class), nullValue());
+                assertThat(pipeline.first(), instanceOf(SslHandler.class));
+                assertThat(pipeline.get(HttpServerCodec.class), notNullValue());
+                assertThat(pipeline.get(HttpProxyHandler.class), notNullValue());
+            } finally {
+                socket.close();
+            }
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private String readHeaders(InputStream inputStream) throws IOException {
+        StringBuilder headers = new StringBuilder();
+        while (!headers.toString().endsWith("\r\n\r\n")) {
+            int read = inputStream.read();
+            if (read == -1) {
+                break;
+            }
+            headers.append((char) read);
+        }
+        return headers.toString();
+    }
+
+    @Test
+    public void shouldTerminateSocksTunnelOnSameChannel() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel(new SocksMessageEncoder(), new SocksConnectHandler(logFilter, null, false));
+
+        // when
+        channel.writeInbound(new SocksCmdRequest(SocksCmdType.CONNECT, SocksAddressType.DOMAIN, "www.example.com", 80));
+
+        // then - the tunnel is open
+        ByteBuf response = (ByteBuf) channel.readOutbound();
+        assertThat(response.getByte(1), is(SocksCmdStatus.SUCCESS.byteValue()));
+        response.release();
+
+        // and - requests through the tunnel are proxied on the same channel
+        assertThat(channel.pipeline().get(SocksConnectHandler.class), nullValue());
+        assertThat(channel.pipeline().get(SocksMessageEncoder.class), nullValue());
+        assertThat(channel.pipeline().get(SslHandler.class), nullValue());
+        assertThat(channel.pipeline().get(HttpServerCodec.class), notNullValue());
+        assertThat(channel.pipeline().get(HttpProxyHandler.class), notNullValue());
+        channel.finish();
+    }
+}
@@ -1,6 +1,8 @@
 package org.mockserver.proxy;
 
-import org.mockserver.client.http.ApacheHttpClient;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.HttpServletToMockServerRequestMapper;
@@ -11,7 +13,10 @@ import org.mockserver.model.HttpResponse;
 import org.mockserver.model.HttpStatusCode;
 import org.mockserver.proxy.filters.*;
 import org.mockserver.streams.IOStreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -23,11 +28,12 @@ import java.io.IOException;
  */
 public class ProxyServlet extends HttpServlet {
     private static final long serialVersionUID = 8490389904399790169L;
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private HttpServletToMockServerRequestMapper httpServletToMockServerRequestMapper = new HttpServletToMockServerRequestMapper();
     private MockServerToHttpServletResponseMapper mockServerToHttpServletResponseMapper = new MockServerToHttpServletResponseMapper();
     private HttpRequestSerializer httpRequestSerializer = new HttpRequestSerializer();
     private ExpectationSerializer expectationSerializer = new ExpectationSerializer();
-    private ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    private NettyHttpClient nettyHttpClient = NettyHttpClient.getInstance();
     private LogFilter logFilter = new LogFilter();
     private Filters filters = new Filters();
 
@@ -112,14 +118,54 @@ public class ProxyServlet extends HttpServlet {
     }
 
     private void forwardRequest(HttpServletRequest request, HttpServletResponse response) {
-        sendRequest(filters.applyFilters(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(request)), response);
+        sendRequest(filters.applyFilters(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(request)), request, response);
     }
 
-    private void sendRequest(final HttpRequest httpRequest, final HttpServletResponse httpServletResponse) {
+    /**
+     * Sends the request with the shared non-blocking http client and, using Servlet 3 async processing, writes the
+     * response on a container thread when it arrives, so no container thread waits for the upstream server and a slow
+     * client does not hold up the client's event loop, if the servlet is not configured to support async processing
+     * the request thread waits for the response
+     */
+    private void sendRequest(final HttpRequest httpRequest, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
         // if HttpRequest was set to null by a filter don't send request
         if (httpRequest != null) {
-            HttpResponse httpResponse = filters.applyFilters(httpRequest, apacheHttpClient.sendRequest(httpRequest));
+            Future<HttpResponse> response = nettyHttpClient.sendRequest(httpRequest);
+            if (httpServletRequest.isAsyncSupported()) {
+                final AsyncContext asyncContext = httpServletRequest.startAsync();
+                // the response is always completed by the listener, the http client times out after maxTimeout
+                asyncContext.setTimeout(0);
+                response.addListener(new GenericFutureListener<Future<HttpResponse>>() {
+                    @Override
+                    public void operationComplete(final Future<HttpResponse> future) {
+                        // the listener runs on the http client's event loop, so the blocking write is left to a container thread
+                        asyncContext.start(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    writeForwardedResponse(httpRequest, future, (HttpServletResponse) asyncContext.getResponse());
+                                } catch (Exception e) {
+                                    logger.warn("Exception writing proxied response", e);
+                                } finally {
+                                    asyncContext.complete();
+                                }
+                            }
+                        });
+                    }
+                });
+            } else {
+                writeForwardedResponse(httpRequest, response.awaitUninterruptibly(), httpServletResponse);
+            }
+        }
+    }
+
+    private void writeForwardedResponse(HttpRequest httpRequest, Future<HttpResponse> response, HttpServletResponse httpServletResponse) {
+        if (response.isSuccess()) {
+            HttpResponse httpResponse = filters.applyFilters(httpRequest, response.getNow());
             mockServerToHttpServletResponseMapper.mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+        } else {
+            logger.warn("Exception proxying request to [" + httpRequest.getURL() + "]", response.cause());
+            httpServletResponse.setStatus(HttpStatusCode.BAD_GATEWAY_502.code());
         }
     }
 }
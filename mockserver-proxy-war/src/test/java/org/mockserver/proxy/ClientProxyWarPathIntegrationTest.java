@@ -42,7 +42,7 @@ public class ClientProxyWarPathIntegrationTest extends AbstractClientProxyIntegr
 
         // add servlet
         Context ctx = tomcat.addContext("/", new File(".").getAbsolutePath());
-        tomcat.addServlet("/", "mockServerServlet", new ProxyServlet());
+        tomcat.addServlet("/", "mockServerServlet", new ProxyServlet()).setAsyncSupported(true);
         ctx.addServletMapping("/*", "mockServerServlet");
 
         // start server
@@ -1,11 +1,15 @@
 package org.mockserver.proxy;
 
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockserver.client.http.ApacheHttpClient;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.HttpServletToMockServerRequestMapper;
@@ -21,6 +25,13 @@ import org.mockserver.proxy.filters.ProxyResponseFilter;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Matchers.any;
@@ -35,7 +46,7 @@ public class ProxyServletTest {
     @Mock
     private MockServerToHttpServletResponseMapper mockMockServerToHttpServletResponseMapper;
     @Mock
-    private ApacheHttpClient mockApacheHttpClient;
+    private NettyHttpClient mockNettyHttpClient;
     @Mock
     private LogFilter mockLogFilter;
     @Mock
@@ -57,7 +68,12 @@ public class ProxyServletTest {
         initMocks(this);
 
         // additional mock objects
-        mockHttpServletRequest = new MockHttpServletRequest();
+        mockHttpServletRequest = new MockHttpServletRequest() {
+            @Override
+            public boolean isAsyncSupported() {
+                return false;
+            }
+        };
         mockHttpServletResponse = new MockHttpServletResponse();
         httpRequest = new HttpRequest().withPath("some_path");
         httpResponse = new HttpResponse();
@@ -65,7 +81,17 @@ public class ProxyServletTest {
         // mappers
         when(mockHttpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(any(MockHttpServletRequest.class))).thenReturn(httpRequest);
         httpRequestArgumentCaptor = ArgumentCaptor.forClass(HttpRequest.class);
-        when(mockApacheHttpClient.sendRequest(httpRequestArgumentCaptor.capture())).thenReturn(httpResponse);
+        when(mockNettyHttpClient.sendRequest(httpRequestArgumentCaptor.capture())).thenReturn(ImmediateEventExecutor.INSTANCE.newSucceededFuture(httpResponse));
+    }
+
+    private void startOnNewThread(AsyncContext asyncContext) {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                new Thread((Runnable) invocation.getArguments()[0]).start();
+                return null;
+            }
+        }).when(asyncContext).start(any(Runnable.class));
     }
 
     @Test
@@ -76,7 +102,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -87,7 +113,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -98,7 +124,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -109,7 +135,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -120,7 +146,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -131,7 +157,7 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
     }
 
     @Test
@@ -142,7 +168,104 @@ public class ProxyServletTest {
         // then
         verify(mockHttpServletToMockServerRequestMapper).mapHttpServletRequestToMockServerRequest(same(mockHttpServletRequest));
         verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
-        verify(mockApacheHttpClient).sendRequest(same(httpRequest));
+        verify(mockNettyHttpClient).sendRequest(same(httpRequest));
+    }
+
+    @Test
+    public void shouldProxyRequestAsynchronously() throws Exception {
+        // given
+        HttpServletRequest asyncHttpServletRequest = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        Promise<HttpResponse> proxiedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+        when(asyncHttpServletRequest.isAsyncSupported()).thenReturn(true);
+        when(asyncHttpServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(mockHttpServletResponse);
+        startOnNewThread(asyncContext);
+        when(mockHttpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(any(HttpServletRequest.class))).thenReturn(httpRequest);
+        when(mockNettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(proxiedResponse);
+
+        // when
+        proxyServlet.doGet(asyncHttpServletRequest, mockHttpServletResponse);
+
+        // then
+        verify(asyncHttpServletRequest).startAsync();
+        verify(mockMockServerToHttpServletResponseMapper, never()).mapMockServerResponseToHttpServletResponse(any(HttpResponse.class), any(HttpServletResponse.class));
+        verify(asyncContext, never()).complete();
+
+        // when
+        proxiedResponse.setSuccess(httpResponse);
+
+        // then
+        verify(asyncContext, timeout(5000)).complete();
+        verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(httpResponse), same(mockHttpServletResponse));
+    }
+
+    @Test
+    public void shouldProxyRequestWhileAnotherProxiedResponseIsWrittenToSlowClient() throws Exception {
+        // given
+        HttpRequest slowRequest = new HttpRequest().withPath("slow_path");
+        HttpRequest fastRequest = new HttpRequest().withPath("fast_path");
+        HttpResponse slowResponse = new HttpResponse().withBody("slow_body");
+        HttpResponse fastResponse = new HttpResponse().withBody("fast_body");
+        MockHttpServletResponse slowServletResponse = new MockHttpServletResponse();
+        MockHttpServletResponse fastServletResponse = new MockHttpServletResponse();
+        HttpServletRequest slowServletRequest = mock(HttpServletRequest.class);
+        HttpServletRequest fastServletRequest = mock(HttpServletRequest.class);
+        AsyncContext slowAsyncContext = mock(AsyncContext.class);
+        AsyncContext fastAsyncContext = mock(AsyncContext.class);
+        Promise<HttpResponse> slowProxiedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+        Promise<HttpResponse> fastProxiedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+        final CountDownLatch slowClient = new CountDownLatch(1);
+
+        when(slowServletRequest.isAsyncSupported()).thenReturn(true);
+        when(fastServletRequest.isAsyncSupported()).thenReturn(true);
+        when(slowServletRequest.startAsync()).thenReturn(slowAsyncContext);
+        when(fastServletRequest.startAsync()).thenReturn(fastAsyncContext);
+        when(slowAsyncContext.getResponse()).thenReturn(slowServletResponse);
+        when(fastAsyncContext.getResponse()).thenReturn(fastServletResponse);
+        startOnNewThread(slowAsyncContext);
+        startOnNewThread(fastAsyncContext);
+        when(mockHttpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(slowServletRequest)).thenReturn(slowRequest);
+        when(mockHttpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(fastServletRequest)).thenReturn(fastRequest);
+        when(mockNettyHttpClient.sendRequest(slowRequest)).thenReturn(slowProxiedResponse);
+        when(mockNettyHttpClient.sendRequest(fastRequest)).thenReturn(fastProxiedResponse);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws InterruptedException {
+                slowClient.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(slowResponse), same(slowServletResponse));
+
+        // when - both proxied responses arrive on the same (http client event loop) thread
+        proxyServlet.doGet(slowServletRequest, slowServletResponse);
+        proxyServlet.doGet(fastServletRequest, fastServletResponse);
+        slowProxiedResponse.setSuccess(slowResponse);
+        fastProxiedResponse.setSuccess(fastResponse);
+
+        // then - the second response is written while the first is still being written to the slow client
+        verify(fastAsyncContext, timeout(5000)).complete();
+        verify(mockMockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(same(fastResponse), same(fastServletResponse));
+        verify(slowAsyncContext, never()).complete();
+
+        // when
+        slowClient.countDown();
+
+        // then
+        verify(slowAsyncContext, timeout(5000)).complete();
+    }
+
+    @Test
+    public void shouldRespondWithBadGatewayWhenProxiedRequestFails() throws Exception {
+        // given
+        when(mockNettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(ImmediateEventExecutor.INSTANCE.<HttpResponse>newFailedFuture(new IOException("connection refused")));
+
+        // when
+        proxyServlet.doGet(mockHttpServletRequest, mockHttpServletResponse);
+
+        // then
+        verifyZeroInteractions(mockMockServerToHttpServletResponseMapper);
+        assertEquals(HttpStatusCode.BAD_GATEWAY_502.code(), mockHttpServletResponse.getStatus());
     }
 
     @Test
@@ -1,7 +1,10 @@
 package org.mockserver.server;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import org.apache.http.client.utils.URIBuilder;
-import org.mockserver.client.http.ApacheHttpClient;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.HttpServletToMockServerRequestMapper;
@@ -16,10 +19,14 @@ import org.mockserver.streams.IOStreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.net.URISyntaxException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author jamesdbloom
@@ -33,9 +40,11 @@ public class MockServerServlet extends HttpServlet {
     private MockServerToHttpServletResponseMapper mockServerToHttpServletResponseMapper = new MockServerToHttpServletResponseMapper();
     private ExpectationSerializer expectationSerializer = new ExpectationSerializer();
     private HttpRequestSerializer httpRequestSerializer = new HttpRequestSerializer();
-    private ApacheHttpClient apacheHttpClient = new ApacheHttpClient(true);
+    private NettyHttpClient nettyHttpClient = NettyHttpClient.getInstance();
     private LogFilter logFilter = new LogFilter();
     private Filters filters = new Filters();
+    // a single timer thread waits out every delay, so delayed requests do not hold container threads while they wait
+    private ScheduledExecutorService delayScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MockServer-delay-%d").build());
 
     public MockServerServlet() {
         filters.withFilter(new HttpRequest(), new HopByHopHeaderFilter());
@@ -94,13 +103,60 @@ public class MockServerServlet extends HttpServlet {
             HttpResponse httpResponse = (HttpResponse) action;
             logFilter.onResponse(httpRequest, httpResponse);
             if (httpResponse != null) {
-                mockServerToHttpServletResponseMapper.mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+                writeResponse(httpServletRequest, httpServletResponse, httpResponse);
             } else {
                 httpServletResponse.setStatus(HttpStatusCode.NOT_FOUND_404.code());
             }
         }
     }
 
+    /**
+     * Waits for the delay on the timer thread and then writes the response on a container thread using Servlet 3 async
+     * processing, if the servlet is not configured to support async processing the request thread is blocked for the delay
+     */
+    private void writeResponse(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, final HttpResponse httpResponse) {
+        long delayInMilliseconds = (httpResponse.getDelay() != null ? httpResponse.getDelay().sampleMillis() : 0);
+        if (delayInMilliseconds > 0 && httpServletRequest.isAsyncSupported()) {
+            final AsyncContext asyncContext = httpServletRequest.startAsync();
+            // the response is always completed by the scheduled task
+            asyncContext.setTimeout(0);
+            delayScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // the timer only waits, the blocking write is left to a container thread so a slow client does not hold up other delayed responses
+                    asyncContext.start(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                mockServerToHttpServletResponseMapper.mapMockServerResponseToHttpServletResponse(httpResponse, (HttpServletResponse) asyncContext.getResponse());
+                            } catch (Exception e) {
+                                logger.warn("Exception writing delayed response", e);
+                            } finally {
+                                asyncContext.complete();
+                            }
+                        }
+                    });
+                }
+            }, delayInMilliseconds, TimeUnit.MILLISECONDS);
+        } else {
+            if (delayInMilliseconds > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delayInMilliseconds);
+                } catch (InterruptedException ie) {
+                    logger.error("InterruptedException while apply delay to response", ie);
+                    throw new RuntimeException("InterruptedException while apply delay to response", ie);
+                }
+            }
+            mockServerToHttpServletResponseMapper.mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        delayScheduler.shutdownNow();
+        super.destroy();
+    }
+
     private HttpRequest updateUrl(HttpRequest httpRequest, HttpServletRequest httpServletRequest, HttpForward httpForward) {
         try {
             URIBuilder uriBuilder = new URIBuilder(httpServletRequest.getRequestURL().toString());
@@ -118,14 +174,54 @@ public class MockServerServlet extends HttpServlet {
 
     private void forwardRequest(HttpServletRequest request, HttpServletResponse response, HttpForward httpForward) {
         HttpRequest httpRequest = updateUrl(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(request), request, httpForward);
-        sendRequest(filters.applyFilters(httpRequest), response);
+        sendRequest(filters.applyFilters(httpRequest), request, response);
     }
 
-    private void sendRequest(final HttpRequest httpRequest, final HttpServletResponse httpServletResponse) {
+    /**
+     * Sends the request with the shared non-blocking http client and, using Servlet 3 async processing, writes the
+     * response on a container thread when it arrives, so no container thread waits for the upstream server and a slow
+     * client does not hold up the client's event loop, if the servlet is not configured to support async processing
+     * the request thread waits for the response
+     */
+    private void sendRequest(final HttpRequest httpRequest, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
         // if HttpRequest was set to null by a filter don't send request
         if (httpRequest != null) {
-            HttpResponse httpResponse = filters.applyFilters(httpRequest, apacheHttpClient.sendRequest(httpRequest));
+            Future<HttpResponse> response = nettyHttpClient.sendRequest(httpRequest);
+            if (httpServletRequest.isAsyncSupported()) {
+                final AsyncContext asyncContext = httpServletRequest.startAsync();
+                // the response is always completed by the listener, the http client times out after maxTimeout
+                asyncContext.setTimeout(0);
+                response.addListener(new GenericFutureListener<Future<HttpResponse>>() {
+                    @Override
+                    public void operationComplete(final Future<HttpResponse> future) {
+                        // the listener runs on the http client's event loop, so the blocking write is left to a container thread
+                        asyncContext.start(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    writeForwardedResponse(httpRequest, future, (HttpServletResponse) asyncContext.getResponse());
+                                } catch (Exception e) {
+                                    logger.warn("Exception writing forwarded response", e);
+                                } finally {
+                                    asyncContext.complete();
+                                }
+                            }
+                        });
+                    }
+                });
+            } else {
+                writeForwardedResponse(httpRequest, response.awaitUninterruptibly(), httpServletResponse);
+            }
+        }
+    }
+
+    private void writeForwardedResponse(HttpRequest httpRequest, Future<HttpResponse> response, HttpServletResponse httpServletResponse) {
+        if (response.isSuccess()) {
+            HttpResponse httpResponse = filters.applyFilters(httpRequest, response.getNow());
             mockServerToHttpServletResponseMapper.mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+        } else {
+            logger.warn("Exception forwarding request to [" + httpRequest.getURL() + "]", response.cause());
+            httpServletResponse.setStatus(HttpStatusCode.BAD_GATEWAY_502.code());
         }
     }
 }
@@ -43,7 +43,7 @@ public class ClientServerWarNoContextPathIntegrationTest extends AbstractClientS
         httpsConnector.setSecure(true);
         httpsConnector.setAttribute("keyAlias", SSLFactory.KEY_STORE_CERT_ALIAS);
         httpsConnector.setAttribute("keystorePass", SSLFactory.KEY_STORE_PASSWORD);
-        httpsConnector.setAttribute("keystoreFile", new File(SSLFactory.KEY_STORE_FILENAME).getAbsoluteFile());
+        httpsConnector.setAttribute("keystoreFile", SSLFactory.getInstance().keyStoreFile().getAbsoluteFile());
         httpsConnector.setAttribute("sslProtocol", "TLS");
         httpsConnector.setAttribute("clientAuth", false);
         httpsConnector.setAttribute("SSLEnabled", true);
@@ -56,7 +56,7 @@ public class ClientServerWarNoContextPathIntegrationTest extends AbstractClientS
 
         // add servlet
         Context ctx = tomcat.addContext("/" + servletContext, new File(".").getAbsolutePath());
-        tomcat.addServlet("/" + servletContext, "mockServerServlet", new MockServerServlet());
+        tomcat.addServlet("/" + servletContext, "mockServerServlet", new MockServerServlet()).setAsyncSupported(true);
         ctx.addServletMapping("/*", "mockServerServlet");
 
         // start server
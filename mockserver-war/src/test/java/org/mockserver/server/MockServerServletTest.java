@@ -1,11 +1,15 @@
 package org.mockserver.server;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockserver.client.http.ApacheHttpClient;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockserver.client.http.NettyHttpClient;
 import org.mockserver.client.serialization.ExpectationSerializer;
 import org.mockserver.client.serialization.HttpRequestSerializer;
 import org.mockserver.mappers.HttpServletToMockServerRequestMapper;
@@ -13,6 +17,7 @@ import org.mockserver.mappers.MockServerToHttpServletResponseMapper;
 import org.mockserver.matchers.Times;
 import org.mockserver.mock.Expectation;
 import org.mockserver.mock.MockServerMatcher;
+import org.mockserver.model.Delay;
 import org.mockserver.model.Header;
 import org.mockserver.model.HttpForward;
 import org.mockserver.model.HttpRequest;
@@ -21,8 +26,12 @@ import org.mockserver.proxy.filters.Filters;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -40,7 +49,7 @@ public class MockServerServletTest {
     @Mock
     private Filters filters;
     @Mock
-    private ApacheHttpClient apacheHttpClient;
+    private NettyHttpClient nettyHttpClient;
     @Mock
     private HttpServletToMockServerRequestMapper httpServletToMockServerRequestMapper;
     @Mock
@@ -59,6 +68,16 @@ public class MockServerServletTest {
         initMocks(this);
     }
 
+    private void startOnNewThread(AsyncContext asyncContext) {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                new Thread((Runnable) invocation.getArguments()[0]).start();
+                return null;
+            }
+        }).when(asyncContext).start(any(Runnable.class));
+    }
+
     @Test
     public void respondWhenPathMatches() throws IOException {
         // given
@@ -77,6 +96,115 @@ public class MockServerServletTest {
         verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
     }
 
+    @Test
+    public void respondAsynchronouslyAfterDelay() throws IOException {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("somepath");
+        HttpResponse httpResponse = new HttpResponse().withBody("somebody").withDelay(new Delay(TimeUnit.MILLISECONDS, 500));
+        MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+        HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+
+        when(httpServletRequest.getMethod()).thenReturn("GET");
+        when(httpServletRequest.isAsyncSupported()).thenReturn(true);
+        when(httpServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(httpServletResponse);
+        startOnNewThread(asyncContext);
+        when(mockServerMatcher.handle(httpRequest)).thenReturn(httpResponse);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(httpServletRequest)).thenReturn(httpRequest);
+
+        // when
+        mockServerServlet.doGet(httpServletRequest, httpServletResponse);
+
+        // then
+        verify(httpServletRequest).startAsync();
+        verify(mockServerToHttpServletResponseMapper, never()).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+        verify(asyncContext, timeout(5000)).complete();
+        verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+    }
+
+    @Test
+    public void respondAfterDelayWhileAnotherDelayedResponseIsWrittenToSlowClient() throws IOException {
+        // given
+        HttpRequest slowRequest = new HttpRequest().withPath("slow_path");
+        HttpRequest fastRequest = new HttpRequest().withPath("fast_path");
+        HttpResponse slowResponse = new HttpResponse().withBody("slow_body").withDelay(new Delay(TimeUnit.MILLISECONDS, 100));
+        HttpResponse fastResponse = new HttpResponse().withBody("fast_body").withDelay(new Delay(TimeUnit.MILLISECONDS, 200));
+        MockHttpServletResponse slowServletResponse = new MockHttpServletResponse();
+        MockHttpServletResponse fastServletResponse = new MockHttpServletResponse();
+        HttpServletRequest slowServletRequest = mock(HttpServletRequest.class);
+        HttpServletRequest fastServletRequest = mock(HttpServletRequest.class);
+        AsyncContext slowAsyncContext = mock(AsyncContext.class);
+        AsyncContext fastAsyncContext = mock(AsyncContext.class);
+        final CountDownLatch slowClient = new CountDownLatch(1);
+
+        for (HttpServletRequest httpServletRequest : new HttpServletRequest[]{slowServletRequest, fastServletRequest}) {
+            when(httpServletRequest.getMethod()).thenReturn("GET");
+            when(httpServletRequest.isAsyncSupported()).thenReturn(true);
+        }
+        when(slowServletRequest.startAsync()).thenReturn(slowAsyncContext);
+        when(fastServletRequest.startAsync()).thenReturn(fastAsyncContext);
+        when(slowAsyncContext.getResponse()).thenReturn(slowServletResponse);
+        when(fastAsyncContext.getResponse()).thenReturn(fastServletResponse);
+        startOnNewThread(slowAsyncContext);
+        startOnNewThread(fastAsyncContext);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(slowServletRequest)).thenReturn(slowRequest);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(fastServletRequest)).thenReturn(fastRequest);
+        when(mockServerMatcher.handle(slowRequest)).thenReturn(slowResponse);
+        when(mockServerMatcher.handle(fastRequest)).thenReturn(fastResponse);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws InterruptedException {
+                slowClient.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(slowResponse, slowServletResponse);
+
+        // when
+        mockServerServlet.doGet(slowServletRequest, slowServletResponse);
+        mockServerServlet.doGet(fastServletRequest, fastServletResponse);
+
+        // then - the second delayed response is written while the first is still being written to the slow client
+        verify(fastAsyncContext, timeout(5000)).complete();
+        verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(fastResponse, fastServletResponse);
+        verify(slowAsyncContext, never()).complete();
+
+        // when
+        slowClient.countDown();
+
+        // then
+        verify(slowAsyncContext, timeout(5000)).complete();
+    }
+
+    @Test
+    public void respondAfterSampledDelayWhenAsyncNotSupported() throws IOException {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("somepath");
+        Delay delay = mock(Delay.class);
+        when(delay.sampleMillis()).thenReturn(100L);
+        HttpResponse httpResponse = new HttpResponse().withBody("somebody").withDelay(delay);
+        MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+        MockHttpServletRequest httpServletRequest = new MockHttpServletRequest("GET", "somepath") {
+            @Override
+            public boolean isAsyncSupported() {
+                return false;
+            }
+        };
+
+        when(mockServerMatcher.handle(httpRequest)).thenReturn(httpResponse);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(httpServletRequest)).thenReturn(httpRequest);
+
+        // when
+        long start = System.currentTimeMillis();
+        mockServerServlet.doGet(httpServletRequest, httpServletResponse);
+
+        // then - the delay is sampled once and the request thread sleeps for that sample
+        assertThat(System.currentTimeMillis() - start >= 100, is(true));
+        verify(delay, times(1)).sampleMillis();
+        verify(delay, never()).applyDelay();
+        verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+    }
+
     @Test
     public void forwardWhenPathMatches() throws IOException {
         // given
@@ -84,11 +212,16 @@ public class MockServerServletTest {
         HttpForward httpForward = new HttpForward().withHost("some_host").withPort(1234);
         HttpResponse httpResponse = new HttpResponse();
         MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
-        MockHttpServletRequest httpServletRequest = new MockHttpServletRequest("GET", "somepath");
+        MockHttpServletRequest httpServletRequest = new MockHttpServletRequest("GET", "somepath") {
+            @Override
+            public boolean isAsyncSupported() {
+                return false;
+            }
+        };
 
         when(mockServerMatcher.handle(httpRequest)).thenReturn(httpForward);
         when(filters.applyFilters(any(HttpRequest.class))).thenReturn(httpRequest);
-        when(apacheHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(httpResponse);
+        when(nettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(ImmediateEventExecutor.INSTANCE.newSucceededFuture(httpResponse));
         when(filters.applyFilters(any(HttpRequest.class), any(HttpResponse.class))).thenReturn(httpResponse);
         when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(httpServletRequest)).thenReturn(httpRequest);
 
@@ -98,12 +231,142 @@ public class MockServerServletTest {
         // then
         verify(mockServerMatcher).handle(httpRequest);
         verify(filters).applyFilters(httpRequest);
-        verify(apacheHttpClient).sendRequest(httpRequest);
+        verify(nettyHttpClient).sendRequest(httpRequest);
         verify(filters).applyFilters(httpRequest, httpResponse);
         verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
         assertThat(httpServletResponse.getStatus(), is(200));
     }
 
+    @Test
+    public void forwardAsynchronously() throws IOException {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("somepath");
+        HttpForward httpForward = new HttpForward().withHost("some_host").withPort(1234);
+        HttpResponse httpResponse = new HttpResponse();
+        MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+        HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        Promise<HttpResponse> forwardedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        when(httpServletRequest.getMethod()).thenReturn("GET");
+        when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer("http://localhost:8080/somepath"));
+        when(httpServletRequest.isAsyncSupported()).thenReturn(true);
+        when(httpServletRequest.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(httpServletResponse);
+        startOnNewThread(asyncContext);
+        when(mockServerMatcher.handle(httpRequest)).thenReturn(httpForward);
+        when(filters.applyFilters(any(HttpRequest.class))).thenReturn(httpRequest);
+        when(nettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(forwardedResponse);
+        when(filters.applyFilters(any(HttpRequest.class), any(HttpResponse.class))).thenReturn(httpResponse);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(httpServletRequest)).thenReturn(httpRequest);
+
+        // when
+        mockServerServlet.doGet(httpServletRequest, httpServletResponse);
+
+        // then
+        verify(httpServletRequest).startAsync();
+        verify(mockServerToHttpServletResponseMapper, never()).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+        verify(asyncContext, never()).complete();
+
+        // when
+        forwardedResponse.setSuccess(httpResponse);
+
+        // then
+        verify(asyncContext, timeout(5000)).complete();
+        verify(filters).applyFilters(httpRequest, httpResponse);
+        verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(httpResponse, httpServletResponse);
+    }
+
+    @Test
+    public void forwardWhileAnotherForwardedResponseIsWrittenToSlowClient() throws IOException {
+        // given
+        HttpRequest slowRequest = new HttpRequest().withPath("slow_path");
+        HttpRequest fastRequest = new HttpRequest().withPath("fast_path");
+        HttpForward httpForward = new HttpForward().withHost("some_host").withPort(1234);
+        HttpResponse slowResponse = new HttpResponse().withBody("slow_body");
+        HttpResponse fastResponse = new HttpResponse().withBody("fast_body");
+        MockHttpServletResponse slowServletResponse = new MockHttpServletResponse();
+        MockHttpServletResponse fastServletResponse = new MockHttpServletResponse();
+        HttpServletRequest slowServletRequest = mock(HttpServletRequest.class);
+        HttpServletRequest fastServletRequest = mock(HttpServletRequest.class);
+        AsyncContext slowAsyncContext = mock(AsyncContext.class);
+        AsyncContext fastAsyncContext = mock(AsyncContext.class);
+        Promise<HttpResponse> slowForwardedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+        Promise<HttpResponse> fastForwardedResponse = ImmediateEventExecutor.INSTANCE.newPromise();
+        final CountDownLatch slowClient = new CountDownLatch(1);
+
+        for (HttpServletRequest httpServletRequest : new HttpServletRequest[]{slowServletRequest, fastServletRequest}) {
+            when(httpServletRequest.getMethod()).thenReturn("GET");
+            when(httpServletRequest.getRequestURL()).thenReturn(new StringBuffer("http://localhost:8080/somepath"));
+            when(httpServletRequest.isAsyncSupported()).thenReturn(true);
+        }
+        when(slowServletRequest.startAsync()).thenReturn(slowAsyncContext);
+        when(fastServletRequest.startAsync()).thenReturn(fastAsyncContext);
+        when(slowAsyncContext.getResponse()).thenReturn(slowServletResponse);
+        when(fastAsyncContext.getResponse()).thenReturn(fastServletResponse);
+        startOnNewThread(slowAsyncContext);
+        startOnNewThread(fastAsyncContext);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(slowServletRequest)).thenReturn(slowRequest);
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(fastServletRequest)).thenReturn(fastRequest);
+        when(mockServerMatcher.handle(any(HttpRequest.class))).thenReturn(httpForward);
+        when(filters.applyFilters(slowRequest)).thenReturn(slowRequest);
+        when(filters.applyFilters(fastRequest)).thenReturn(fastRequest);
+        when(nettyHttpClient.sendRequest(slowRequest)).thenReturn(slowForwardedResponse);
+        when(nettyHttpClient.sendRequest(fastRequest)).thenReturn(fastForwardedResponse);
+        when(filters.applyFilters(slowRequest, slowResponse)).thenReturn(slowResponse);
+        when(filters.applyFilters(fastRequest, fastResponse)).thenReturn(fastResponse);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws InterruptedException {
+                slowClient.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(slowResponse, slowServletResponse);
+
+        // when - both forwarded responses arrive on the same (http client event loop) thread
+        mockServerServlet.doGet(slowServletRequest, slowServletResponse);
+        mockServerServlet.doGet(fastServletRequest, fastServletResponse);
+        slowForwardedResponse.setSuccess(slowResponse);
+        fastForwardedResponse.setSuccess(fastResponse);
+
+        // then - the second response is written while the first is still being written to the slow client
+        verify(fastAsyncContext, timeout(5000)).complete();
+        verify(mockServerToHttpServletResponseMapper).mapMockServerResponseToHttpServletResponse(fastResponse, fastServletResponse);
+        verify(slowAsyncContext, never()).complete();
+
+        // when
+        slowClient.countDown();
+
+        // then
+        verify(slowAsyncContext, timeout(5000)).complete();
+    }
+
+    @Test
+    public void respondWithBadGatewayWhenForwardFails() throws IOException {
+        // given
+        HttpRequest httpRequest = new HttpRequest().withPath("somepath");
+        HttpForward httpForward = new HttpForward().withHost("some_host").withPort(1234);
+        MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+        MockHttpServletRequest httpServletRequest = new MockHttpServletRequest("GET", "somepath") {
+            @Override
+            public boolean isAsyncSupported() {
+                return false;
+            }
+        };
+
+        when(mockServerMatcher.handle(httpRequest)).thenReturn(httpForward);
+        when(filters.applyFilters(any(HttpRequest.class))).thenReturn(httpRequest);
+        when(nettyHttpClient.sendRequest(any(HttpRequest.class))).thenReturn(ImmediateEventExecutor.INSTANCE.<HttpResponse>newFailedFuture(new IOException("connection refused")));
+        when(httpServletToMockServerRequestMapper.mapHttpServletRequestToMockServerRequest(httpServletRequest)).thenReturn(httpRequest);
+
+        // when
+        mockServerServlet.doGet(httpServletRequest, httpServletResponse);
+
+        // then
+        verify(mockServerToHttpServletResponseMapper, never()).mapMockServerResponseToHttpServletResponse(any(HttpResponse.class), any(HttpServletResponse.class));
+        assertThat(httpServletResponse.getStatus(), is(502));
+    }
+
     @Test
     public void setupExpectation() throws IOException {
         // given